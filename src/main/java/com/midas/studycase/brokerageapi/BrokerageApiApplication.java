@@ -2,8 +2,10 @@ package com.midas.studycase.brokerageapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC is only used by the r2dbc profile, which configures its own pool for order reads
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class BrokerageApiApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,29 @@
+package com.midas.studycase.brokerageapi.config.engine;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the in-memory single-writer order engine.
+ * When enabled, every ticker is owned by one event loop thread and order events are applied
+ * without distributed locks.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "order.engine")
+public class OrderEngineProperties {
+    private boolean enabled = false;
+    private int ringBufferSize = 1024;
+    private long submitTimeoutMs = 5000;
+    /**
+     * User positions kept in memory per ticker; the least recently used ones are loaded again when needed.
+     */
+    private int maxPositionsPerTicker = 10000;
+    /**
+     * A ticker's loop is retired once nothing has been submitted to it for this long.
+     */
+    private long idleTimeoutMs = 300000;
+}
@@ -1,13 +1,25 @@
 package com.midas.studycase.brokerageapi.config.kafka;
 
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.service.consumer.OrderDeadLetterService;
+import com.midas.studycase.brokerageapi.service.engine.OrderEngine;
+import com.midas.studycase.brokerageapi.service.producer.OrderEventSender;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.RangeAssignor;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -16,11 +28,20 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicSchedulerWrapper;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import reactor.kafka.sender.SenderOptions;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,11 +55,100 @@ import java.util.Map;
 public class KafkaConfig {
 
     private final KafkaProperties properties;
+    private final OrderKafkaProperties orderKafkaProperties;
+    private final ObjectProvider<OrderEngine> orderEngine;
     public static final String BUY_ORDERS_TOPIC = "buy_intent_orders";
     public static final String SELL_ORDERS_TOPIC = "sell_intent_orders";
     public static final String CANCELLED_ORDERS_TOPIC = "cancelled_intent_orders";
     public static final String USER_NOTIFICATION_TOPIC = "user-notifications";
     public static final String STOCK_ACTION_CONSUMER_GROUP_ID = "stock-action-handler-group";
+    public static final String LISTENER_CONTAINER_FACTORY = "kafkaListenerContainerFactory";
+    public static final String BATCH_LISTENER_CONTAINER_FACTORY = "batchKafkaListenerContainerFactory";
+    public static final String RETRY_LISTENER_CONTAINER_FACTORY = "retryKafkaListenerContainerFactory";
+    public static final String ORDER_LISTENER_ID = "order-listener";
+    public static final List<String> ORDER_TOPICS = List.of(BUY_ORDERS_TOPIC, SELL_ORDERS_TOPIC, CANCELLED_ORDERS_TOPIC);
+    public static final String RETRY_TOPIC_SUFFIX = "-retry";
+    public static final String DLT_SUFFIX = "-dlt";
+
+    @Bean
+    public NewTopic buyOrdersTopic() {
+        return orderTopic(BUY_ORDERS_TOPIC);
+    }
+
+    @Bean
+    public NewTopic sellOrdersTopic() {
+        return orderTopic(SELL_ORDERS_TOPIC);
+    }
+
+    @Bean
+    public NewTopic cancelledOrdersTopic() {
+        return orderTopic(CANCELLED_ORDERS_TOPIC);
+    }
+
+    /**
+     * All order topics share the same partition count, so a given key maps to the same partition
+     * number on each of them.
+     */
+    private NewTopic orderTopic(String name) {
+        return new NewTopic(name, orderKafkaProperties.getPartitions(), orderKafkaProperties.getReplicationFactor());
+    }
+
+    /**
+     * Returns the topic the events of the given order type are published to.
+     *
+     * @param orderType the type of the order.
+     * @return the name of the order topic.
+     */
+    public static String getOrderTopic(OrderType orderType) {
+        return switch (orderType) {
+            case BUY -> BUY_ORDERS_TOPIC;
+            case SELL -> SELL_ORDERS_TOPIC;
+            case CANCEL -> CANCELLED_ORDERS_TOPIC;
+        };
+    }
+
+    /**
+     * Sets up non-blocking retries for the order listener. An event that fails with a retryable error is
+     * committed on its main partition and republished to {@code <topic>-retry-0}, {@code -retry-1}, ... with
+     * exponentially growing delays, so the main partitions keep flowing while it waits. Once the attempts are
+     * used up, or straight away for errors that cannot succeed on a retry such as unreadable records, the event
+     * is moved to {@code <topic>-dlt} with the failure in the {@code kafka_dlt-exception-*} headers.
+     * Retry topics do not support batch listeners, so batch mode dead-letters failed events directly.
+     * The retry and dead letter listeners get their own container factory, so scaling the order listener
+     * does not change them.
+     *
+     * @return RetryTopicConfiguration for the order topics
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "order.kafka.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public RetryTopicConfiguration orderRetryTopicConfiguration() {
+        OrderKafkaProperties.Retry retry = orderKafkaProperties.getRetry();
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopics(ORDER_TOPICS)
+                .maxAttempts(retry.getMaxAttempts())
+                .exponentialBackoff(retry.getInitialDelayMs(), retry.getMultiplier(), retry.getMaxDelayMs())
+                .retryTopicSuffix(RETRY_TOPIC_SUFFIX)
+                .dltSuffix(DLT_SUFFIX)
+                .setTopicSuffixingStrategy(TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+                .autoCreateTopicsWith(orderKafkaProperties.getPartitions(), orderKafkaProperties.getReplicationFactor())
+                .dltHandlerMethod("orderDeadLetterService", OrderDeadLetterService.DEAD_LETTER_HANDLER_METHOD)
+                .dltProcessingFailureStrategy(DltStrategy.FAIL_ON_ERROR)
+                .listenerFactory(RETRY_LISTENER_CONTAINER_FACTORY)
+                .create(deadLetterKafkaTemplate());
+    }
+
+    /**
+     * Scheduler that resumes the retry topic partitions once the delay of their next event has passed.
+     *
+     * @return RetryTopicSchedulerWrapper for the retry topics
+     */
+    @Bean
+    public RetryTopicSchedulerWrapper retryTopicSchedulerWrapper() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("order-retry-");
+        scheduler.initialize();
+        return new RetryTopicSchedulerWrapper(scheduler);
+    }
 
     /**
      * Configures the producer factory for sending OrderEvent objects.
@@ -50,8 +160,8 @@ public class KafkaConfig {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(),
+                new OrderEventSerializer(orderKafkaProperties.getValueSchema()));
     }
 
 
@@ -69,6 +179,37 @@ public class KafkaConfig {
         return new DefaultKafkaProducerFactory<>(configProps);
     }
 
+    /**
+     * Provides the sender of order events. Every order topic gets its own producer, so batching, linger and
+     * compression can be tuned per topic through {@code order.kafka.producer}.
+     *
+     * @return OrderEventSender for the order topics
+     */
+    @Bean(destroyMethod = "close")
+    public OrderEventSender orderEventSender() {
+        return new OrderEventSender(orderKafkaProperties.getProducer(), this::orderSenderOptions);
+    }
+
+    /**
+     * Sets up the producer of one order topic. Records are only acknowledged once every in-sync replica
+     * has written them.
+     *
+     * @param topic the order topic
+     * @return SenderOptions for the topic
+     */
+    private SenderOptions<String, OrderEvent> orderSenderOptions(String topic) {
+        OrderKafkaProperties.TopicProducer topicProducer = orderKafkaProperties.getProducer().forTopic(topic);
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, topicProducer.getBatchSize());
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, topicProducer.getLingerMs());
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, topicProducer.getCompressionType());
+        return SenderOptions.<String, OrderEvent>create(configProps)
+                .withValueSerializer(new OrderEventSerializer(orderKafkaProperties.getValueSchema()));
+    }
+
     /**
      * Provides a Kafka template bean for sending OrderEvent objects.
      *
@@ -79,6 +220,24 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * Provides the Kafka template that moves failed order events to the retry and dead letter topics.
+     * Events that could not be read are forwarded as the raw bytes they were received as.
+     *
+     * @return KafkaTemplate for OrderEvent and raw records
+     */
+    @Bean
+    public KafkaTemplate<String, Object> deadLetterKafkaTemplate() {
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(OrderEvent.class, new OrderEventSerializer(orderKafkaProperties.getValueSchema()));
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(),
+                new DelegatingByTypeSerializer(serializers)));
+    }
+
     /**
      * Provides a Kafka template bean for sending OrderEvent objects.
      *
@@ -92,15 +251,37 @@ public class KafkaConfig {
 
     /**
      * Configures the Kafka listener container factory for consuming OrderEvent objects.
+     * Concurrency matches the partition count, so each consumer thread owns one partition of every
+     * order topic and processes its events sequentially. With {@code order.kafka.autoscale.enabled} the
+     * order listener starts with the minimum thread count and is scaled with its lag.
      *
      * @param consumerFactory ConsumerFactory for OrderEvent
      * @return KafkaListenerContainerFactory for OrderEvent
      */
-    @Bean
+    @Bean(LISTENER_CONTAINER_FACTORY)
     public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> kafkaListenerContainerFactory(ConsumerFactory<String, OrderEvent> consumerFactory) {
+        return orderListenerContainerFactory(consumerFactory, initialConcurrency(orderKafkaProperties.getPartitions()));
+    }
+
+    /**
+     * Configures the Kafka listener container factory of the retry and dead letter topics. It runs
+     * {@code order.kafka.retry.concurrency} threads, one per partition by default, and is never scaled.
+     *
+     * @param consumerFactory ConsumerFactory for OrderEvent
+     * @return KafkaListenerContainerFactory for the retry and dead letter topics
+     */
+    @Bean(RETRY_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> retryKafkaListenerContainerFactory(ConsumerFactory<String, OrderEvent> consumerFactory) {
+        return orderListenerContainerFactory(consumerFactory, resolveConcurrency(orderKafkaProperties.getRetry().getConcurrency()));
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, OrderEvent> orderListenerContainerFactory(ConsumerFactory<String, OrderEvent> consumerFactory,
+                                                                                                      int concurrency) {
         ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(concurrency);
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.getContainerProperties().setConsumerRebalanceListener(orderEngineRebalanceListener());
         DefaultErrorHandler commonErrorHandler = new DefaultErrorHandler((record, exception) ->
                 log.error(String.format("There is an exception occurred while consuming order from kafka topic:%s, partition:%s, recordOffset:%s"
                         , record.topic(), record.partition(), record.offset()), exception));
@@ -109,6 +290,82 @@ public class KafkaConfig {
         return factory;
     }
 
+    /**
+     * Configures the Kafka listener container factory for consuming OrderEvent objects in batches.
+     * Each poll is delivered to the listener as one list and acknowledged once, after the whole batch
+     * has been committed to the database. It runs {@code order.kafka.batch.concurrency} threads, one per
+     * partition by default, unless the order listener is scaled with its lag.
+     *
+     * @return KafkaListenerContainerFactory for batches of OrderEvent
+     */
+    @Bean(BATCH_LISTENER_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, OrderEvent> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, OrderEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory());
+        factory.setConcurrency(initialConcurrency(resolveConcurrency(orderKafkaProperties.getBatch().getConcurrency())));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.getContainerProperties().setConsumerRebalanceListener(orderEngineRebalanceListener());
+        DefaultErrorHandler commonErrorHandler = new DefaultErrorHandler((record, exception) ->
+                log.error(String.format("There is an exception occurred while consuming order batch from kafka topic:%s, partition:%s, recordOffset:%s"
+                        , record.topic(), record.partition(), record.offset()), exception));
+        commonErrorHandler.setCommitRecovered(true);
+        factory.setCommonErrorHandler(commonErrorHandler);
+        return factory;
+    }
+
+    /**
+     * Starts the order listener with its configured thread count, or with the minimum thread count when it
+     * is scaled with its lag.
+     */
+    private int initialConcurrency(int configured) {
+        OrderKafkaProperties.Autoscale autoscale = orderKafkaProperties.getAutoscale();
+        if (!autoscale.isEnabled()) {
+            return configured;
+        }
+        return Math.max(1, Math.min(autoscale.getMinConcurrency(), orderKafkaProperties.getPartitions()));
+    }
+
+    /**
+     * Resolves a configured thread count, defaulting to one per partition. More threads than partitions
+     * would sit idle, so the count is capped at the partition count.
+     */
+    private int resolveConcurrency(Integer configured) {
+        int partitions = orderKafkaProperties.getPartitions();
+        return configured == null || configured <= 0 ? partitions : Math.min(configured, partitions);
+    }
+
+    /**
+     * Reloads the books of the order engine whenever partitions move, since a ticker may have been traded
+     * by another node while this node did not own its partition.
+     *
+     * @return ConsumerRebalanceListener for the order listeners
+     */
+    private ConsumerRebalanceListener orderEngineRebalanceListener() {
+        return new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                markBooksStale(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                markBooksStale(partitions);
+            }
+
+            @Override
+            public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                markBooksStale(partitions);
+            }
+
+            private void markBooksStale(Collection<TopicPartition> partitions) {
+                if (!partitions.isEmpty()) {
+                    orderEngine.ifAvailable(OrderEngine::markAllStale);
+                }
+            }
+        };
+    }
+
     /**
      * Provides a consumer factory bean for consuming OrderEvent objects.
      *
@@ -117,11 +374,29 @@ public class KafkaConfig {
     @Bean
     public ConsumerFactory<String, OrderEvent> consumerFactory() {
         return new DefaultKafkaConsumerFactory<>(consumerProps(), new StringDeserializer(),
-                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(OrderEvent.class, false)));
+                new ErrorHandlingDeserializer<>(new OrderEventDeserializer()));
+    }
+
+    /**
+     * Provides a consumer factory for the batch listener, which bounds the poll size and lets the
+     * broker linger until a batch worth of records is available.
+     *
+     * @return ConsumerFactory for batches of OrderEvent
+     */
+    private ConsumerFactory<String, OrderEvent> batchConsumerFactory() {
+        OrderKafkaProperties.Batch batch = orderKafkaProperties.getBatch();
+        Map<String, Object> configuration = consumerProps();
+        configuration.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batch.getMaxSize());
+        configuration.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, batch.getMaxLingerMs());
+        configuration.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, batch.getMinFetchBytes());
+        return new DefaultKafkaConsumerFactory<>(configuration, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new OrderEventDeserializer()));
     }
 
     /**
      * Sets up consumer properties for Kafka.
+     * The range assignor hands partition N of every order topic to the same consumer, which keeps
+     * the buy, sell and cancel events of a key on one thread.
      *
      * @return Map of consumer properties
      */
@@ -129,7 +404,8 @@ public class KafkaConfig {
         Map<String, Object> configuration = new HashMap<>();
         configuration.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.getBootstrapServers());
         configuration.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configuration.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        configuration.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, OrderEventDeserializer.class);
+        configuration.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, RangeAssignor.class.getName());
         return configuration;
     }
 }
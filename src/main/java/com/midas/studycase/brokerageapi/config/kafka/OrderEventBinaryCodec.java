@@ -0,0 +1,221 @@
+package com.midas.studycase.brokerageapi.config.kafka;
+
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Binary form of {@link OrderEvent}, schema {@link OrderEventSchema#BINARY}.
+ * <p>
+ * The value starts with {@link #MAGIC}, a byte that never starts a JSON document, followed by one entry per
+ * non-null field. An entry is a varint key of field number and wire type, then either a varint or a
+ * length-prefixed UTF-8 string. Signed numbers are zigzag encoded, the order type is written by ordinal and
+ * {@code createdAt} as UTC epoch seconds and nanos. Since every entry carries its wire type a decoder can skip
+ * fields it does not know, and fields missing from a record keep their default value, so producers and
+ * consumers can add fields independently.
+ * </p>
+ * <p>
+ * Field numbers and enum ordinals are part of the format: only add fields with new numbers, only append
+ * constants to {@link OrderType}, and never reuse the number of a removed field.
+ * </p>
+ */
+public final class OrderEventBinaryCodec {
+    static final byte MAGIC = (byte) 0xB7;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_STRING = 2;
+
+    private static final int ORDER_ID = 1;
+    private static final int TRANSACTION_ID = 2;
+    private static final int USER_ID = 3;
+    private static final int ORDER_TYPE = 4;
+    private static final int TICKER = 5;
+    private static final int QUANTITY = 6;
+    private static final int CREATED_AT_SECONDS = 7;
+    private static final int CREATED_AT_NANOS = 8;
+
+    private OrderEventBinaryCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(OrderEvent orderEvent) {
+        Output out = new Output();
+        out.writeByte(MAGIC);
+        out.writeString(ORDER_ID, orderEvent.getOrderId());
+        out.writeString(TRANSACTION_ID, orderEvent.getTransactionId());
+        out.writeSigned(USER_ID, orderEvent.getUserId());
+        if (orderEvent.getOrderType() != null) {
+            out.writeUnsigned(ORDER_TYPE, orderEvent.getOrderType().ordinal());
+        }
+        out.writeString(TICKER, orderEvent.getTicker());
+        out.writeSigned(QUANTITY, orderEvent.getQuantity());
+        if (orderEvent.getCreatedAt() != null) {
+            out.writeSigned(CREATED_AT_SECONDS, orderEvent.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeUnsigned(CREATED_AT_NANOS, orderEvent.getCreatedAt().getNano());
+        }
+        return out.toByteArray();
+    }
+
+    public static OrderEvent decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Order event is not in the binary format");
+        }
+
+        Input in = new Input(data);
+        OrderEvent orderEvent = new OrderEvent();
+        Long createdAtSeconds = null;
+        int createdAtNanos = 0;
+        try {
+            while (in.hasRemaining()) {
+                long key = in.readVarLong();
+                int field = (int) (key >>> 3);
+                int wireType = (int) (key & 0x7);
+                if (wireType != expectedWireType(field)) {
+                    in.skip(wireType);
+                    continue;
+                }
+                switch (field) {
+                    case ORDER_ID -> orderEvent.setOrderId(in.readString());
+                    case TRANSACTION_ID -> orderEvent.setTransactionId(in.readString());
+                    case USER_ID -> orderEvent.setUserId(in.readSigned());
+                    case ORDER_TYPE -> orderEvent.setOrderType(readOrderType(in.readVarLong()));
+                    case TICKER -> orderEvent.setTicker(in.readString());
+                    case QUANTITY -> orderEvent.setQuantity((int) in.readSigned());
+                    case CREATED_AT_SECONDS -> createdAtSeconds = in.readSigned();
+                    case CREATED_AT_NANOS -> createdAtNanos = (int) in.readVarLong();
+                    default -> in.skip(wireType);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated order event", e);
+        }
+
+        if (createdAtSeconds != null) {
+            orderEvent.setCreatedAt(LocalDateTime.ofEpochSecond(createdAtSeconds, createdAtNanos, ZoneOffset.UTC));
+        }
+        return orderEvent;
+    }
+
+    /**
+     * @return the wire type of a known field, or -1 for fields added after this version, which are skipped.
+     */
+    private static int expectedWireType(int field) {
+        return switch (field) {
+            case ORDER_ID, TRANSACTION_ID, TICKER -> WIRE_STRING;
+            case USER_ID, ORDER_TYPE, QUANTITY, CREATED_AT_SECONDS, CREATED_AT_NANOS -> WIRE_VARINT;
+            default -> -1;
+        };
+    }
+
+    private static OrderType readOrderType(long ordinal) {
+        OrderType[] orderTypes = OrderType.values();
+        if (ordinal < 0 || ordinal >= orderTypes.length) {
+            throw new SerializationException("Unknown order type ordinal: " + ordinal);
+        }
+        return orderTypes[(int) ordinal];
+    }
+
+    private static final class Output {
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        void writeByte(int value) {
+            if (position == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(int field, String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(((long) field << 3) | WIRE_STRING);
+            writeVarLong(bytes.length);
+            if (position + bytes.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes.length));
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeSigned(int field, long value) {
+            writeUnsigned(field, (value << 1) ^ (value >> 63));
+        }
+
+        void writeUnsigned(int field, long value) {
+            writeVarLong(((long) field << 3) | WIRE_VARINT);
+            writeVarLong(value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        // The magic byte has already been checked
+        private int position = 1;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasRemaining() {
+            return position < data.length;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[position++];
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        long readSigned() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > data.length) {
+                throw new SerializationException("Truncated order event");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skip(int wireType) {
+            switch (wireType) {
+                case WIRE_VARINT -> readVarLong();
+                case WIRE_STRING -> readString();
+                default -> throw new SerializationException("Unknown wire type: " + wireType);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.midas.studycase.brokerageapi.config.kafka;
+
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Reads order events in every schema of {@link OrderEventSchema}, chosen by the schema id header of the record,
+ * so consumers keep reading JSON records while producers move to the binary format. Wrapped in an
+ * {@code ErrorHandlingDeserializer}, a record that cannot be read is passed to the error handler instead of
+ * failing the poll.
+ */
+public class OrderEventDeserializer implements Deserializer<OrderEvent> {
+
+    private final JsonDeserializer<OrderEvent> jsonDeserializer = new JsonDeserializer<>(OrderEvent.class, false);
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public OrderEvent deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        return switch (OrderEventSchema.of(headers, data)) {
+            case JSON -> headers != null ? jsonDeserializer.deserialize(topic, headers, data) : jsonDeserializer.deserialize(topic, data);
+            case BINARY -> OrderEventBinaryCodec.decode(data);
+        };
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,67 @@
+package com.midas.studycase.brokerageapi.config.kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Schema id table of the order event records, standing in for a schema registry.
+ * <p>
+ * Every record written by {@link OrderEventSerializer} carries the id of its schema in the
+ * {@link #HEADER} header, and {@link OrderEventDeserializer} picks the decoder by that id. Fields can be added
+ * to a schema without a new id, since both formats skip fields they do not know and leave missing fields at
+ * their defaults. A new id is only needed for a change old consumers cannot read, and must be deployed to every
+ * consumer before a producer writes it. Never reuse or renumber an id.
+ * </p>
+ */
+public enum OrderEventSchema {
+    /**
+     * Spring Kafka JSON, also assumed for records without the header.
+     */
+    JSON((byte) 0),
+    /**
+     * Tagged binary fields, see {@link OrderEventBinaryCodec}.
+     */
+    BINARY((byte) 1);
+
+    public static final String HEADER = "order-event-schema";
+
+    private final byte id;
+
+    OrderEventSchema(byte id) {
+        this.id = id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * Adds the id of this schema to the headers of a record, replacing any previous one.
+     */
+    public void writeTo(Headers headers) {
+        headers.remove(HEADER);
+        headers.add(HEADER, new byte[]{id});
+    }
+
+    /**
+     * Resolves the schema of a record from its headers, falling back to the first byte of the value for records
+     * without the header.
+     *
+     * @param headers the headers of the record, may be null.
+     * @param data    the value of the record.
+     * @return the schema of the record.
+     */
+    public static OrderEventSchema of(Headers headers, byte[] data) {
+        Header header = headers != null ? headers.lastHeader(HEADER) : null;
+        if (header == null || header.value() == null || header.value().length != 1) {
+            return OrderEventBinaryCodec.isBinary(data) ? BINARY : JSON;
+        }
+        for (OrderEventSchema schema : values()) {
+            if (schema.id == header.value()[0]) {
+                return schema;
+            }
+        }
+        throw new SerializationException("Unknown order event schema id: " + header.value()[0]);
+    }
+}
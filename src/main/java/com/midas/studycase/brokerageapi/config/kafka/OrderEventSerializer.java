@@ -0,0 +1,50 @@
+package com.midas.studycase.brokerageapi.config.kafka;
+
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Map;
+
+/**
+ * Writes order events in the given schema and tags every record with the schema id header.
+ */
+public class OrderEventSerializer implements Serializer<OrderEvent> {
+
+    private final OrderEventSchema schema;
+    private final JsonSerializer<OrderEvent> jsonSerializer = new JsonSerializer<>();
+
+    public OrderEventSerializer(OrderEventSchema schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, OrderEvent data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, OrderEvent data) {
+        if (data == null) {
+            return null;
+        }
+        if (headers != null) {
+            schema.writeTo(headers);
+        }
+        return switch (schema) {
+            case JSON -> headers != null ? jsonSerializer.serialize(topic, headers, data) : jsonSerializer.serialize(topic, data);
+            case BINARY -> OrderEventBinaryCodec.encode(data);
+        };
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
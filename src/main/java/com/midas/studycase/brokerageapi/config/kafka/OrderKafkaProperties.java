@@ -0,0 +1,141 @@
+package com.midas.studycase.brokerageapi.config.kafka;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Topic layout and partitioning settings for the order topics.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "order.kafka")
+public class OrderKafkaProperties {
+    private int partitions = 3;
+    private short replicationFactor = 1;
+    private KeyStrategy keyStrategy = KeyStrategy.TICKER;
+    /**
+     * Schema the producers write order events in. Consumers read every schema, so switch producers only once
+     * every instance reads the new one.
+     */
+    private OrderEventSchema valueSchema = OrderEventSchema.JSON;
+    private Batch batch = new Batch();
+    private Producer producer = new Producer();
+    private Retry retry = new Retry();
+    private Autoscale autoscale = new Autoscale();
+
+    /**
+     * Decides which field of an order event is used as the Kafka record key.
+     * Every event of an order shares the key, so it always lands on the same partition number
+     * of the buy, sell and cancel topics. Only TICKER gives each ticker a single consumer thread, which the
+     * order engine and the lock-free consumer need; USER is rejected at startup unless the order lock is on
+     * and the engine is off.
+     */
+    public enum KeyStrategy {
+        TICKER,
+        USER
+    }
+
+    /**
+     * Batch listener mode: a whole poll is handed to the stock service and written in one transaction.
+     * A poll returns at most {@code maxSize} records and the broker holds the fetch for up to
+     * {@code maxLingerMs} until {@code minFetchBytes} are available. The listener runs {@code concurrency}
+     * threads, one per partition when unset.
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+        private boolean enabled = false;
+        private int maxSize = 500;
+        private int maxLingerMs = 50;
+        private int minFetchBytes = 16384;
+        private Integer concurrency;
+    }
+
+    /**
+     * Order event producers, one per topic. A producer keeps at most {@code maxInFlight} records waiting for a
+     * broker acknowledgement and queues at most {@code maxQueued} more before rejecting new ones. A record
+     * that is not acknowledged within {@code ackTimeoutMs} is failed for its caller.
+     * {@code batchSize}, {@code lingerMs} and {@code compressionType} apply to every topic unless they are
+     * overridden under {@code topics.<topic>}.
+     */
+    @Getter
+    @Setter
+    public static class Producer {
+        private int maxInFlight = 256;
+        private int maxQueued = 2048;
+        private long ackTimeoutMs = 30000;
+        private int batchSize = 16384;
+        private int lingerMs = 5;
+        private String compressionType = "lz4";
+        private Map<String, TopicProducer> topics = new HashMap<>();
+
+        /**
+         * Resolves the settings of a topic, falling back to the shared ones for the fields it does not override.
+         *
+         * @param topic the name of the topic.
+         * @return the producer settings of the topic.
+         */
+        public TopicProducer forTopic(String topic) {
+            TopicProducer override = topics.getOrDefault(topic, new TopicProducer());
+            TopicProducer resolved = new TopicProducer();
+            resolved.setBatchSize(override.getBatchSize() != null ? override.getBatchSize() : batchSize);
+            resolved.setLingerMs(override.getLingerMs() != null ? override.getLingerMs() : lingerMs);
+            resolved.setCompressionType(override.getCompressionType() != null ? override.getCompressionType() : compressionType);
+            return resolved;
+        }
+    }
+
+    /**
+     * Non-blocking retries of the order listener. An event is tried at most {@code maxAttempts} times, the
+     * first time on its main topic. The delay before a retry starts at {@code initialDelayMs} and grows by
+     * {@code multiplier} up to {@code maxDelayMs}; every distinct delay gets its own retry topic. The retry
+     * and dead letter listeners run {@code concurrency} threads, one per partition when unset, and are not
+     * scaled with the order listener.
+     */
+    @Getter
+    @Setter
+    public static class Retry {
+        private int maxAttempts = 4;
+        private long initialDelayMs = 1000;
+        private double multiplier = 2.0;
+        private long maxDelayMs = 30000;
+        private Integer concurrency;
+    }
+
+    /**
+     * Lag-based scaling of the order listener's consumer threads. Every {@code intervalMs} the lag of the
+     * partitions the node consumes is read and the time the current threads need to drain it is estimated from
+     * the measured processing latency. Above {@code scaleUpLag} records and {@code targetDrainMs} the thread count is
+     * doubled; after {@code scaleDownIntervals} checks at or below {@code scaleDownLag} it is lowered by one.
+     * The count stays between {@code minConcurrency} and {@code maxConcurrency}, at most one per partition,
+     * and changes at most once per {@code cooldownMs}.
+     */
+    @Getter
+    @Setter
+    public static class Autoscale {
+        private boolean enabled = false;
+        private int minConcurrency = 1;
+        private int maxConcurrency = 3;
+        private long intervalMs = 10000;
+        private long scaleUpLag = 1000;
+        private long scaleDownLag = 100;
+        private long targetDrainMs = 30000;
+        private int scaleDownIntervals = 6;
+        private long cooldownMs = 60000;
+        private long adminTimeoutMs = 5000;
+    }
+
+    @Getter
+    @Setter
+    public static class TopicProducer {
+        private Integer batchSize;
+        private Integer lingerMs;
+        private String compressionType;
+    }
+}
@@ -0,0 +1,51 @@
+package com.midas.studycase.brokerageapi.config.r2dbc;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC pool for the reactive order read path.
+ * <p>
+ * Only a {@link DatabaseClient} is exposed. The pool is not registered as a ConnectionFactory bean, so the
+ * JPA transaction manager and the SQL initialization keep working on the JDBC DataSource as they do without
+ * this profile.
+ * </p>
+ */
+@Configuration
+@Profile("r2dbc")
+@RequiredArgsConstructor
+public class R2dbcReadConfig {
+
+    private final R2dbcReadProperties r2dbcReadProperties;
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient orderReadDatabaseClient() {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(r2dbcReadProperties.getUrl())
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, r2dbcReadProperties.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, r2dbcReadProperties.getPassword())
+                .build();
+
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(r2dbcReadProperties.getInitialPoolSize())
+                .maxSize(r2dbcReadProperties.getMaxPoolSize())
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
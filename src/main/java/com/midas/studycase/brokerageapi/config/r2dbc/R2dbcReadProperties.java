@@ -0,0 +1,21 @@
+package com.midas.studycase.brokerageapi.config.r2dbc;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection settings of the R2DBC pool used for order reads by the {@code r2dbc} profile.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "order.read.r2dbc")
+public class R2dbcReadProperties {
+    private String url = "r2dbc:postgresql://localhost:5432/postgres";
+    private String username;
+    private String password;
+    private int initialPoolSize = 10;
+    private int maxPoolSize = 20;
+}
@@ -0,0 +1,40 @@
+package com.midas.studycase.brokerageapi.config.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Token bucket limits for the trade endpoints. Every order takes one token from the bucket of its user and
+ * one from the bucket of its ticker. A bucket holds at most {@code capacity} tokens and regains
+ * {@code refillPerSecond} of them every second.
+ * <p>
+ * Nodes take up to {@code leaseSize} tokens at a time from Redis and hand them out locally, so only one
+ * request in {@code leaseSize} reaches Redis while a key is busy. Tokens leased by a node that are not used
+ * within {@code leaseTtlMs} are dropped.
+ * </p>
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "trade.rate-limit")
+public class TradeRateLimitProperties {
+    private boolean enabled = true;
+    private int leaseSize = 5;
+    private long leaseTtlMs = 1_000;
+    private long maximumLocalBuckets = 100_000;
+    private Limit user = new Limit(20, 10);
+    private Limit ticker = new Limit(500, 250);
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private long capacity;
+        private long refillPerSecond;
+    }
+}
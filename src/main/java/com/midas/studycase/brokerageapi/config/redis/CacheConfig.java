@@ -1,5 +1,11 @@
 package com.midas.studycase.brokerageapi.config.redis;
 
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import com.midas.studycase.brokerageapi.service.cache.BaseOrderService;
+import com.midas.studycase.brokerageapi.service.cache.NearCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,21 +13,43 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 
 import java.time.Duration;
+import java.util.Map;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
+    private static final String STOCKS_CACHE = "stocks";
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory, NearCache<Object> stockNearCache) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(60))
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(cacheConfig).build();
+        RedisCacheConfiguration stockCacheConfig = cacheConfig
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new StockQuantityRedisSerializer()));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(cacheConfig)
+                .withCacheConfiguration(STOCKS_CACHE, stockCacheConfig)
+                .build();
+        redisCacheManager.initializeCaches();
+
+        return new NearCacheManager(redisCacheManager, Map.of(STOCKS_CACHE, stockNearCache));
     }
-}
 
+    @Bean
+    public NearCache<Object> stockNearCache(NearCacheProperties nearCacheProperties, RedissonClient redissonClient,
+                                            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new NearCache<>(STOCKS_CACHE, nearCacheProperties, redissonClient, meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    public NearCache<OrderDetailResponse> orderNearCache(NearCacheProperties nearCacheProperties, RedissonClient redissonClient,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        return new NearCache<>(BaseOrderService.ORDER_NEAR_CACHE, nearCacheProperties, redissonClient, meterRegistry.getIfAvailable());
+    }
+}
@@ -0,0 +1,183 @@
+package com.midas.studycase.brokerageapi.config.redis;
+
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.handler.State;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redisson codec that writes the values of the order cache in a compact tagged form and reads both that form
+ * and the JSON written by {@link JsonJacksonCodec}.
+ * <p>
+ * JsonJacksonCodec tags every non-final value with its class, so a history entry is stored as
+ * {@code ["java.util.HashMap",{...}]} and a Long as {@code ["java.lang.Long",1]}. This codec writes the order
+ * enums as a type id and an ordinal, booleans as a single tag and string maps as length-prefixed UTF-8.
+ * Strings are still written as JSON, which costs the same two bytes as a tag would, so hash field names and
+ * sorted set members stay identical in both formats. Integral numbers are written as plain decimals, which
+ * keeps them usable as numbers in Lua scripts.
+ * </p>
+ * <p>
+ * Compact values start with {@link #MAGIC}, a byte that never starts a JSON document, which is how the decoder
+ * tells the two formats apart. With compact writes disabled the codec only writes JSON, so it can be rolled out
+ * to every instance before the first compact value is written.
+ * </p>
+ */
+public class CompactCodec extends BaseCodec {
+    static final byte MAGIC = (byte) 0xC7;
+
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_ENUM = 3;
+    private static final byte TAG_STRING_MAP = 4;
+
+    /**
+     * Enums written by ordinal, indexed by their type id. Only append to this list, and only append constants
+     * to the enums, otherwise values written before the change are decoded wrongly.
+     */
+    private static final List<Class<? extends Enum<?>>> ENUM_TYPES = List.of(OrderStatus.class, OrderType.class);
+
+    private final JsonJacksonCodec jsonCodec;
+    private final boolean compactWrites;
+
+    private final Encoder encoder = new Encoder() {
+        @Override
+        public ByteBuf encode(Object in) throws IOException {
+            if (!compactWrites) {
+                return jsonCodec.getValueEncoder().encode(in);
+            }
+            if (in instanceof Integer || in instanceof Long || in instanceof Short || in instanceof Byte) {
+                ByteBuf out = ByteBufAllocator.DEFAULT.buffer();
+                ByteBufUtil.writeAscii(out, in.toString());
+                return out;
+            }
+            if (in instanceof Boolean value) {
+                return compactBuffer().writeByte(value ? TAG_TRUE : TAG_FALSE);
+            }
+            if (in instanceof Enum<?> value && ENUM_TYPES.contains(value.getDeclaringClass())) {
+                return compactBuffer()
+                        .writeByte(TAG_ENUM)
+                        .writeByte(ENUM_TYPES.indexOf(value.getDeclaringClass()))
+                        .writeByte(value.ordinal());
+            }
+            if (in instanceof Map<?, ?> map && isStringMap(map)) {
+                ByteBuf out = compactBuffer().writeByte(TAG_STRING_MAP);
+                writeVarInt(out, map.size());
+                map.forEach((key, value) -> {
+                    writeString(out, (String) key);
+                    writeString(out, (String) value);
+                });
+                return out;
+            }
+            return jsonCodec.getValueEncoder().encode(in);
+        }
+    };
+
+    private final Decoder<Object> decoder = new Decoder<>() {
+        @Override
+        public Object decode(ByteBuf buf, State state) throws IOException {
+            if (!buf.isReadable() || buf.getByte(buf.readerIndex()) != MAGIC) {
+                return jsonCodec.getValueDecoder().decode(buf, state);
+            }
+
+            buf.skipBytes(1);
+            byte tag = buf.readByte();
+            return switch (tag) {
+                case TAG_TRUE -> Boolean.TRUE;
+                case TAG_FALSE -> Boolean.FALSE;
+                // Decoded to the constant name, as the JSON codec does, so readers do not depend on the format
+                case TAG_ENUM -> ENUM_TYPES.get(buf.readByte()).getEnumConstants()[buf.readByte()].name();
+                case TAG_STRING_MAP -> readStringMap(buf);
+                default -> throw new IllegalStateException("Unknown compact value tag: " + tag);
+            };
+        }
+    };
+
+    public CompactCodec(JsonJacksonCodec jsonCodec, boolean compactWrites) {
+        this.jsonCodec = jsonCodec;
+        this.compactWrites = compactWrites;
+    }
+
+    /**
+     * Constructor used by Redisson when it copies the codec of a client, for example for the reactive API.
+     */
+    public CompactCodec(ClassLoader classLoader, CompactCodec codec) {
+        this(new JsonJacksonCodec(classLoader, codec.jsonCodec), codec.compactWrites);
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+        return encoder;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return jsonCodec.getClassLoader();
+    }
+
+    private static ByteBuf compactBuffer() {
+        return ByteBufAllocator.DEFAULT.buffer().writeByte(MAGIC);
+    }
+
+    private static boolean isStringMap(Map<?, ?> map) {
+        return map.entrySet().stream().allMatch(entry -> entry.getKey() instanceof String && entry.getValue() instanceof String);
+    }
+
+    private static Map<String, String> readStringMap(ByteBuf buf) {
+        int size = readVarInt(buf);
+        Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(readString(buf), readString(buf));
+        }
+        return map;
+    }
+
+    private static void writeString(ByteBuf out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuf buf) {
+        int length = readVarInt(buf);
+        String value = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return value;
+    }
+
+    private static void writeVarInt(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuf buf) {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buf.readByte();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
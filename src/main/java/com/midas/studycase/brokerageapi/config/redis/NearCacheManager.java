@@ -0,0 +1,38 @@
+package com.midas.studycase.brokerageapi.config.redis;
+
+import com.midas.studycase.brokerageapi.service.cache.NearCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager that puts a {@link NearCache} in front of the caches of the Redis cache manager it wraps.
+ * Caches without a near cache are returned as they are.
+ */
+public class NearCacheManager implements CacheManager {
+    private final CacheManager redisCacheManager;
+    private final Map<String, NearCache<Object>> nearCaches;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(CacheManager redisCacheManager, Map<String, NearCache<Object>> nearCaches) {
+        this.redisCacheManager = redisCacheManager;
+        this.nearCaches = nearCaches;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache redisCache = redisCacheManager.getCache(cacheName);
+            NearCache<Object> nearCache = nearCaches.get(cacheName);
+            return redisCache == null || nearCache == null ? redisCache : new TwoLevelCache(redisCache, nearCache);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+}
@@ -0,0 +1,21 @@
+package com.midas.studycase.brokerageapi.config.redis;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings for the in-process caches kept in front of Redis for stock quantities and order details.
+ * Entries are bounded by {@code maximumSize} per cache and expire {@code expireAfterWriteMs} after they were
+ * loaded, which also bounds how long a node can serve a value whose invalidation message it missed.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "cache.near")
+public class NearCacheProperties {
+    private boolean enabled = true;
+    private long maximumSize = 10_000;
+    private long expireAfterWriteMs = 30_000;
+}
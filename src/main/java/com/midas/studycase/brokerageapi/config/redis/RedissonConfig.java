@@ -2,6 +2,7 @@ package com.midas.studycase.brokerageapi.config.redis;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
 import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.api.RedissonReactiveClient;
@@ -15,14 +16,20 @@ import org.springframework.context.annotation.Profile;
 
 @Configuration
 @Profile("dev")
+@RequiredArgsConstructor
 public class RedissonConfig {
 
+    private final RedissonProperties redissonProperties;
+
     @Value("${spring.data.redis.host}")
     private String redisHost;
 
     @Value("${spring.data.redis.port}")
     private int redisPort;
 
+    @Value("${redis.codec.compact-writes:false}")
+    private boolean compactWrites;
+
     @Bean
     public RedissonConnectionFactory redissonConnectionFactory(RedissonClient redissonClient) {
         return new RedissonConnectionFactory(redissonClient);
@@ -31,26 +38,33 @@ public class RedissonConfig {
     @Bean(destroyMethod = "shutdown")
     public RedissonClient redissonClient() {
         Config config = new Config();
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        JsonJacksonCodec jsonJacksonCodec = new JsonJacksonCodec(objectMapper);
-        config.setCodec(jsonJacksonCodec);
-        config.useSingleServer().setAddress("redis://" + redisHost +":" + redisPort);
+        config.setCodec(createCodec());
+        config.setNettyThreads(redissonProperties.getNettyThreads());
+        config.setThreads(redissonProperties.getThreads());
+        config.useSingleServer()
+                .setAddress("redis://" + redisHost +":" + redisPort)
+                .setConnectionPoolSize(redissonProperties.getConnectionPoolSize())
+                .setConnectionMinimumIdleSize(redissonProperties.getConnectionMinimumIdleSize())
+                .setSubscriptionConnectionPoolSize(redissonProperties.getSubscriptionConnectionPoolSize())
+                .setConnectTimeout(redissonProperties.getConnectTimeoutMs())
+                .setTimeout(redissonProperties.getTimeoutMs())
+                .setRetryAttempts(redissonProperties.getRetryAttempts())
+                .setRetryInterval(redissonProperties.getRetryIntervalMs());
         return Redisson.create(config);
     }
 
-    @Bean(destroyMethod = "shutdown")
-    public RedissonReactiveClient redissonReactiveClient() {
-        Config config = new Config();
-
+    /**
+     * Reactive view of {@link #redissonClient()}. It shares the event loop, connection pool and codec of the
+     * blocking client, so it is shut down together with it and has no destroy method of its own.
+     */
+    @Bean(destroyMethod = "")
+    public RedissonReactiveClient redissonReactiveClient(RedissonClient redissonClient) {
+        return redissonClient.reactive();
+    }
 
+    private CompactCodec createCodec() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        JsonJacksonCodec jsonJacksonCodec = new JsonJacksonCodec(objectMapper);
-
-        config.setCodec(jsonJacksonCodec);
-        config.useSingleServer().setAddress("redis://" + redisHost +":" + redisPort);
-        return Redisson.create(config).reactive();
+        return new CompactCodec(new JsonJacksonCodec(objectMapper), compactWrites);
     }
 }
-
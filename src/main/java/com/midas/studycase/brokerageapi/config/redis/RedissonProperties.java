@@ -0,0 +1,27 @@
+package com.midas.studycase.brokerageapi.config.redis;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connection pool, timeout and thread settings of the Redisson client.
+ * The blocking and reactive APIs share one client, so these sizes apply to the whole instance.
+ * A thread count of 0 lets Redisson use its default of twice the number of cores.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "redis.redisson")
+public class RedissonProperties {
+    private int connectionPoolSize = 64;
+    private int connectionMinimumIdleSize = 24;
+    private int subscriptionConnectionPoolSize = 50;
+    private int connectTimeoutMs = 10_000;
+    private int timeoutMs = 3_000;
+    private int retryAttempts = 3;
+    private int retryIntervalMs = 1_500;
+    private int nettyThreads = 32;
+    private int threads = 16;
+}
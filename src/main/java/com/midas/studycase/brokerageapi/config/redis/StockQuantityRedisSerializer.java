@@ -0,0 +1,44 @@
+package com.midas.studycase.brokerageapi.config.redis;
+
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializer for the cached stock quantities, which are written as plain decimals instead of serialized
+ * {@link Integer} objects. Entries written with JDK serialization before the switch are still read.
+ */
+public class StockQuantityRedisSerializer implements RedisSerializer<Object> {
+    private static final byte JDK_STREAM_MAGIC_HIGH = (byte) 0xAC;
+    private static final byte JDK_STREAM_MAGIC_LOW = (byte) 0xED;
+
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Integer)) {
+            throw new SerializationException("Cannot serialize stock quantity of type: " + value.getClass().getName());
+        }
+        return value.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > 1 && bytes[0] == JDK_STREAM_MAGIC_HIGH && bytes[1] == JDK_STREAM_MAGIC_LOW) {
+            return jdkSerializer.deserialize(bytes);
+        }
+        try {
+            return Integer.valueOf(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new SerializationException("Cannot deserialize stock quantity", e);
+        }
+    }
+}
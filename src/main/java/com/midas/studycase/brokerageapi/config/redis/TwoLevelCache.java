@@ -0,0 +1,96 @@
+package com.midas.studycase.brokerageapi.config.redis;
+
+import com.midas.studycase.brokerageapi.service.cache.NearCache;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Spring cache that reads through a {@link NearCache} before the Redis cache it wraps.
+ * Writes go to Redis first and then to this node's near cache, while the other nodes are told to evict
+ * their copy.
+ */
+public class TwoLevelCache implements Cache {
+    private final Cache redisCache;
+    private final NearCache<Object> nearCache;
+
+    public TwoLevelCache(Cache redisCache, NearCache<Object> nearCache) {
+        this.redisCache = redisCache;
+        this.nearCache = nearCache;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object nearValue = nearCache.getIfPresent(key.toString());
+        if (nearValue != null) {
+            return new SimpleValueWrapper(nearValue);
+        }
+
+        ValueWrapper valueWrapper = redisCache.get(key);
+        if (valueWrapper != null && valueWrapper.get() != null) {
+            nearCache.put(key.toString(), valueWrapper.get());
+        }
+        return valueWrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper == null) {
+            return null;
+        }
+        Object value = valueWrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+
+        T value = redisCache.get(key, valueLoader);
+        if (value != null) {
+            nearCache.put(key.toString(), value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        nearCache.invalidate(key.toString());
+        if (value != null) {
+            nearCache.put(key.toString(), value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        nearCache.invalidate(key.toString());
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        nearCache.invalidateAll();
+    }
+}
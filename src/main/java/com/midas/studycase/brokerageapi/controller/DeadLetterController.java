@@ -0,0 +1,27 @@
+package com.midas.studycase.brokerageapi.controller;
+
+import com.midas.studycase.brokerageapi.model.response.DeadLetterReplayResponse;
+import com.midas.studycase.brokerageapi.service.consumer.OrderDeadLetterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@RestController
+@RequestMapping("/dead-letters")
+@RequiredArgsConstructor
+public class DeadLetterController {
+
+    private final OrderDeadLetterService orderDeadLetterService;
+
+    /**
+     * Sends the dead letters of an order topic back to the topic, oldest first, once the cause of the failures
+     * has been fixed.
+     */
+    @PostMapping("/{topic}/replay")
+    public Mono<DeadLetterReplayResponse> replay(@PathVariable String topic,
+                                                 @RequestParam(value = "maxRecords", defaultValue = "100") int maxRecords) {
+        return orderDeadLetterService.replay(topic, maxRecords);
+    }
+}
@@ -1,31 +1,96 @@
 package com.midas.studycase.brokerageapi.controller;
 
+import com.midas.studycase.brokerageapi.model.event.OrderStatusEvent;
+import com.midas.studycase.brokerageapi.model.mapper.OrderCsvMapper;
+import com.midas.studycase.brokerageapi.model.request.OrderCursor;
 import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
 import com.midas.studycase.brokerageapi.service.OrderService;
+import com.midas.studycase.brokerageapi.service.cache.OrderStatusStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/orders")
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String ORDER_STATUS_EVENT = "order-status";
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    private static final String TEXT_CSV_VALUE = "text/csv";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
     private final OrderService orderService;
+    private final OrderStatusStreamService orderStatusStreamService;
+
+    /**
+     * Streams the status changes of a user's orders as server-sent events, so clients do not have to poll
+     * the order until it leaves CREATED. A comment is sent periodically to keep idle connections open.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<OrderStatusEvent>> streamOrderStatuses(@RequestParam Long userId) {
+        Flux<ServerSentEvent<OrderStatusEvent>> events = orderStatusStreamService.streamForUser(userId)
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(event.getOrderId())
+                        .event(ORDER_STATUS_EVENT)
+                        .build());
+        Flux<ServerSentEvent<OrderStatusEvent>> heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+                .map(tick -> ServerSentEvent.<OrderStatusEvent>builder().comment("heartbeat").build());
+        return Flux.merge(events, heartbeats);
+    }
+
     @GetMapping("/{orderId}")
     public Mono<OrderDetailResponse> getOrderDetails(@PathVariable String orderId) {
         return orderService.getOrderDetails(orderId);
     }
 
+    /**
+     * Returns a page of a user's orders, newest first. A full page carries the cursor of the next one in the
+     * {@code X-Next-Cursor} header, which is passed back as {@code after}.
+     */
     @GetMapping("/user/{userId}")
-    public Flux<OrderDetailResponse> getUserOrders(
+    public Mono<ResponseEntity<List<OrderDetailResponse>>> getUserOrders(
             @PathVariable Long userId,
             @RequestParam(value = "page", required = false) Integer page,
-            @RequestParam(value = "pageSize", required = false) Integer pageSize) {
-        return orderService.getUserOrders(userId, page, pageSize);
+            @RequestParam(value = "pageSize", required = false) Integer pageSize,
+            @RequestParam(value = "after", required = false) String after) {
+        int size = pageSize != null ? pageSize : DEFAULT_PAGE_SIZE;
+        return orderService.getUserOrders(userId, page, size, after != null ? OrderCursor.parse(after) : null)
+                .collectList()
+                .map(orders -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (!orders.isEmpty() && orders.size() >= size) {
+                        response.header(NEXT_CURSOR_HEADER, OrderCursor.after(orders.get(orders.size() - 1)).encode());
+                    }
+                    return response.body(orders);
+                });
+    }
+
+    /**
+     * Exports every order of a user with its histories as newline-delimited JSON, one order per line,
+     * streamed from the database as the client reads it.
+     */
+    @GetMapping(value = "/user/{userId}/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderDetailResponse> exportUserOrders(@PathVariable Long userId) {
+        return orderService.exportUserOrders(userId);
+    }
+
+    /**
+     * Exports every order of a user as CSV, one line per order history, streamed like the JSON export.
+     */
+    @GetMapping(value = "/user/{userId}/export", params = "format=csv", produces = TEXT_CSV_VALUE)
+    public Flux<String> exportUserOrdersAsCsv(@PathVariable Long userId) {
+        return Flux.concat(Mono.just(OrderCsvMapper.HEADER), orderService.exportUserOrders(userId).map(OrderCsvMapper::toCsvLines));
     }
 
 }
@@ -0,0 +1,62 @@
+package com.midas.studycase.brokerageapi.controller;
+
+import com.midas.studycase.brokerageapi.model.request.CreateUserRequest;
+import com.midas.studycase.brokerageapi.model.response.CreateUserResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserDetailResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserPageResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserResponseList;
+import com.midas.studycase.brokerageapi.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * User endpoints of the reactive runtime. Serves the same API as {@link UserController} without blocking
+ * the Netty event loop.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    private final ReactiveUserService reactiveUserService;
+
+    @PostMapping
+    public Mono<ResponseEntity<CreateUserResponse>> createUser(@Valid @RequestBody CreateUserRequest request) {
+        return reactiveUserService.createUser(request)
+                .map(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<GetUserResponseList>> listAllUsers() {
+        return reactiveUserService.listAllUsers()
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping(params = "pageSize")
+    public Mono<ResponseEntity<GetUserPageResponse>> listUsers(@RequestParam Integer pageSize,
+                                                               @RequestParam(value = "after", required = false) Long after) {
+        return reactiveUserService.listUsers(after, pageSize)
+                .map(ResponseEntity::ok);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<GetUserResponseList.User> streamUsers() {
+        return reactiveUserService.streamUsers();
+    }
+
+    @GetMapping("/{userId}")
+    public Mono<ResponseEntity<GetUserDetailResponse>> getUserDetails(@PathVariable Long userId) {
+        return reactiveUserService.getUserById(userId)
+                .map(ResponseEntity::ok);
+    }
+}
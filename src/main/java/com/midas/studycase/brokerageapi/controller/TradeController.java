@@ -1,10 +1,13 @@
 package com.midas.studycase.brokerageapi.controller;
 
+import com.midas.studycase.brokerageapi.model.request.BatchOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.BuyOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.CancelOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.SellOrderRequest;
+import com.midas.studycase.brokerageapi.model.response.BatchOrderResponse;
 import com.midas.studycase.brokerageapi.model.response.OrderResponse;
 import com.midas.studycase.brokerageapi.service.TradeService;
+import com.midas.studycase.brokerageapi.service.cache.IdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,24 +21,36 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 public class TradeController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final TradeService tradeService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/buy")
     @ResponseStatus(HttpStatus.ACCEPTED)
-    public Mono<OrderResponse> buyOrder(@Valid @RequestBody BuyOrderRequest order) {
-        return tradeService.processBuyOrder(order);
+    public Mono<OrderResponse> buyOrder(@Valid @RequestBody BuyOrderRequest order,
+                                        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(order.getUserId(), idempotencyKey, "buy", order, () -> tradeService.processBuyOrder(order));
     }
 
     @PostMapping("/sell")
     @ResponseStatus(HttpStatus.ACCEPTED)
-    public Mono<OrderResponse> sellOrder(@Valid @RequestBody SellOrderRequest order) {
-        return tradeService.processSellOrder(order);
+    public Mono<OrderResponse> sellOrder(@Valid @RequestBody SellOrderRequest order,
+                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(order.getUserId(), idempotencyKey, "sell", order, () -> tradeService.processSellOrder(order));
     }
 
     @PostMapping("/cancel")
     @ResponseStatus(HttpStatus.ACCEPTED)
-    public Mono<OrderResponse> cancelOrder(@Valid @RequestBody CancelOrderRequest order) {
-        return tradeService.processCancelOrder(order);
+    public Mono<OrderResponse> cancelOrder(@Valid @RequestBody CancelOrderRequest order,
+                                           @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(order.getUserId(), idempotencyKey, "cancel", order, () -> tradeService.processCancelOrder(order));
+    }
+
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Mono<BatchOrderResponse> batchOrder(@Valid @RequestBody BatchOrderRequest batchOrder) {
+        return tradeService.processBatchOrder(batchOrder);
     }
 
 }
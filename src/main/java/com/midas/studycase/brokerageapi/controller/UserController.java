@@ -3,22 +3,30 @@ package com.midas.studycase.brokerageapi.controller;
 import com.midas.studycase.brokerageapi.model.request.CreateUserRequest;
 import com.midas.studycase.brokerageapi.model.response.CreateUserResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserDetailResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserPageResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserResponseList;
+import com.midas.studycase.brokerageapi.service.ReactiveUserService;
 import com.midas.studycase.brokerageapi.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
     private final UserService userService;
+    private final ReactiveUserService reactiveUserService;
+
     @PostMapping
     public ResponseEntity<CreateUserResponse> createUser(@Valid @RequestBody CreateUserRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUser(request));
@@ -29,6 +37,23 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.OK).body(userService.listAllUsers());
     }
 
+    /**
+     * Lists users a page at a time. Pass the {@code nextCursor} of a page as {@code after} to read the next one.
+     */
+    @GetMapping(params = "pageSize")
+    public ResponseEntity<GetUserPageResponse> listUsers(@RequestParam Integer pageSize,
+                                                         @RequestParam(value = "after", required = false) Long after) {
+        return ResponseEntity.ok(userService.listUsers(after, pageSize));
+    }
+
+    /**
+     * Streams every user as newline-delimited JSON, one user per line, written as the pages are read.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<GetUserResponseList.User> streamUsers() {
+        return reactiveUserService.streamUsers();
+    }
+
     @GetMapping("/{userId}")
     public ResponseEntity<GetUserDetailResponse> getUserDetails(@PathVariable Long userId) {
         return ResponseEntity.ok(userService.getUserById(userId));
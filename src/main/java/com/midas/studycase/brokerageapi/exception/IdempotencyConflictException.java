@@ -0,0 +1,7 @@
+package com.midas.studycase.brokerageapi.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    public IdempotencyConflictException(String idempotencyKey) {
+        super("A request with the same Idempotency-Key is still being processed: " + idempotencyKey);
+    }
+}
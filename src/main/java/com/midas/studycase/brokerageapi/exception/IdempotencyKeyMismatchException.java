@@ -0,0 +1,7 @@
+package com.midas.studycase.brokerageapi.exception;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String idempotencyKey) {
+        super("The Idempotency-Key was already used for a different request: " + idempotencyKey);
+    }
+}
@@ -0,0 +1,7 @@
+package com.midas.studycase.brokerageapi.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Invalid cursor: " + cursor);
+    }
+}
@@ -0,0 +1,17 @@
+package com.midas.studycase.brokerageapi.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a batch of order events failed after its first {@code applied} events had already been
+ * persisted, so only the remaining events may be processed again.
+ */
+@Getter
+public class OrderBatchPartiallyAppliedException extends RuntimeException {
+    private final int applied;
+
+    public OrderBatchPartiallyAppliedException(int applied, Throwable cause) {
+        super("Order batch failed after " + applied + " applied events", cause);
+        this.applied = applied;
+    }
+}
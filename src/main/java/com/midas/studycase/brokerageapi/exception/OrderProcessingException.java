@@ -1,8 +1,11 @@
 package com.midas.studycase.brokerageapi.exception;
 
 public class OrderProcessingException extends RuntimeException {
+    public OrderProcessingException(String message) {
+        super(message);
+    }
+
     public OrderProcessingException(String message, Throwable cause) {
         super(message, cause);
     }
 }
-
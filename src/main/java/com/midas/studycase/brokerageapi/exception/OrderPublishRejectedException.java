@@ -0,0 +1,7 @@
+package com.midas.studycase.brokerageapi.exception;
+
+public class OrderPublishRejectedException extends RuntimeException {
+    public OrderPublishRejectedException(String topic) {
+        super("Too many orders are waiting to be published to " + topic + ". Please try again later.");
+    }
+}
@@ -0,0 +1,7 @@
+package com.midas.studycase.brokerageapi.exception;
+
+public class UnknownOrderTopicException extends RuntimeException {
+    public UnknownOrderTopicException(String topic) {
+        super("Unknown order topic: " + topic);
+    }
+}
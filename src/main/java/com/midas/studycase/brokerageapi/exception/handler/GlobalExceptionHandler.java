@@ -1,8 +1,15 @@
 package com.midas.studycase.brokerageapi.exception.handler;
 
 
+import com.midas.studycase.brokerageapi.exception.IdempotencyConflictException;
+import com.midas.studycase.brokerageapi.exception.IdempotencyKeyMismatchException;
+import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
+import com.midas.studycase.brokerageapi.exception.InvalidCursorException;
 import com.midas.studycase.brokerageapi.exception.OrderNotFoundException;
 import com.midas.studycase.brokerageapi.exception.OrderProcessingException;
+import com.midas.studycase.brokerageapi.exception.OrderPublishRejectedException;
+import com.midas.studycase.brokerageapi.exception.StockNotFoundException;
+import com.midas.studycase.brokerageapi.exception.UnknownOrderTopicException;
 import com.midas.studycase.brokerageapi.exception.UserAlreadyExistsException;
 import com.midas.studycase.brokerageapi.exception.UserNotFoundException;
 import com.midas.studycase.brokerageapi.model.error.ApiError;
@@ -13,6 +20,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -37,6 +45,41 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(ex.getMessage());
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursorException(InvalidCursorException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(UnknownOrderTopicException.class)
+    public ResponseEntity<String> handleUnknownOrderTopicException(UnknownOrderTopicException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<String> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<String> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<String> handleInsufficientStockException(InsufficientStockException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(StockNotFoundException.class)
+    public ResponseEntity<String> handleStockNotFoundException(StockNotFoundException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(OrderPublishRejectedException.class)
+    public ResponseEntity<String> handleOrderPublishRejectedException(OrderPublishRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
     @ExceptionHandler(OrderProcessingException.class)
     public Mono<ResponseEntity<ApiError>> handleOrderProcessingException(OrderProcessingException e) {
         ApiError apiError = new ApiError("Order processing failed", List.of(e.getMessage()));
@@ -61,4 +104,20 @@ public class GlobalExceptionHandler {
 
         return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Counterpart of {@link #handleValidationExceptions(MethodArgumentNotValidException)} for the reactive runtime.
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiError> handleWebExchangeBindException(WebExchangeBindException ex) {
+        List<String> errors = ex.getBindingResult()
+                .getAllErrors()
+                .stream()
+                .map(DefaultMessageSourceResolvable::getDefaultMessage)
+                .collect(Collectors.toList());
+
+        ApiError apiError = new ApiError("Validation failed", errors);
+
+        return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
+    }
 }
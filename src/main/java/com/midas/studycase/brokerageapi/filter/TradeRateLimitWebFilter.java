@@ -0,0 +1,76 @@
+package com.midas.studycase.brokerageapi.filter;
+
+import com.midas.studycase.brokerageapi.service.ratelimit.TradeRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rejects trade requests over the rate limit of their user or ticker with 429 Too Many Requests when the API
+ * runs on Reactor Netty. The body is read once to find the user and ticker and then replayed to the handler.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class TradeRateLimitWebFilter implements WebFilter {
+    static final String TRADES_PATH = "/trades/";
+    static final String RATE_LIMITED_MESSAGE = "Too many trade requests. Please retry later.";
+
+    private final TradeRateLimiter tradeRateLimiter;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.POST || !request.getPath().value().startsWith(TRADES_PATH)) {
+            return chain.filter(exchange);
+        }
+
+        return DataBufferUtils.join(request.getBody())
+                .map(buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(body -> tradeRateLimiter.acquire(body)
+                        .flatMap(retryAfterMs -> retryAfterMs > 0
+                                ? reject(exchange.getResponse(), retryAfterMs)
+                                : chain.filter(exchange.mutate().request(replayBody(exchange, body)).build())));
+    }
+
+    private ServerHttpRequest replayBody(ServerWebExchange exchange, byte[] body) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, long retryAfterMs) {
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(toRetryAfterSeconds(retryAfterMs)));
+        DataBuffer message = response.bufferFactory().wrap(RATE_LIMITED_MESSAGE.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(message));
+    }
+
+    static long toRetryAfterSeconds(long retryAfterMs) {
+        return Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
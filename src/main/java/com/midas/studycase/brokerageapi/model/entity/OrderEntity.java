@@ -38,7 +38,7 @@ public class OrderEntity {
     @Column(name = "status")
     private OrderStatus status;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
@@ -0,0 +1,25 @@
+package com.midas.studycase.brokerageapi.model.event;
+
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * A change of the status of an order, streamed to the clients of the order's user.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class OrderStatusEvent {
+    private String orderId;
+    private long userId;
+    private OrderStatus status;
+    private LocalDateTime updatedAt;
+}
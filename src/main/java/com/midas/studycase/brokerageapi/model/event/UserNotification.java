@@ -0,0 +1,54 @@
+package com.midas.studycase.brokerageapi.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Message published on the user notification topic for the orders of one user that were settled within one
+ * notification window, for example {@code "3 orders completed, 1 order failed"} followed by one entry per order.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class UserNotification {
+    private long userId;
+    private String summary;
+    private List<Entry> orders;
+
+    public enum Outcome {
+        COMPLETED("order completed", "orders completed"),
+        FAILED("order failed", "orders failed"),
+        CANCELLED("order cancelled", "orders cancelled"),
+        CANCEL_REJECTED("cancellation rejected", "cancellations rejected");
+
+        private final String singular;
+        private final String plural;
+
+        Outcome(String singular, String plural) {
+            this.singular = singular;
+            this.plural = plural;
+        }
+
+        public String describe(long count) {
+            return count + " " + (count == 1 ? singular : plural);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @ToString
+    public static class Entry {
+        private String orderId;
+        private Outcome outcome;
+        private String message;
+    }
+}
@@ -0,0 +1,52 @@
+package com.midas.studycase.brokerageapi.model.mapper;
+
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes order details as CSV lines for exports, one line per order history. An order without histories is
+ * written as one line with empty history columns.
+ */
+public final class OrderCsvMapper {
+    public static final String HEADER = "orderId,userId,ticker,status,quantity,createdAt,updatedAt,historyOrderType,historyCreatedAt\n";
+
+    private OrderCsvMapper() {
+    }
+
+    /**
+     * @param order the order to be written.
+     * @return the lines of the order, each terminated by a line feed.
+     */
+    public static String toCsvLines(OrderDetailResponse order) {
+        String orderColumns = Stream.of(order.getOrderId(), order.getUserId(), order.getTicker(), order.getStatus(),
+                        order.getQuantity(), order.getCreatedAt(), order.getUpdatedAt())
+                .map(OrderCsvMapper::toCsvValue)
+                .collect(Collectors.joining(","));
+
+        List<OrderDetailResponse.OrderHistory> histories = order.getOrderHistories();
+        if (histories == null || histories.isEmpty()) {
+            return orderColumns + ",,\n";
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (OrderDetailResponse.OrderHistory history : histories) {
+            lines.append(orderColumns)
+                    .append(',').append(toCsvValue(history.getOrderType()))
+                    .append(',').append(toCsvValue(history.getCreatedAt()))
+                    .append('\n');
+        }
+        return lines.toString();
+    }
+
+    private static String toCsvValue(Object value) {
+        String text = Objects.toString(value, "");
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
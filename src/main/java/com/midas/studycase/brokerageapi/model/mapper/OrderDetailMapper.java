@@ -3,10 +3,14 @@ package com.midas.studycase.brokerageapi.model.mapper;
 import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
 import com.midas.studycase.brokerageapi.model.entity.OrderHistoryEntity;
 import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import com.midas.studycase.brokerageapi.repository.OrderExportRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring")
 public interface OrderDetailMapper {
@@ -14,11 +18,49 @@ public interface OrderDetailMapper {
     @Mapping(source = "orderHistories", target = "orderHistories")
     OrderDetailResponse toOrderDetailResponse(OrderEntity orderEntity);
 
+    @Mapping(target = "orderHistories", ignore = true)
+    OrderDetailResponse toOrderDetailResponseWithoutHistories(OrderEntity orderEntity);
+
     List<OrderDetailResponse.OrderHistory> toOrderHistoryList(List<OrderHistoryEntity> orderHistoryEntities);
 
     @Mapping(source = "orderType", target = "orderType")
     @Mapping(source = "createdAt", target = "createdAt")
     OrderDetailResponse.OrderHistory toOrderHistory(OrderHistoryEntity orderHistoryEntity);
 
+    /**
+     * Maps orders that were loaded without their histories, attaching the histories loaded for them separately.
+     *
+     * @param orders    the orders, in the order they are to be returned.
+     * @param histories the histories of the orders, in the order they are to be listed.
+     * @return the order details.
+     */
+    default List<OrderDetailResponse> toOrderDetailResponses(List<OrderEntity> orders, List<OrderHistoryEntity> histories) {
+        Map<String, List<OrderHistoryEntity>> historiesByOrderId = histories.stream()
+                .collect(Collectors.groupingBy(OrderHistoryEntity::getOrderId));
+
+        return orders.stream()
+                .map(order -> {
+                    OrderDetailResponse response = toOrderDetailResponseWithoutHistories(order);
+                    response.setOrderHistories(toOrderHistoryList(historiesByOrderId.getOrDefault(order.getOrderId(), List.of())));
+                    return response;
+                })
+                .toList();
+    }
+
+    /**
+     * Maps the export rows of one order, which carry one history each, to its details.
+     *
+     * @param rows the rows of the order, in the order its histories are to be listed.
+     * @return the order details.
+     */
+    default OrderDetailResponse toOrderDetailResponseFromRows(List<OrderExportRow> rows) {
+        OrderDetailResponse response = toOrderDetailResponseWithoutHistories(rows.get(0).order());
+        response.setOrderHistories(toOrderHistoryList(rows.stream()
+                .map(OrderExportRow::history)
+                .filter(Objects::nonNull)
+                .toList()));
+        return response;
+    }
+
 
 }
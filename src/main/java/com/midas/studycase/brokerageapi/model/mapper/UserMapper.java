@@ -4,6 +4,7 @@ import com.midas.studycase.brokerageapi.model.entity.UserEntity;
 import com.midas.studycase.brokerageapi.model.request.CreateUserRequest;
 import com.midas.studycase.brokerageapi.model.response.CreateUserResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserDetailResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserPageResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserResponseList;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -32,6 +33,13 @@ public interface UserMapper {
         return response;
     }
 
+    default GetUserPageResponse toGetUserPageResponse(List<UserEntity> userEntities, int pageSize) {
+        GetUserPageResponse response = new GetUserPageResponse();
+        response.setUsers(userEntitiesToGetUserResponses(userEntities));
+        response.setNextCursor(userEntities.size() < pageSize ? null : userEntities.get(userEntities.size() - 1).getId());
+        return response;
+    }
+
     List<GetUserResponseList.User> userEntitiesToGetUserResponses(List<UserEntity> userEntities);
 }
 
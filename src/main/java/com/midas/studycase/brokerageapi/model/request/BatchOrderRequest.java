@@ -0,0 +1,34 @@
+package com.midas.studycase.brokerageapi.model.request;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * A batch of buy, sell and cancel orders submitted in one request.
+ * Each order names its kind in an {@code orderType} field of BUY, SELL or CANCEL.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchOrderRequest {
+    public static final int MAX_ORDERS = 500;
+
+    @Valid
+    @NotEmpty(message = "orders cannot be empty")
+    @Size(max = MAX_ORDERS, message = "orders cannot contain more than " + MAX_ORDERS + " orders")
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "orderType")
+    @JsonSubTypes({
+            @JsonSubTypes.Type(value = BuyOrderRequest.class, name = "BUY"),
+            @JsonSubTypes.Type(value = SellOrderRequest.class, name = "SELL"),
+            @JsonSubTypes.Type(value = CancelOrderRequest.class, name = "CANCEL")
+    })
+    private List<OrderRequest> orders;
+}
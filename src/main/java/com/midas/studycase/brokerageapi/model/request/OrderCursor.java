@@ -0,0 +1,73 @@
+package com.midas.studycase.brokerageapi.model.request;
+
+import com.midas.studycase.brokerageapi.exception.InvalidCursorException;
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a user's order history, ordered by creation time and order ID, newest first.
+ * Handed to clients as an opaque token in the {@code X-Next-Cursor} header of a page and passed back as
+ * {@code after=<cursor>} to read the next one.
+ * <p>
+ * The creation time is the time the order was accepted, truncated to microseconds. It is the value stored
+ * in the cache and in the {@code created_at} column alike, so a cursor taken from a cached page seeks to the
+ * same position in the database.
+ * </p>
+ *
+ * @param createdAt the creation time of the last order already returned.
+ * @param orderId   the ID of the last order already returned.
+ */
+public record OrderCursor(LocalDateTime createdAt, String orderId) {
+    private static final String SEPARATOR = ",";
+
+    /**
+     * Creates the cursor that continues after the given order.
+     *
+     * @param order the last order of a page.
+     * @return the cursor of the next page.
+     */
+    public static OrderCursor after(OrderDetailResponse order) {
+        return new OrderCursor(order.getCreatedAt(), order.getOrderId());
+    }
+
+    /**
+     * Encodes the cursor as an opaque, URL-safe token.
+     *
+     * @return the token to hand to the client.
+     */
+    public String encode() {
+        String cursor = createdAt + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a token created by {@link #encode()}.
+     *
+     * @param token the token to parse.
+     * @return the parsed cursor.
+     * @throws InvalidCursorException if the token was not created by {@link #encode()}.
+     */
+    public static OrderCursor parse(String token) {
+        String cursor;
+        try {
+            cursor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(token);
+        }
+
+        int separatorIndex = cursor.indexOf(SEPARATOR);
+        if (separatorIndex <= 0 || separatorIndex == cursor.length() - 1) {
+            throw new InvalidCursorException(token);
+        }
+
+        try {
+            return new OrderCursor(LocalDateTime.parse(cursor.substring(0, separatorIndex)), cursor.substring(separatorIndex + 1));
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
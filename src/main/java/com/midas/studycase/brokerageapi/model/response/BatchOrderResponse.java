@@ -0,0 +1,33 @@
+package com.midas.studycase.brokerageapi.model.response;
+
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResponse {
+    private List<OrderResult> orders;
+
+    /**
+     * Outcome of one order of the batch, in the position it had in the request.
+     * Accepted orders are CREATED, rejected ones are FAILED with the reason in {@code message}.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderResult {
+        private String orderId;
+        private OrderType orderType;
+        private OrderStatus status;
+        private String message;
+    }
+}
@@ -0,0 +1,20 @@
+package com.midas.studycase.brokerageapi.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Result of replaying the dead letters of an order topic. {@code skipped} counts records that could not be
+ * read and were dropped from the dead letter topic.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayResponse {
+    private String topic;
+    private int replayed;
+    private int skipped;
+}
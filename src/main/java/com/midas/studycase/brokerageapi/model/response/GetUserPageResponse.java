@@ -0,0 +1,19 @@
+package com.midas.studycase.brokerageapi.model.response;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * A page of users in id order. {@code nextCursor} is the id to pass as {@code after} to read the next page,
+ * or null on the last page.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class GetUserPageResponse {
+    private List<GetUserResponseList.User> users;
+    private Long nextCursor;
+}
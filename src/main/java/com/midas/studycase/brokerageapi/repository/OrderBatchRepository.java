@@ -0,0 +1,70 @@
+package com.midas.studycase.brokerageapi.repository;
+
+import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
+import com.midas.studycase.brokerageapi.model.entity.OrderHistoryEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC batch writes for orders and order histories.
+ * Used by the batch listener mode, where a whole poll of order events is persisted with one
+ * statement batch per table instead of one JPA save per row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderBatchRepository {
+
+    private static final String UPSERT_ORDER_SQL = """
+            INSERT INTO orders (order_id, user_id, ticker, order_type, quantity, status, created_at, updated_at)
+            VALUES (?, ?, ?, CAST(? AS order_type_enum), ?, CAST(? AS order_status_enum), ?, ?)
+            ON CONFLICT (order_id) DO UPDATE SET status = EXCLUDED.status, updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String INSERT_ORDER_HISTORY_SQL = """
+            INSERT INTO order_history (transaction_id, order_id, user_id, ticker, order_type, quantity, reason, created_at, updated_at)
+            VALUES (?, ?, ?, ?, CAST(? AS order_type_enum), ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the given orders, or updates the status of the ones that already exist.
+     *
+     * @param orders the orders to be written.
+     */
+    public void upsertOrders(List<OrderEntity> orders) {
+        jdbcTemplate.batchUpdate(UPSERT_ORDER_SQL, orders, orders.size(), (ps, order) -> {
+            ps.setString(1, order.getOrderId());
+            ps.setLong(2, order.getUserId());
+            ps.setString(3, order.getTicker());
+            ps.setString(4, order.getOrderType().name());
+            ps.setInt(5, order.getQuantity());
+            ps.setString(6, order.getStatus().name());
+            ps.setTimestamp(7, Timestamp.valueOf(order.getCreatedAt()));
+            ps.setTimestamp(8, Timestamp.valueOf(order.getUpdatedAt()));
+        });
+    }
+
+    /**
+     * Inserts the given order histories.
+     *
+     * @param histories the order histories to be written.
+     */
+    public void insertOrderHistories(List<OrderHistoryEntity> histories) {
+        jdbcTemplate.batchUpdate(INSERT_ORDER_HISTORY_SQL, histories, histories.size(), (ps, history) -> {
+            ps.setString(1, history.getTransactionId());
+            ps.setString(2, history.getOrderId());
+            ps.setLong(3, history.getUserId());
+            ps.setString(4, history.getTicker());
+            ps.setString(5, history.getOrderType().name());
+            ps.setInt(6, history.getQuantity());
+            ps.setString(7, history.getReason());
+            ps.setTimestamp(8, Timestamp.valueOf(history.getCreatedAt()));
+            ps.setTimestamp(9, Timestamp.valueOf(history.getUpdatedAt()));
+        });
+    }
+}
@@ -1,13 +1,13 @@
 package com.midas.studycase.brokerageapi.repository;
 
 import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,7 +16,22 @@ public interface OrderEntityRepository extends CrudRepository<OrderEntity, Strin
     @Query("SELECT o FROM OrderEntity o JOIN FETCH o.orderHistories WHERE o.orderId = :orderId")
     Optional<OrderEntity> findByOrderIdWithHistories(@Param("orderId") String orderId);
 
-    @Query("SELECT o FROM OrderEntity o LEFT JOIN FETCH o.orderHistories WHERE o.userId = :userId")
-    Page<OrderEntity> findOrdersForUser(@Param("userId") Long userId, Pageable pageable);
+    /**
+     * Returns a page of a user's orders, newest first, without their histories.
+     * The offset is only used for the page numbers of the legacy API; cursors use
+     * {@link #findOrdersForUserAfter(Long, LocalDateTime, String, int)}.
+     */
+    @Query(value = "SELECT * FROM orders WHERE user_id = :userId ORDER BY created_at DESC, order_id DESC LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<OrderEntity> findOrdersForUser(@Param("userId") Long userId, @Param("limit") int limit, @Param("offset") int offset);
+
+    /**
+     * Returns the user's orders that come after the given cursor, newest first, without their histories.
+     * Seeks on the (user_id, created_at, order_id) index, so the cost does not grow with the depth of the page.
+     */
+    @Query(value = "SELECT * FROM orders WHERE user_id = :userId AND (created_at, order_id) < (:createdAt, :orderId) " +
+            "ORDER BY created_at DESC, order_id DESC LIMIT :limit", nativeQuery = true)
+    List<OrderEntity> findOrdersForUserAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("orderId") String orderId, @Param("limit") int limit);
 }
 
@@ -0,0 +1,121 @@
+package com.midas.studycase.brokerageapi.repository;
+
+import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
+import com.midas.studycase.brokerageapi.model.entity.OrderHistoryEntity;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Streams every order of a user together with its histories over a forward-only JDBC cursor.
+ * <p>
+ * The rows are fetched {@link #FETCH_SIZE} at a time and only read when the subscriber asks for more, so an
+ * export holds a single fetch in memory however many orders the user has. The cursor runs in its own
+ * read-only transaction on a dedicated connection, since the PostgreSQL driver only fetches in chunks
+ * inside a transaction and reads the whole result otherwise.
+ * </p>
+ */
+@Slf4j
+@Repository
+@Profile("!r2dbc")
+@RequiredArgsConstructor
+public class OrderExportRepository {
+    private static final int FETCH_SIZE = 1_000;
+
+    private static final String EXPORT_ORDERS_FOR_USER_SQL = """
+            SELECT o.order_id, o.user_id, o.ticker, o.order_type::text AS order_type, o.quantity, o.status::text AS status,
+                   o.created_at, o.updated_at,
+                   h.transaction_id, h.order_type::text AS history_order_type, h.created_at AS history_created_at
+            FROM orders o LEFT JOIN order_history h ON h.order_id = o.order_id
+            WHERE o.user_id = ?
+            ORDER BY o.created_at DESC, o.order_id DESC, h.created_at
+            """;
+
+    private final DataSource dataSource;
+
+    public Flux<OrderExportRow> streamOrdersWithHistoriesForUser(Long userId) {
+        return Flux.using(() -> openCursor(userId), this::readRows, Cursor::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Cursor openCursor(Long userId) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            PreparedStatement statement = connection.prepareStatement(EXPORT_ORDERS_FOR_USER_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, userId);
+            return new Cursor(connection, statement, statement.executeQuery());
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private Flux<OrderExportRow> readRows(Cursor cursor) {
+        return Flux.generate(sink -> {
+            try {
+                if (cursor.resultSet().next()) {
+                    sink.next(toOrderExportRow(cursor.resultSet()));
+                } else {
+                    sink.complete();
+                }
+            } catch (SQLException e) {
+                sink.error(e);
+            }
+        });
+    }
+
+    private OrderExportRow toOrderExportRow(ResultSet resultSet) throws SQLException {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(resultSet.getString("order_id"));
+        order.setUserId(resultSet.getLong("user_id"));
+        order.setTicker(resultSet.getString("ticker"));
+        order.setOrderType(OrderType.valueOf(resultSet.getString("order_type")));
+        order.setQuantity(resultSet.getInt("quantity"));
+        order.setStatus(OrderStatus.valueOf(resultSet.getString("status")));
+        order.setCreatedAt(toLocalDateTime(resultSet.getTimestamp("created_at")));
+        order.setUpdatedAt(toLocalDateTime(resultSet.getTimestamp("updated_at")));
+
+        String transactionId = resultSet.getString("transaction_id");
+        if (transactionId == null) {
+            return new OrderExportRow(order, null);
+        }
+
+        OrderHistoryEntity history = new OrderHistoryEntity();
+        history.setTransactionId(transactionId);
+        history.setOrderId(order.getOrderId());
+        history.setOrderType(OrderType.valueOf(resultSet.getString("history_order_type")));
+        history.setCreatedAt(toLocalDateTime(resultSet.getTimestamp("history_created_at")));
+        return new OrderExportRow(order, history);
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private record Cursor(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+        void close() {
+            try (connection; statement; resultSet) {
+                connection.rollback();
+            } catch (SQLException e) {
+                log.warn("Failed to close order export cursor", e);
+            }
+        }
+    }
+}
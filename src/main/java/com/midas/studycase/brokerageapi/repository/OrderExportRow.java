@@ -0,0 +1,11 @@
+package com.midas.studycase.brokerageapi.repository;
+
+import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
+import com.midas.studycase.brokerageapi.model.entity.OrderHistoryEntity;
+
+/**
+ * One row of an order export: an order joined with one of its histories. Orders without histories are
+ * exported as a single row with a null history, and the rows of an order are always adjacent.
+ */
+public record OrderExportRow(OrderEntity order, OrderHistoryEntity history) {
+}
@@ -4,9 +4,13 @@ import com.midas.studycase.brokerageapi.model.entity.OrderHistoryEntity;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderHistoryRepository extends CrudRepository<OrderHistoryEntity, Long> {
     Optional<OrderHistoryEntity> findByOrderId(String orderId);
+
+    List<OrderHistoryEntity> findByOrderIdInOrderByCreatedAtAsc(Collection<String> orderIds);
 }
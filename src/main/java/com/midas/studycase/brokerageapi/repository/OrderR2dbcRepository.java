@@ -0,0 +1,145 @@
+package com.midas.studycase.brokerageapi.repository;
+
+import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
+import com.midas.studycase.brokerageapi.model.entity.OrderHistoryEntity;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * R2DBC reads of orders and order histories for the {@code r2dbc} profile.
+ * Rows are mapped onto the JPA entity classes, used here as plain objects, so both read paths share the
+ * same mapper. Enum columns are read as text, since the driver has no codec for the PostgreSQL enum types.
+ */
+@Repository
+@Profile("r2dbc")
+@RequiredArgsConstructor
+public class OrderR2dbcRepository {
+
+    private static final String ORDER_COLUMNS =
+            "order_id, user_id, ticker, order_type::text AS order_type, quantity, status::text AS status, created_at, updated_at";
+
+    private static final String FIND_ORDER_SQL = "SELECT " + ORDER_COLUMNS + " FROM orders WHERE order_id = :orderId";
+
+    private static final String FIND_ORDERS_FOR_USER_SQL = "SELECT " + ORDER_COLUMNS + " FROM orders WHERE user_id = :userId " +
+            "ORDER BY created_at DESC, order_id DESC LIMIT :limit OFFSET :offset";
+
+    private static final String FIND_ORDERS_FOR_USER_AFTER_SQL = "SELECT " + ORDER_COLUMNS + " FROM orders WHERE user_id = :userId " +
+            "AND (created_at, order_id) < (:createdAt, :orderId) ORDER BY created_at DESC, order_id DESC LIMIT :limit";
+
+    private static final String FIND_ORDER_HISTORIES_SQL = """
+            SELECT transaction_id, order_id, user_id, ticker, order_type::text AS order_type, quantity, reason, created_at, updated_at
+            FROM order_history WHERE order_id IN (:orderIds) ORDER BY created_at
+            """;
+
+    private static final String EXPORT_ORDERS_FOR_USER_SQL = """
+            SELECT o.order_id, o.user_id, o.ticker, o.order_type::text AS order_type, o.quantity, o.status::text AS status,
+                   o.created_at, o.updated_at,
+                   h.transaction_id, h.order_type::text AS history_order_type, h.created_at AS history_created_at
+            FROM orders o LEFT JOIN order_history h ON h.order_id = o.order_id
+            WHERE o.user_id = :userId
+            ORDER BY o.created_at DESC, o.order_id DESC, h.created_at
+            """;
+
+    /**
+     * Rows of an export are requested from the server in chunks of this size as the subscriber consumes them.
+     */
+    private static final int EXPORT_FETCH_SIZE = 1_000;
+
+    private final DatabaseClient orderReadDatabaseClient;
+
+    public Mono<OrderEntity> findByOrderId(String orderId) {
+        return orderReadDatabaseClient.sql(FIND_ORDER_SQL)
+                .bind("orderId", orderId)
+                .map(this::toOrderEntity)
+                .one();
+    }
+
+    public Flux<OrderEntity> findOrdersForUser(Long userId, int limit, int offset) {
+        return orderReadDatabaseClient.sql(FIND_ORDERS_FOR_USER_SQL)
+                .bind("userId", userId)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(this::toOrderEntity)
+                .all();
+    }
+
+    public Flux<OrderEntity> findOrdersForUserAfter(Long userId, LocalDateTime createdAt, String orderId, int limit) {
+        return orderReadDatabaseClient.sql(FIND_ORDERS_FOR_USER_AFTER_SQL)
+                .bind("userId", userId)
+                .bind("createdAt", createdAt)
+                .bind("orderId", orderId)
+                .bind("limit", limit)
+                .map(this::toOrderEntity)
+                .all();
+    }
+
+    public Flux<OrderHistoryEntity> findHistoriesByOrderIds(Collection<String> orderIds) {
+        return orderReadDatabaseClient.sql(FIND_ORDER_HISTORIES_SQL)
+                .bind("orderIds", orderIds)
+                .map(this::toOrderHistoryEntity)
+                .all();
+    }
+
+    /**
+     * Streams every order of a user with its histories, one row per history, with backpressure.
+     */
+    public Flux<OrderExportRow> streamOrdersWithHistoriesForUser(Long userId) {
+        return orderReadDatabaseClient.sql(EXPORT_ORDERS_FOR_USER_SQL)
+                .bind("userId", userId)
+                .filter(statement -> statement.fetchSize(EXPORT_FETCH_SIZE))
+                .map(this::toOrderExportRow)
+                .all();
+    }
+
+    private OrderEntity toOrderEntity(Readable row) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(row.get("order_id", String.class));
+        order.setUserId(row.get("user_id", Long.class));
+        order.setTicker(row.get("ticker", String.class));
+        order.setOrderType(OrderType.valueOf(row.get("order_type", String.class)));
+        order.setQuantity(row.get("quantity", Integer.class));
+        order.setStatus(OrderStatus.valueOf(row.get("status", String.class)));
+        order.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        order.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return order;
+    }
+
+    private OrderHistoryEntity toOrderHistoryEntity(Readable row) {
+        OrderHistoryEntity history = new OrderHistoryEntity();
+        history.setTransactionId(row.get("transaction_id", String.class));
+        history.setOrderId(row.get("order_id", String.class));
+        history.setUserId(row.get("user_id", Long.class));
+        history.setTicker(row.get("ticker", String.class));
+        history.setOrderType(OrderType.valueOf(row.get("order_type", String.class)));
+        history.setQuantity(row.get("quantity", Integer.class));
+        history.setReason(row.get("reason", String.class));
+        history.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        history.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        return history;
+    }
+
+    private OrderExportRow toOrderExportRow(Readable row) {
+        OrderEntity order = toOrderEntity(row);
+        String transactionId = row.get("transaction_id", String.class);
+        if (transactionId == null) {
+            return new OrderExportRow(order, null);
+        }
+
+        OrderHistoryEntity history = new OrderHistoryEntity();
+        history.setTransactionId(transactionId);
+        history.setOrderId(order.getOrderId());
+        history.setOrderType(OrderType.valueOf(row.get("history_order_type", String.class)));
+        history.setCreatedAt(row.get("history_created_at", LocalDateTime.class));
+        return new OrderExportRow(order, history);
+    }
+}
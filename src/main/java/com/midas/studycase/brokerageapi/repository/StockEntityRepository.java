@@ -1,11 +1,33 @@
 package com.midas.studycase.brokerageapi.repository;
 
 import com.midas.studycase.brokerageapi.model.entity.StockEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface StockEntityRepository extends CrudRepository<StockEntity, Long> {
     StockEntity findByTicker(String ticker);
+
+    boolean existsByTicker(String ticker);
+
+    /**
+     * Atomically takes the given quantity from the stock if enough of it is available.
+     *
+     * @return the remaining quantity, or null if the stock does not exist or does not hold enough.
+     */
+    @Query(value = "UPDATE stocks SET quantity = quantity - :quantity, version = version + 1, updated_at = NOW() " +
+            "WHERE ticker = :ticker AND quantity >= :quantity RETURNING quantity", nativeQuery = true)
+    Integer decrementQuantityIfAvailable(@Param("ticker") String ticker, @Param("quantity") int quantity);
+
+    /**
+     * Atomically returns the given quantity to the stock if the result stays within the limit.
+     *
+     * @return the new quantity, or null if the stock does not exist or the limit would be exceeded.
+     */
+    @Query(value = "UPDATE stocks SET quantity = quantity + :quantity, version = version + 1, updated_at = NOW() " +
+            "WHERE ticker = :ticker AND quantity + :quantity <= :limit RETURNING quantity", nativeQuery = true)
+    Integer incrementQuantityWithinLimit(@Param("ticker") String ticker, @Param("quantity") int quantity, @Param("limit") int limit);
 }
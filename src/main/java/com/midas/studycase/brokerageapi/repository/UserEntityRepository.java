@@ -1,6 +1,7 @@
 package com.midas.studycase.brokerageapi.repository;
 
 import com.midas.studycase.brokerageapi.model.entity.UserEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +12,12 @@ import java.util.Optional;
 public interface UserEntityRepository extends CrudRepository<UserEntity, Long> {
     Optional<UserEntity> findByEmail(String email);
 
+    /**
+     * Keyset page of users: the users with an id greater than the given one, in id order. Seeks on the primary
+     * key index, so every page costs the same however deep it is.
+     */
+    List<UserEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     @Override
     List<UserEntity> findAll();
 }
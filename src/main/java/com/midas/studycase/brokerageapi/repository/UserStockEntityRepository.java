@@ -1,10 +1,32 @@
 package com.midas.studycase.brokerageapi.repository;
 
 import com.midas.studycase.brokerageapi.model.entity.UserStockEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserStockEntityRepository extends CrudRepository<UserStockEntity, Long> {
     UserStockEntity findByUserIdAndTicker(Long userId, String ticker);
+
+    /**
+     * Atomically adds the given quantity to the user's position, creating the position if it does not exist.
+     *
+     * @return the new position.
+     */
+    @Query(value = "INSERT INTO user_stock (user_id, ticker, quantity, created_at, updated_at, created_by, updated_by, version) " +
+            "VALUES (:userId, :ticker, :quantity, NOW(), NOW(), 'system', 'system', 0) " +
+            "ON CONFLICT (user_id, ticker) DO UPDATE SET quantity = user_stock.quantity + EXCLUDED.quantity, " +
+            "version = COALESCE(user_stock.version, 0) + 1, updated_at = NOW() RETURNING quantity", nativeQuery = true)
+    Integer incrementQuantity(@Param("userId") Long userId, @Param("ticker") String ticker, @Param("quantity") int quantity);
+
+    /**
+     * Atomically takes the given quantity from the user's position if the user owns enough of it.
+     *
+     * @return the new position, or null if the user does not own enough.
+     */
+    @Query(value = "UPDATE user_stock SET quantity = quantity - :quantity, version = COALESCE(version, 0) + 1, updated_at = NOW() " +
+            "WHERE user_id = :userId AND ticker = :ticker AND quantity >= :quantity RETURNING quantity", nativeQuery = true)
+    Integer decrementQuantityIfAvailable(@Param("userId") Long userId, @Param("ticker") String ticker, @Param("quantity") int quantity);
 }
@@ -2,8 +2,10 @@ package com.midas.studycase.brokerageapi.service;
 
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
 
+import java.util.Map;
 import java.util.Optional;
 
 public interface OrderHistoryService {
     void saveOrderHistory(OrderEvent orderEvent, Optional<String> reason);
+    void saveOrderHistories(Map<OrderEvent, Optional<String>> reasons);
 }
@@ -0,0 +1,21 @@
+package com.midas.studycase.brokerageapi.service;
+
+import com.midas.studycase.brokerageapi.model.request.OrderCursor;
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Database read path for orders, used when an order is not in the cache.
+ * The JPA implementation is the default, and the R2DBC one is selected with the {@code r2dbc} profile.
+ */
+public interface OrderQueryService {
+    Mono<OrderDetailResponse> findOrderDetails(String orderId);
+    Flux<OrderDetailResponse> findUserOrders(Long userId, int limit, int offset);
+    Flux<OrderDetailResponse> findUserOrdersAfter(Long userId, OrderCursor after, int limit);
+
+    /**
+     * Streams every order of a user with its histories, newest first, reading the rows as they are consumed.
+     */
+    Flux<OrderDetailResponse> streamUserOrders(Long userId);
+}
@@ -2,12 +2,17 @@ package com.midas.studycase.brokerageapi.service;
 
 import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.request.OrderCursor;
 import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 public interface OrderService {
     Mono<OrderDetailResponse> getOrderDetails(String orderId);
-    Flux<OrderDetailResponse> getUserOrders(Long userId, Integer page, Integer size);
+    Flux<OrderDetailResponse> getUserOrders(Long userId, Integer page, Integer size, OrderCursor after);
+    Flux<OrderDetailResponse> exportUserOrders(Long userId);
     void saveOrder(OrderEvent orderEvent, OrderStatus orderStatus);
+    void saveOrders(Map<OrderEvent, OrderStatus> orderStatuses);
 }
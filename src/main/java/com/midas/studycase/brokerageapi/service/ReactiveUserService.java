@@ -0,0 +1,17 @@
+package com.midas.studycase.brokerageapi.service;
+
+import com.midas.studycase.brokerageapi.model.request.CreateUserRequest;
+import com.midas.studycase.brokerageapi.model.response.CreateUserResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserDetailResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserPageResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserResponseList;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserService {
+    Mono<CreateUserResponse> createUser(CreateUserRequest request);
+    Mono<GetUserResponseList> listAllUsers();
+    Mono<GetUserPageResponse> listUsers(Long after, Integer pageSize);
+    Flux<GetUserResponseList.User> streamUsers();
+    Mono<GetUserDetailResponse> getUserById(Long userId);
+}
@@ -2,9 +2,12 @@ package com.midas.studycase.brokerageapi.service;
 
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
 
+import java.util.List;
+
 
 public interface StockService {
     void processBuyOrder(OrderEvent buyOrderEvent);
     void processSellOrder(OrderEvent sellOrderEvent);
     void processCancelOrder(OrderEvent cancelOrderEvent);
+    void processOrderBatch(List<OrderEvent> orderEvents);
 }
@@ -1,8 +1,10 @@
 package com.midas.studycase.brokerageapi.service;
 
+import com.midas.studycase.brokerageapi.model.request.BatchOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.BuyOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.CancelOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.SellOrderRequest;
+import com.midas.studycase.brokerageapi.model.response.BatchOrderResponse;
 import com.midas.studycase.brokerageapi.model.response.OrderResponse;
 import reactor.core.publisher.Mono;
 
@@ -10,4 +12,5 @@ public interface TradeService {
     Mono<OrderResponse> processBuyOrder(BuyOrderRequest order);
     Mono<OrderResponse> processSellOrder(SellOrderRequest order);
     Mono<OrderResponse> processCancelOrder(CancelOrderRequest order);
+    Mono<BatchOrderResponse> processBatchOrder(BatchOrderRequest batchOrder);
 }
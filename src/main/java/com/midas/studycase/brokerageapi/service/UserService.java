@@ -3,10 +3,12 @@ package com.midas.studycase.brokerageapi.service;
 import com.midas.studycase.brokerageapi.model.request.CreateUserRequest;
 import com.midas.studycase.brokerageapi.model.response.CreateUserResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserDetailResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserPageResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserResponseList;
 
 public interface UserService {
     CreateUserResponse createUser(CreateUserRequest request);
     GetUserResponseList listAllUsers();
+    GetUserPageResponse listUsers(Long after, Integer pageSize);
     GetUserDetailResponse getUserById(Long userId);
 }
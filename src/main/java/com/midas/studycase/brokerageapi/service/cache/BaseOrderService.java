@@ -5,13 +5,14 @@ import com.midas.studycase.brokerageapi.model.event.OrderEvent;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public abstract class BaseOrderService {
     protected static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    protected static final String CANCEL_REQUESTED_FIELD = "cancelRequested";
+    public static final String ORDER_NEAR_CACHE = "orders";
+
     public String generateOrderKey(String orderId) {
         return "order:" + orderId;
     }
@@ -20,9 +21,18 @@ public abstract class BaseOrderService {
         return "order:" + orderId;
     }
 
+    protected String getOrderHistoryKey(String orderId) {
+        return "order:" + orderId + ":history";
+    }
+
+    protected String getUserOrdersKey(Long userId) {
+        return "user:" + userId + ":orders";
+    }
+
     /**
      * Creates a map representation of the given OrderEvent and order status.
-     * This map is used for caching the order details in Redis.
+     * This map is used for caching the order details in Redis. The history of the order is kept in a
+     * separate list, see {@link #getOrderHistoryKey(String)}.
      *
      * @param orderEvent  The OrderEvent to convert.
      * @param orderStatus The status of the order.
@@ -30,23 +40,13 @@ public abstract class BaseOrderService {
      */
     protected Map<String, Object> createOrderMap(OrderEvent orderEvent, OrderStatus orderStatus) {
         Map<String, Object> orderMap = new HashMap<>();
-        orderMap.put("currentStatus", orderStatus);
+        orderMap.put("currentStatus", orderStatus.name());
         orderMap.put("orderId", orderEvent.getOrderId());
         orderMap.put("ticker", orderEvent.getTicker());
         orderMap.put("quantity", orderEvent.getQuantity());
         orderMap.put("userId", orderEvent.getUserId());
         orderMap.put("createdAt", orderEvent.getCreatedAt().toString());
         orderMap.put("updatedAt", orderEvent.getCreatedAt().toString());
-
-        // Assuming you have a method to fetch the existing history or it's passed in the orderEvent
-        List<Map<String, String>> history = new ArrayList<>();
-        Map<String, String> historyEntry = new HashMap<>();
-        historyEntry.put("orderType", orderEvent.getOrderType().toString());
-        historyEntry.put("timestamp", orderEvent.getCreatedAt().toString());
-        history.add(historyEntry);
-
-        orderMap.put("history", history);
-
         return orderMap;
     }
 
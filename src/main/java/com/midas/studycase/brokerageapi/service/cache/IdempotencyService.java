@@ -0,0 +1,137 @@
+package com.midas.studycase.brokerageapi.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.midas.studycase.brokerageapi.exception.IdempotencyConflictException;
+import com.midas.studycase.brokerageapi.exception.IdempotencyKeyMismatchException;
+import com.midas.studycase.brokerageapi.model.response.OrderResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucketReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Makes order requests that carry an {@code Idempotency-Key} header safe to retry.
+ * <p>
+ * The first request with a key claims it in Redis with an atomic set-if-absent and stores the id of the order
+ * it created once it succeeds. A retry with the same key gets the original response back without the order
+ * being published again, and a retry that arrives while the first request is still running is rejected with a
+ * conflict. A claim only lives for a short time until the request completes, so a request that never finishes
+ * does not block its key, and a failed request releases the key so it can be retried.
+ * Keys are scoped to the user, so two users sending the same key do not see each other's orders.
+ * </p>
+ * <p>
+ * The claim also stores a fingerprint of the endpoint and the request body. A request that reuses a key for a
+ * different endpoint or body is rejected instead of being answered with the response of the first one.
+ * </p>
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final char SEPARATOR = ':';
+    private static final int FINGERPRINT_LENGTH = 64;
+    private static final String LEGACY_PENDING = "pending";
+
+    private final RedissonReactiveClient redissonReactiveClient;
+    private final ObjectMapper objectMapper;
+    private final long ttlMs;
+    private final long pendingTtlMs;
+
+    public IdempotencyService(RedissonReactiveClient redissonReactiveClient, ObjectMapper objectMapper,
+                              @Value("${order.idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${order.idempotency.pending-ttl-ms:30000}") long pendingTtlMs) {
+        this.redissonReactiveClient = redissonReactiveClient;
+        this.objectMapper = objectMapper;
+        this.ttlMs = ttlMs;
+        this.pendingTtlMs = pendingTtlMs;
+    }
+
+    /**
+     * Runs the request once per idempotency key.
+     *
+     * @param userId         the ID of the user sending the request.
+     * @param idempotencyKey the key sent by the client, or null to run the request without deduplication.
+     * @param operation      the endpoint the request was sent to.
+     * @param body           the body of the request.
+     * @param request        the request to run.
+     * @return a Mono emitting the response of the request, or the response of the first request with the key.
+     * The Mono fails with {@link IdempotencyConflictException} if the first request is still running and with
+     * {@link IdempotencyKeyMismatchException} if the key was used for a different request.
+     */
+    public Mono<OrderResponse> execute(Long userId, String idempotencyKey, String operation, Object body,
+                                       Supplier<Mono<OrderResponse>> request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return request.get();
+        }
+
+        String fingerprint = fingerprint(operation, body);
+        RBucketReactive<String> bucket = redissonReactiveClient.getBucket(getIdempotencyKey(userId, idempotencyKey), StringCodec.INSTANCE);
+        return bucket.trySet(fingerprint + SEPARATOR, pendingTtlMs, TimeUnit.MILLISECONDS)
+                .flatMap(claimed -> claimed
+                        ? executeClaimed(bucket, idempotencyKey, fingerprint, request)
+                        : replay(bucket, userId, idempotencyKey, operation, body, fingerprint, request));
+    }
+
+    /**
+     * Only a failure of the request itself releases the key. Once the order has been published, a failure to
+     * store the response must not release it, or the retry would publish the order a second time.
+     */
+    private Mono<OrderResponse> executeClaimed(RBucketReactive<String> bucket, String idempotencyKey, String fingerprint,
+                                               Supplier<Mono<OrderResponse>> request) {
+        return Mono.defer(request)
+                .onErrorResume(e -> bucket.delete().then(Mono.error(e)))
+                .flatMap(response -> bucket.set(fingerprint + SEPARATOR + response.getOrderId(), ttlMs, TimeUnit.MILLISECONDS)
+                        .onErrorResume(e -> {
+                            log.error("Failed to store the response of order: {} for Idempotency-Key: {}", response.getOrderId(), idempotencyKey, e);
+                            return Mono.empty();
+                        })
+                        .thenReturn(response));
+    }
+
+    private Mono<OrderResponse> replay(RBucketReactive<String> bucket, Long userId, String idempotencyKey, String operation,
+                                       Object body, String fingerprint, Supplier<Mono<OrderResponse>> request) {
+        return bucket.get()
+                .flatMap(value -> {
+                    boolean fingerprinted = value.length() > FINGERPRINT_LENGTH && value.charAt(FINGERPRINT_LENGTH) == SEPARATOR;
+                    if (fingerprinted && !value.startsWith(fingerprint)) {
+                        return Mono.error(new IdempotencyKeyMismatchException(idempotencyKey));
+                    }
+
+                    // Responses stored before fingerprints were introduced hold the bare order id
+                    String orderId = fingerprinted ? value.substring(FINGERPRINT_LENGTH + 1) : value;
+                    if (orderId.isEmpty() || (!fingerprinted && LEGACY_PENDING.equals(orderId))) {
+                        return Mono.error(new IdempotencyConflictException(idempotencyKey));
+                    }
+                    log.info("Replaying response of order: {} for Idempotency-Key: {}", orderId, idempotencyKey);
+                    return Mono.just(new OrderResponse(orderId));
+                })
+                // The claim expired or was released between the two reads, so the request can claim it again
+                .switchIfEmpty(Mono.defer(() -> execute(userId, idempotencyKey, operation, body, request)));
+    }
+
+    private String fingerprint(String operation, Object body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(objectMapper.writeValueAsBytes(body));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Failed to fingerprint the request", e);
+        }
+    }
+
+    private String getIdempotencyKey(Long userId, String idempotencyKey) {
+        return "idempotency:" + userId + ":" + idempotencyKey;
+    }
+}
@@ -0,0 +1,126 @@
+package com.midas.studycase.brokerageapi.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.midas.studycase.brokerageapi.config.redis.NearCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Bounded in-process cache kept in front of Redis.
+ * <p>
+ * Every node keeps its own copy of the entries it has read. A node that changes an entry in Redis evicts its
+ * own copy and publishes an invalidation message on the channel of the cache, and every other node evicts the
+ * entry when it receives the message. Messages carry the id of the publishing node so it can ignore its own.
+ * Entries also expire after a fixed time, which bounds how stale a node can be if it missed a message.
+ * Hits, misses and evictions are registered with Micrometer and exposed through the Actuator metrics endpoint.
+ * </p>
+ *
+ * @param <V> the type of the cached values.
+ */
+@Slf4j
+public class NearCache<V> {
+    private static final String CHANNEL_PREFIX = "cache:invalidate:";
+    private static final String SEPARATOR = "|";
+
+    private final boolean enabled;
+    private final Cache<String, V> cache;
+    private final RTopic topic;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public NearCache(String name, NearCacheProperties properties, RedissonClient redissonClient, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(properties.getExpireAfterWriteMs()))
+                .recordStats()
+                .build();
+        this.topic = redissonClient.getTopic(getChannel(name));
+
+        if (enabled) {
+            topic.addListener(String.class, (channel, message) -> onInvalidation(message));
+            if (meterRegistry != null) {
+                CaffeineCacheMetrics.monitor(meterRegistry, cache, "near." + name);
+            }
+        }
+    }
+
+    /**
+     * Returns the channel on which invalidations of the given cache are published.
+     *
+     * @param name the name of the cache.
+     * @return the name of the channel.
+     */
+    public static String getChannel(String name) {
+        return CHANNEL_PREFIX + name;
+    }
+
+    public V getIfPresent(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    /**
+     * Stores a value in the cache of this node only.
+     */
+    public void put(String key, V value) {
+        if (enabled) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * Evicts the entry from the cache of this node only. Used together with {@link #getInvalidationMessage(String)}
+     * when the message is published by a Redis script.
+     */
+    public void evictLocal(String key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Evicts the entry on this node and asks every other node to evict it too.
+     * The message is published without waiting for Redis, since the expiry bounds a lost invalidation anyway.
+     */
+    public void invalidate(String key) {
+        evictLocal(key);
+        topic.publishAsync(getInvalidationMessage(key));
+    }
+
+    /**
+     * Clears this node's cache and asks every other node to clear theirs.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        topic.publishAsync(getInvalidationMessage(""));
+    }
+
+    /**
+     * Builds the message that makes every other node evict the given key. An empty key clears the whole cache.
+     *
+     * @param key the key to be evicted.
+     * @return the invalidation message.
+     */
+    public String getInvalidationMessage(String key) {
+        return nodeId + SEPARATOR + key;
+    }
+
+    private void onInvalidation(String message) {
+        int separatorIndex = message.indexOf(SEPARATOR);
+        if (separatorIndex < 0 || nodeId.equals(message.substring(0, separatorIndex))) {
+            return;
+        }
+
+        String key = message.substring(separatorIndex + 1);
+        if (key.isEmpty()) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(key);
+        }
+        log.debug("Evicted near cache entry {} on invalidation", key);
+    }
+}
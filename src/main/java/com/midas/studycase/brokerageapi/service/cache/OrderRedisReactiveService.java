@@ -6,14 +6,19 @@ import com.midas.studycase.brokerageapi.model.event.OrderEvent;
 import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatchReactive;
+import org.redisson.api.RListReactive;
 import org.redisson.api.RMapReactive;
+import org.redisson.api.RScript;
 import org.redisson.api.RScoredSortedSetReactive;
+import org.redisson.api.RScriptReactive;
 import org.redisson.api.RedissonReactiveClient;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
@@ -26,27 +31,132 @@ import java.util.*;
 @RequiredArgsConstructor
 public class OrderRedisReactiveService extends BaseOrderService {
 
+    /**
+     * Creates the order hash if it does not exist yet, appends the event to the order's history list and
+     * indexes the order in the user's sorted set. Runs server side as one script, so it takes a single round
+     * trip and is atomic.
+     * <p>
+     * Arguments are encoded with the client codec, so the fields and values written by the script are the
+     * same as the ones written through {@link RMapReactive} and {@link RListReactive}.
+     * </p>
+     * KEYS[1] = order hash, KEYS[2] = order history list, KEYS[3] = user's orders sorted set.
+     * ARGV[1] = new history entry, ARGV[2] = score, ARGV[3] = orderId, ARGV[4] = status field,
+     * ARGV[5] = created status, ARGV[6] = cancel requested field, ARGV[7] = cancel requested value,
+     * ARGV[8] = near cache invalidation message, ARGV[9..] = field/value pairs of a new order.
+     */
+    private static final String CREATE_ORDER_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                for i = 9, #ARGV, 2 do
+                    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+                end
+            end
+            """;
+
+    /**
+     * Flags a cancel that arrived while the order had not been processed yet, so the consumer can check it
+     * with a single field read instead of scanning the history. The status is stored as its name, which the
+     * codec writes as the same JSON string whether compact writes are enabled or not, so the stored bytes can
+     * be compared with the argument no matter which instance wrote them.
+     */
+    private static final String REQUEST_CANCEL_SCRIPT = """
+            if redis.call('HGET', KEYS[1], ARGV[4]) == ARGV[5] then
+                redis.call('HSET', KEYS[1], ARGV[6], ARGV[7])
+            end
+            """;
+
+    private static final String APPEND_HISTORY_SCRIPT = """
+            redis.call('RPUSH', KEYS[2], ARGV[1])
+            redis.call('ZADD', KEYS[3], 'NX', ARGV[2], ARGV[3])
+            redis.call('PUBLISH', '%s', ARGV[8])
+            return 1
+            """.formatted(NearCache.getChannel(ORDER_NEAR_CACHE));
+
+    private static final String CACHE_ORDER_SCRIPT = CREATE_ORDER_SCRIPT + APPEND_HISTORY_SCRIPT;
+    private static final String CACHE_CANCEL_ORDER_SCRIPT = CREATE_ORDER_SCRIPT + REQUEST_CANCEL_SCRIPT + APPEND_HISTORY_SCRIPT;
+
     private final RedissonReactiveClient redissonReactiveClient;
+    private final NearCache<OrderDetailResponse> orderNearCache;
 
     /**
      * Caches the order details in Redis based on the given OrderEvent and order status.
-     * If there is an existing hash structure for the OrderID, it updates the currentStatus and history fields.
-     * Otherwise, it creates a new hash structure.
+     * If there is no hash structure for the OrderID yet, it creates one. The event is appended to the
+     * order's history list, and a cancel of an order that is still CREATED is flagged on the hash.
      * Additionally, it sets the order in the user's SortedSet of orders with the order timestamp.
+     * Everything is done by one script in a single round trip, which also tells the other nodes to evict the
+     * order from their near cache.
      *
      * @param orderEvent  The OrderEvent containing order details.
      * @param orderStatus The status of the order.
      * @return A Mono indicating the completion of the caching process.
      */
     public Mono<Boolean> cacheOrder(OrderEvent orderEvent, OrderStatus orderStatus) {
-        String orderKey = generateOrderKey(orderEvent.getOrderId());
-        RMapReactive<String, Object> orderMap = redissonReactiveClient.getMap(orderKey);
-        RScoredSortedSetReactive<String> userOrdersSet = redissonReactiveClient.getScoredSortedSet("user:" + orderEvent.getUserId() + ":orders");
+        String orderId = orderEvent.getOrderId();
+        return redissonReactiveClient.getScript()
+                .<Boolean>eval(RScript.Mode.READ_WRITE, getCacheOrderScript(orderEvent), RScript.ReturnType.BOOLEAN,
+                        getCacheOrderKeys(orderEvent), getCacheOrderArgs(orderEvent, orderStatus))
+                .doOnSuccess(cached -> orderNearCache.evictLocal(orderId));
+    }
 
-        return orderMap.isExists()
-                .flatMap(exists -> exists ? updateOrderHistory(orderMap, orderEvent) : createNewOrder(orderMap, orderEvent, orderStatus))
-                .then(userOrdersSet.add(LocalDateTime.now().toEpochSecond(ZoneOffset.UTC), orderEvent.getOrderId()))
-                .then(Mono.just(true));
+    /**
+     * Caches several orders the same way as {@link #cacheOrder(OrderEvent, OrderStatus)}, but queues every
+     * script in one Redis batch, so all of them go out in a single pipelined round trip.
+     * The batch is not atomic: each script is, and the result of each one is reported separately.
+     *
+     * @param orderEvents The OrderEvents containing order details.
+     * @param orderStatus The status of the orders.
+     * @return A Mono emitting whether each order was cached, in the order of the given events.
+     */
+    public Mono<List<Boolean>> cacheOrders(List<OrderEvent> orderEvents, OrderStatus orderStatus) {
+        if (orderEvents.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        RBatchReactive batch = redissonReactiveClient.createBatch(BatchOptions.defaults());
+        RScriptReactive script = batch.getScript();
+        for (OrderEvent orderEvent : orderEvents) {
+            script.eval(RScript.Mode.READ_WRITE, getCacheOrderScript(orderEvent), RScript.ReturnType.BOOLEAN,
+                    getCacheOrderKeys(orderEvent), getCacheOrderArgs(orderEvent, orderStatus));
+        }
+
+        return batch.execute()
+                .map(result -> result.getResponses().stream()
+                        .map(Boolean.TRUE::equals)
+                        .toList())
+                .doFinally(signal -> orderEvents.forEach(orderEvent -> orderNearCache.evictLocal(orderEvent.getOrderId())));
+    }
+
+    private static long getScore(LocalDateTime createdAt) {
+        Instant instant = createdAt.toInstant(ZoneOffset.UTC);
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    private String getCacheOrderScript(OrderEvent orderEvent) {
+        return orderEvent.getOrderType() == OrderType.CANCEL ? CACHE_CANCEL_ORDER_SCRIPT : CACHE_ORDER_SCRIPT;
+    }
+
+    private List<Object> getCacheOrderKeys(OrderEvent orderEvent) {
+        String orderId = orderEvent.getOrderId();
+        return List.of(generateOrderKey(orderId), getOrderHistoryKey(orderId), getUserOrdersKey(orderEvent.getUserId()));
+    }
+
+    private Object[] getCacheOrderArgs(OrderEvent orderEvent, OrderStatus orderStatus) {
+        String orderId = orderEvent.getOrderId();
+        List<Object> args = new ArrayList<>();
+        args.add(createNewHistoryEntry(orderEvent));
+        // The accept time in microseconds, so the set is ordered like the created_at keyset query; only the first
+        // event of an order sets it. A Double, since codecs that tag Long values would hand ZADD a score it cannot parse
+        args.add((double) getScore(orderEvent.getCreatedAt()));
+        args.add(orderId);
+        args.add("currentStatus");
+        args.add(OrderStatus.CREATED.name());
+        args.add(CANCEL_REQUESTED_FIELD);
+        args.add(Boolean.TRUE);
+        args.add(orderNearCache.getInvalidationMessage(orderId));
+        createOrderMap(orderEvent, orderStatus).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        return args.toArray();
     }
 
     /**
@@ -57,51 +167,54 @@ public class OrderRedisReactiveService extends BaseOrderService {
      */
     public Flux<OrderDetailResponse> getLastOrdersForUser(Long userId, Integer page, Integer size) {
         return fetchLast10OrderIdsForUser(userId, page, size)
-                .flatMap(this::fetchOrderDetailsFromRedis)
-                .collectList()
-                .flatMapMany(this::mergeOrderHistories);
+                .flatMapSequential(this::getOrderFromCache);
     }
 
 
     /**
      * Removes the cached order details from Redis based on the given orderId.
-     * Additionally, it removes the order from the user's SortedSet of orders.
+     * Additionally, it removes the order's history and the order from the user's SortedSet of orders.
      *
      * @param orderId The ID of the order to be removed.
      * @param userId  The ID of the user associated with the order.
      * @return A Mono indicating the completion of the removal process.
      */
     public Mono<Boolean> removeCachedOrder(String orderId, Long userId) {
-        String orderKey = generateOrderKey(orderId);
-        RMapReactive<String, Object> orderMap = redissonReactiveClient.getMap(orderKey);
-        RScoredSortedSetReactive<String> userOrdersSet = redissonReactiveClient.getScoredSortedSet("user:" + userId + ":orders");
+        RScoredSortedSetReactive<String> userOrdersSet = redissonReactiveClient.getScoredSortedSet(getUserOrdersKey(userId));
 
-        return orderMap.delete() // Remove the order details from the cache
+        return redissonReactiveClient.getKeys().delete(generateOrderKey(orderId), getOrderHistoryKey(orderId)) // Remove the order details and history from the cache
                 .then(userOrdersSet.remove(orderId)) // Remove the order from the user's SortedSet of orders
+                .doOnSuccess(removed -> orderNearCache.invalidate(orderId))
                 .then(Mono.just(true));
     }
 
 
 
     /**
-     * Retrieves an OrderDetailResponse object from Redis cache using orderId.
+     * Retrieves an OrderDetailResponse object from the near cache, or from Redis cache using orderId.
      *
      * @param orderId The ID of the order.
      * @return A Mono<OrderDetailResponse> containing the cached OrderDetailResponse object, if found.
      */
     public Mono<OrderDetailResponse> getOrderFromCache(String orderId) {
+        OrderDetailResponse nearCachedOrder = orderNearCache.getIfPresent(orderId);
+        if (nearCachedOrder != null) {
+            return Mono.just(nearCachedOrder);
+        }
+
         RMapReactive<String, Object> orderDetailsMap = redissonReactiveClient.getMap(getOrderKey(orderId));
+        RListReactive<Map<String, String>> orderHistoryList = redissonReactiveClient.getList(getOrderHistoryKey(orderId));
 
-        return orderDetailsMap.readAllMap()
-                .filter(cachedOrderMap -> !cachedOrderMap.isEmpty())
-                .map(this::convertMapToOrderDetailResponse)
+        return Mono.zip(orderDetailsMap.readAllMap().filter(cachedOrderMap -> !cachedOrderMap.isEmpty()), orderHistoryList.readAll())
+                .map(cachedOrder -> convertMapToOrderDetailResponse(cachedOrder.getT1(), cachedOrder.getT2()))
+                .doOnNext(cachedOrder -> orderNearCache.put(orderId, cachedOrder))
                 .doOnSuccess(cacheOrder -> log.info("Successfully retrieved from cache for key: {}", orderId))
                 .doOnError(error -> log.error("Failed to retrieve from cache for key: {}", orderId))
                 .switchIfEmpty(Mono.empty());
     }
 
 
-    private OrderDetailResponse convertMapToOrderDetailResponse(Map<String, Object> cachedOrderMap) {
+    private OrderDetailResponse convertMapToOrderDetailResponse(Map<String, Object> cachedOrderMap, List<Map<String, String>> historyMapList) {
         OrderDetailResponse response = new OrderDetailResponse();
         response.setOrderId(getStringValue(cachedOrderMap, "orderId"));
         response.setUserId(getStringValue(cachedOrderMap,"userId"));
@@ -113,7 +226,6 @@ public class OrderRedisReactiveService extends BaseOrderService {
 
         // History parsing logic
         List<OrderDetailResponse.OrderHistory> orderHistoryList = new ArrayList<>();
-        List<Map<String, String>> historyMapList = (List<Map<String, String>>) cachedOrderMap.get("history");
         for (Map<String, String> historyMap : historyMapList) {
             OrderDetailResponse.OrderHistory orderHistory = new OrderDetailResponse.OrderHistory();
             orderHistory.setOrderType(OrderType.valueOf(historyMap.get("orderType")));
@@ -126,47 +238,6 @@ public class OrderRedisReactiveService extends BaseOrderService {
         return response;
     }
 
-    private List<OrderDetailResponse.OrderHistory> parseHistory(String historyString) {
-        if(!StringUtils.hasText(historyString)) {
-            return Collections.emptyList();
-        }
-        List<OrderDetailResponse.OrderHistory> orderHistories = new ArrayList<>();
-        String[] historyEntries = historyString.split(",");
-        for (String entry : historyEntries) {
-            String[] parts = entry.split("@");
-            if (parts.length == 2) {
-                OrderDetailResponse.OrderHistory orderHistory = new OrderDetailResponse.OrderHistory();
-                orderHistory.setOrderType(OrderType.valueOf(parts[0]));
-                orderHistory.setCreatedAt(LocalDateTime.parse(parts[1]));
-                orderHistories.add(orderHistory);
-            }
-        }
-        return orderHistories;
-    }
-
-
-    /**
-     * Updates the order history in the given order map with the provided order event.
-     *
-     * @param orderMap The reactive map containing order details.
-     * @param orderEvent The event containing order information to be added to the history.
-     * @return A Mono<Void> indicating completion of the update operation.
-     * @throws IllegalArgumentException if the history in the order map is not of the expected type List<Map<String, String>>.
-     */
-    private Mono<Void> updateOrderHistory(RMapReactive<String, Object> orderMap, OrderEvent orderEvent) {
-        return orderMap.get("history")
-                .defaultIfEmpty(new ArrayList<Map<String, String>>())
-                .flatMap(history -> {
-                    if (!(history instanceof List)) {
-                        return Mono.error(new IllegalArgumentException("History is not of expected type List<Map<String, String>>"));
-                    }
-                    List<Map<String, String>> orderHistoryList = (List<Map<String, String>>) history;
-                    Map<String, String> newHistoryEntry = createNewHistoryEntry(orderEvent);
-                    orderHistoryList.add(newHistoryEntry);
-                    return orderMap.put("history", orderHistoryList).then();
-                });
-    }
-
     /**
      * Creates a new history entry map from the given order event.
      *
@@ -182,41 +253,10 @@ public class OrderRedisReactiveService extends BaseOrderService {
 
 
 
-    private Mono<Void> createNewOrder(RMapReactive<String, Object> orderMap, OrderEvent orderEvent, OrderStatus orderStatus) {
-        Map<String, Object> orderData = createOrderMap(orderEvent, orderStatus);
-        return orderMap.putAll(orderData);
-    }
-
     private Flux<String> fetchLast10OrderIdsForUser(Long userId, Integer page, Integer size) {
-        RScoredSortedSetReactive<String> userOrdersSet = redissonReactiveClient.getScoredSortedSet("user:" + userId + ":orders");
+        RScoredSortedSetReactive<String> userOrdersSet = redissonReactiveClient.getScoredSortedSet(getUserOrdersKey(userId));
         return userOrdersSet.valueRangeReversed(page, size)
                 .flatMapMany(Flux::fromIterable);
     }
 
-    private Flux<Map<String, Object>> fetchOrderDetailsFromRedis(String orderId) {
-        RMapReactive<String, Object> orderMap = redissonReactiveClient.getMap(generateOrderKey(orderId));
-        return orderMap.readAllMap().flux();
-    }
-
-    private Flux<OrderDetailResponse> mergeOrderHistories(List<Map<String, Object>> cachedOrders) {
-        Map<String, OrderDetailResponse> orderResponseMap = new HashMap<>();
-
-        for (Map<String, Object> cachedOrderMap : cachedOrders) {
-            String orderId = getStringValue(cachedOrderMap, "orderId");
-            OrderDetailResponse existingResponse = orderResponseMap.get(orderId);
-
-            if (existingResponse == null) {
-                existingResponse = convertMapToOrderDetailResponse(cachedOrderMap);
-                orderResponseMap.put(orderId, existingResponse);
-            } else {
-                String historyString = (String) cachedOrderMap.get("history");
-                List<OrderDetailResponse.OrderHistory> orderHistories = parseHistory(historyString);
-                existingResponse.getOrderHistories().addAll(orderHistories);
-            }
-        }
-
-        return Flux.fromIterable(orderResponseMap.values());
-    }
-
-
 }
@@ -1,7 +1,7 @@
 package com.midas.studycase.brokerageapi.service.cache;
 
 import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
-import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RKeys;
@@ -10,8 +10,6 @@ import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
 
 @Slf4j
 @Service
@@ -19,33 +17,19 @@ import java.util.Map;
 public class OrderRedisService extends BaseOrderService {
 
     private final RedissonClient redissonClient;
+    private final NearCache<OrderDetailResponse> orderNearCache;
 
     /**
-     * Checks if there is any OrderEvent with orderType as CANCEL associated with the given orderId in Redis cache.
+     * Checks whether the order associated with the given orderId was cancelled, either by a CANCEL event that
+     * arrived before the order was processed or by its status being set to CANCELLED.
+     * This is a single field read of the flag kept on the order hash.
      *
      * @param orderId The ID of the order.
-     * @return A boolean value indicating whether there is a CANCEL OrderEvent.
+     * @return A boolean value indicating whether the order was cancelled.
      */
     public boolean isCancelledOrderInCache(String orderId) {
-        String orderKey = generateOrderKey(orderId);
-        RMap<String, Object> orderMap = redissonClient.getMap(orderKey);
-
-        if (orderMap.isExists()) {
-            final OrderStatus currentStatus = getEnumValue(orderMap, "currentStatus", OrderStatus.class);
-            if(OrderStatus.CREATED == currentStatus) {
-                Object historyObj = orderMap.get("history");
-                if (historyObj instanceof List) {
-                    List<Map<String, String>> historyMapList = (List<Map<String, String>>) historyObj;
-                    return historyMapList.stream()
-                            .anyMatch(historyMap -> OrderType.CANCEL.name().equals(historyMap.get("orderType")));
-                }
-            }
-
-            return OrderStatus.CANCELLED == currentStatus;
-
-        }
-
-        return false; // No cancelled order found
+        RMap<String, Object> orderMap = redissonClient.getMap(generateOrderKey(orderId));
+        return Boolean.TRUE.equals(orderMap.get(CANCEL_REQUESTED_FIELD));
     }
 
 
@@ -61,8 +45,12 @@ public class OrderRedisService extends BaseOrderService {
         RMap<String, Object> orderMap = redissonClient.getMap(orderKey);
 
         if (orderMap.isExists()) {
-            orderMap.put("currentStatus", orderStatus); // Update the status
+            orderMap.put("currentStatus", orderStatus.name()); // Update the status
             orderMap.put("updatedAt", LocalDateTime.now().toString()); // Update the updatedAt field
+            if (OrderStatus.CANCELLED == orderStatus) {
+                orderMap.fastPut(CANCEL_REQUESTED_FIELD, Boolean.TRUE);
+            }
+            orderNearCache.invalidate(orderId);
         }
 
     }
@@ -0,0 +1,94 @@
+package com.midas.studycase.brokerageapi.service.cache;
+
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.event.OrderStatusEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fans the status changes of orders out to the clients streaming them.
+ * <p>
+ * The consumer that settles an order publishes the change on a Redis channel. Every node subscribes to the
+ * channel once and emits the changes into a single in-process sink, and each client stream is a filtered view
+ * of that sink, so the number of connected clients adds no Redis traffic. A client that cannot keep up misses
+ * events instead of slowing down the others.
+ * </p>
+ */
+@Slf4j
+@Service
+public class OrderStatusStreamService {
+    private static final String CHANNEL = "order:status";
+
+    private final RTopic topic;
+    private final int listenerId;
+    private final Sinks.Many<OrderStatusEvent> sink = Sinks.many().multicast().directBestEffort();
+
+    public OrderStatusStreamService(RedissonClient redissonClient) {
+        this.topic = redissonClient.getTopic(CHANNEL);
+        this.listenerId = topic.addListener(OrderStatusEvent.class, (channel, event) -> emit(event));
+    }
+
+    /**
+     * Publishes the new status of an order to every node. The message is published without waiting for Redis,
+     * since clients that miss it still see the status when they read the order. Inside a transaction it is
+     * published only after the commit, so clients never see a status that is rolled back.
+     *
+     * @param orderEvent  the processed order event.
+     * @param orderStatus the new status of the order.
+     */
+    public void publish(OrderEvent orderEvent, OrderStatus orderStatus) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(orderEvent, orderStatus);
+                }
+            });
+        } else {
+            publishNow(orderEvent, orderStatus);
+        }
+    }
+
+    private void publishNow(OrderEvent orderEvent, OrderStatus orderStatus) {
+        OrderStatusEvent event = new OrderStatusEvent(orderEvent.getOrderId(), orderEvent.getUserId(), orderStatus, LocalDateTime.now());
+        topic.publishAsync(event)
+                .whenComplete((receivers, e) -> {
+                    if (e != null) {
+                        log.error("Failed to publish status {} of order: {}", orderStatus, orderEvent.getOrderId(), e);
+                    }
+                });
+    }
+
+    /**
+     * Streams the status changes of the orders of a user, starting from the moment of the subscription.
+     *
+     * @param userId the ID of the user.
+     * @return a Flux emitting the status changes of the user's orders.
+     */
+    public Flux<OrderStatusEvent> streamForUser(Long userId) {
+        return sink.asFlux().filter(event -> event.getUserId() == userId);
+    }
+
+    @PreDestroy
+    public void close() {
+        topic.removeListener(listenerId);
+        sink.tryEmitComplete();
+    }
+
+    private void emit(OrderStatusEvent event) {
+        // The sink must not be emitted to concurrently, and listener calls are not guaranteed to be serialized
+        synchronized (sink) {
+            sink.tryEmitNext(event);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.midas.studycase.brokerageapi.service.cache;
+
+import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
+import com.midas.studycase.brokerageapi.exception.StockNotFoundException;
+import com.midas.studycase.brokerageapi.model.entity.StockEntity;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.repository.StockEntityRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission gate for buy orders backed by an available-quantity counter per ticker in Redis.
+ * <p>
+ * A buy order reserves its quantity before it is published to Kafka, so oversold orders are rejected
+ * on the accept path instead of failing late in the consumer. Reservations are checked and taken by a
+ * single Lua script, so concurrent requests can never reserve more than is available. The counter is
+ * seeded from the database the first time a ticker is reserved, and the consumer releases the quantity
+ * back when a buy does not complete or a sell does.
+ * </p>
+ * <p>
+ * Every open buy reservation is also recorded per order in a {@code stock:reserved:<ticker>} hash. Settling
+ * removes the order from the hash and releases only if it was still there, so a reservation is given back at
+ * most once, whether the buy fails in the consumer or is moved to a dead letter topic. The counter is
+ * periodically reconciled to the database quantity minus the open reservations, which corrects the drift
+ * left by lost releases and by writes that bypass the gate.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+    private static final String INSUFFICIENT_STOCK_MESSAGE = "Insufficient stock";
+    private static final String STOCK_NOT_FOUND_MESSAGE = "Stock not found for ticker: ";
+    private static final long NOT_INITIALIZED = -2;
+    private static final long INSUFFICIENT = -1;
+
+    /**
+     * KEYS[1] = counter, KEYS[2] = open reservations, ARGV[1] = order id, ARGV[2] = quantity,
+     * ARGV[3] = optional seed used when the counter does not exist.
+     * Returns the remaining quantity, -1 if not enough is available or -2 if the counter must be seeded.
+     */
+    private static final String RESERVE_SCRIPT = """
+            local available = redis.call('GET', KEYS[1])
+            if not available then
+                if not ARGV[3] then
+                    return -2
+                end
+                redis.call('SET', KEYS[1], ARGV[3])
+                available = ARGV[3]
+            end
+            local quantity = tonumber(ARGV[2])
+            if tonumber(available) < quantity then
+                return -1
+            end
+            redis.call('HSET', KEYS[2], ARGV[1], quantity)
+            return redis.call('DECRBY', KEYS[1], quantity)
+            """;
+
+    /**
+     * KEYS[1] = counter, KEYS[2] = open reservations, ARGV[1] = order id, or an empty string to release
+     * without a reservation, ARGV[2] = quantity. Returns the new quantity, -1 if the order has no open
+     * reservation, or -2 if the counter does not exist, in which case it will be seeded from the database
+     * on the next reservation.
+     */
+    private static final String RELEASE_SCRIPT = """
+            if ARGV[1] ~= '' and redis.call('HDEL', KEYS[2], ARGV[1]) == 0 then
+                return -1
+            end
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return -2
+            end
+            return redis.call('INCRBY', KEYS[1], ARGV[2])
+            """;
+
+    /**
+     * KEYS[1] = open reservations, ARGV[1] = order id. Closes a reservation whose quantity has been taken.
+     */
+    private static final String CLOSE_SCRIPT = """
+            return redis.call('HDEL', KEYS[1], ARGV[1])
+            """;
+
+    /**
+     * KEYS[1] = counter, KEYS[2] = open reservations, ARGV[1] = database quantity. Sets the counter to the
+     * database quantity minus the open reservations. Returns the new quantity, or -2 if the counter has not
+     * been seeded yet.
+     */
+    private static final String RECONCILE_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return -2
+            end
+            local reserved = 0
+            for _, quantity in ipairs(redis.call('HVALS', KEYS[2])) do
+                reserved = reserved + tonumber(quantity)
+            end
+            local available = math.max(0, tonumber(ARGV[1]) - reserved)
+            redis.call('SET', KEYS[1], available)
+            return available
+            """;
+
+    private final RedissonReactiveClient redissonReactiveClient;
+    private final RedissonClient redissonClient;
+    private final StockEntityRepository stockRepository;
+
+    private final Scheduler reconcileScheduler = Schedulers.newSingle("stock-reservation-reconciler", true);
+    private Disposable reconcileTask;
+
+    @Value("${order.reservation.enabled:true}")
+    private boolean reservationEnabled;
+
+    @Value("${order.reservation.reconcile-interval-ms:60000}")
+    private long reconcileIntervalMs;
+
+    @PostConstruct
+    void startReconciliation() {
+        if (reservationEnabled && reconcileIntervalMs > 0) {
+            reconcileTask = reconcileScheduler.schedulePeriodically(this::reconcile, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stopReconciliation() {
+        if (reconcileTask != null) {
+            reconcileTask.dispose();
+        }
+        reconcileScheduler.dispose();
+    }
+
+    /**
+     * Reserves the quantity of a buy order.
+     *
+     * @param orderEvent the buy order to reserve for.
+     * @return a Mono emitting the quantity that is still available, or empty if reservations are disabled.
+     * The Mono fails with {@link InsufficientStockException} if not enough is available and with
+     * {@link StockNotFoundException} if the ticker does not exist.
+     */
+    public Mono<Long> reserve(OrderEvent orderEvent) {
+        if (!reservationEnabled) {
+            return Mono.empty();
+        }
+
+        String ticker = orderEvent.getTicker();
+        int quantity = orderEvent.getQuantity();
+        return evalReserve(orderEvent, null)
+                .flatMap(remaining -> remaining == NOT_INITIALIZED
+                        ? loadStockQuantity(ticker).flatMap(seed -> evalReserve(orderEvent, seed))
+                        : Mono.just(remaining))
+                .flatMap(remaining -> {
+                    if (remaining == INSUFFICIENT) {
+                        log.warn("Rejected reservation of {} stocks of {}", quantity, ticker);
+                        return Mono.error(new InsufficientStockException(INSUFFICIENT_STOCK_MESSAGE));
+                    }
+                    log.debug("Reserved {} stocks of {}. Remaining: {}", quantity, ticker, remaining);
+                    return Mono.just(remaining);
+                });
+    }
+
+    /**
+     * Gives the reservation of a buy order back, for example when publishing the order failed.
+     *
+     * @param orderEvent the buy order whose reservation is released.
+     * @return a Mono completing once the quantity has been released.
+     */
+    public Mono<Void> releaseReactive(OrderEvent orderEvent) {
+        if (!reservationEnabled) {
+            return Mono.empty();
+        }
+
+        return redissonReactiveClient.getScript(StringCodec.INSTANCE)
+                .<Long>eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                        getKeys(orderEvent.getTicker()), orderEvent.getOrderId(), String.valueOf(orderEvent.getQuantity()))
+                .doOnError(e -> log.error("Failed to release {} stocks of {}", orderEvent.getQuantity(), orderEvent.getTicker(), e))
+                .then();
+    }
+
+    /**
+     * Settles the reservation of an order once its final status has been decided. A buy that did not
+     * complete gives its reserved quantity back, a completed buy closes its reservation and a completed sell
+     * makes its quantity available. Inside a transaction the reservation is settled only after the commit,
+     * so a rolled back order keeps its reservation for the retry.
+     *
+     * @param orderEvent  the processed order event.
+     * @param orderStatus the final status of the order.
+     */
+    public void settle(OrderEvent orderEvent, OrderStatus orderStatus) {
+        if (!reservationEnabled || orderEvent.getOrderType() == OrderType.CANCEL) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    settleNow(orderEvent, orderStatus);
+                }
+            });
+        } else {
+            settleNow(orderEvent, orderStatus);
+        }
+    }
+
+    private void settleNow(OrderEvent orderEvent, OrderStatus orderStatus) {
+        boolean completed = orderStatus == OrderStatus.COMPLETED;
+        if (orderEvent.getOrderType() == OrderType.SELL && !completed) {
+            return;
+        }
+
+        String orderId = orderEvent.getOrderType() == OrderType.BUY ? orderEvent.getOrderId() : "";
+        try {
+            RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+            if (orderEvent.getOrderType() == OrderType.BUY && completed) {
+                script.eval(RScript.Mode.READ_WRITE, CLOSE_SCRIPT, RScript.ReturnType.INTEGER,
+                        List.of(getReservedKey(orderEvent.getTicker())), orderId);
+            } else {
+                script.eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                        getKeys(orderEvent.getTicker()), orderId, String.valueOf(orderEvent.getQuantity()));
+            }
+        } catch (Exception e) {
+            log.error("Failed to settle {} stocks of {} for order: {}", orderEvent.getQuantity(), orderEvent.getTicker(), orderEvent.getOrderId(), e);
+        }
+    }
+
+    /**
+     * Sets the counter of every seeded ticker to its database quantity minus its open reservations.
+     * The database is read outside the script, so an order completing in between can leave the counter
+     * off until the next run.
+     */
+    public void reconcile() {
+        try {
+            RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+            for (StockEntity stock : stockRepository.findAll()) {
+                Long available = script.eval(RScript.Mode.READ_WRITE, RECONCILE_SCRIPT, RScript.ReturnType.INTEGER,
+                        getKeys(stock.getTicker()), String.valueOf(stock.getQuantity()));
+                if (available != null && available != NOT_INITIALIZED) {
+                    log.debug("Reconciled available quantity of {} to {}", stock.getTicker(), available);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Stock reservation reconciliation failed", e);
+        }
+    }
+
+    private Mono<Long> evalReserve(OrderEvent orderEvent, Integer seed) {
+        String quantity = String.valueOf(orderEvent.getQuantity());
+        Object[] args = seed == null
+                ? new Object[]{orderEvent.getOrderId(), quantity}
+                : new Object[]{orderEvent.getOrderId(), quantity, String.valueOf(seed)};
+        return redissonReactiveClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, RESERVE_SCRIPT, RScript.ReturnType.INTEGER, getKeys(orderEvent.getTicker()), args);
+    }
+
+    private List<Object> getKeys(String ticker) {
+        return List.of(getAvailableKey(ticker), getReservedKey(ticker));
+    }
+
+    private Mono<Integer> loadStockQuantity(String ticker) {
+        return Mono.fromCallable(() -> {
+                    StockEntity stock = stockRepository.findByTicker(ticker);
+                    if (stock == null) {
+                        throw new StockNotFoundException(STOCK_NOT_FOUND_MESSAGE + ticker);
+                    }
+                    return stock.getQuantity();
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private String getAvailableKey(String ticker) {
+        return "stock:available:" + ticker;
+    }
+
+    private String getReservedKey(String ticker) {
+        return "stock:reserved:" + ticker;
+    }
+}
@@ -0,0 +1,71 @@
+package com.midas.studycase.brokerageapi.service.consumer;
+
+import com.midas.studycase.brokerageapi.config.kafka.OrderKafkaProperties;
+
+/**
+ * Picks the consumer thread count of the order listener on one node from the lag of the partitions that node
+ * consumes and the mean time it took per event.
+ * <p>
+ * The count is doubled while the lag is above {@code scaleUpLag} and the current threads would need longer
+ * than {@code targetDrainMs} to drain it, and lowered by one after {@code scaleDownIntervals} checks at or
+ * below {@code scaleDownLag}. It stays between the minimum and maximum thread count, never above the
+ * partition count, and changes at most once per {@code cooldownMs}.
+ * </p>
+ */
+public class ListenerScalingPolicy {
+    private final OrderKafkaProperties.Autoscale autoscale;
+    private final int partitions;
+    private long lastScaledAt = Long.MIN_VALUE;
+    private int quietIntervals;
+
+    public ListenerScalingPolicy(OrderKafkaProperties.Autoscale autoscale, int partitions) {
+        this.autoscale = autoscale;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Picks the thread count for the next interval. A count that differs from the current one is taken as
+     * applied, so the cooldown starts from {@code now}.
+     *
+     * @param current          the current thread count.
+     * @param lag              the lag of the partitions the node consumes.
+     * @param meanLatencyNanos the mean processing time of one event in the last interval, 0 if none was processed.
+     * @param now              the current time in milliseconds.
+     * @return the thread count for the next interval.
+     */
+    public synchronized int decide(int current, long lag, long meanLatencyNanos, long now) {
+        int target = target(current, lag, meanLatencyNanos, now);
+        if (target != current) {
+            lastScaledAt = now;
+            quietIntervals = 0;
+        }
+        return target;
+    }
+
+    private int target(int current, long lag, long meanLatencyNanos, long now) {
+        int max = Math.max(1, Math.min(autoscale.getMaxConcurrency(), partitions));
+        int min = Math.max(1, Math.min(autoscale.getMinConcurrency(), max));
+        if (current < min || current > max) {
+            return Math.max(min, Math.min(current, max));
+        }
+
+        if (lag <= autoscale.getScaleDownLag()) {
+            quietIntervals++;
+        } else {
+            quietIntervals = 0;
+        }
+        if (lastScaledAt != Long.MIN_VALUE && now - lastScaledAt < autoscale.getCooldownMs()) {
+            return current;
+        }
+
+        // Without events in the interval the drain time is unknown, so lag alone decides
+        long drainMs = meanLatencyNanos == 0 ? Long.MAX_VALUE : lag * meanLatencyNanos / current / 1_000_000;
+        if (lag >= autoscale.getScaleUpLag() && drainMs > autoscale.getTargetDrainMs() && current < max) {
+            return Math.min(max, current * 2);
+        }
+        if (quietIntervals >= autoscale.getScaleDownIntervals() && current > min) {
+            return current - 1;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,102 @@
+package com.midas.studycase.brokerageapi.service.consumer;
+
+import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.exception.OrderBatchPartiallyAppliedException;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.service.StockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "order.kafka.batch", name = "enabled", havingValue = "true")
+public class OrderBatchConsumerService {
+
+    private final StockService stockService;
+    private final ProcessedOrderFilter processedOrderFilter;
+    private final OrderListenerAutoscaler orderListenerAutoscaler;
+    private final OrderDeadLetterService orderDeadLetterService;
+
+    /**
+     * Listens to the Kafka topics for order events and processes each poll as one batch.
+     * The offsets of the poll are acknowledged once the batch has been committed. If the batch cannot be
+     * committed as a whole, its events are processed one at a time instead, and the events that fail on their
+     * own are moved to the dead letter topic, as are the records that cannot be read. Only the events that were
+     * processed are remembered as such, and the poll is only acknowledged once the broker has every dead letter;
+     * if one cannot be written the poll is delivered again. Events this node has already processed are skipped.
+     *
+     * @param records The order event records of one poll.
+     * @param ack     The acknowledgment for Kafka message processing.
+     */
+    @KafkaListener(id = KafkaConfig.ORDER_LISTENER_ID, topics = {KafkaConfig.BUY_ORDERS_TOPIC, KafkaConfig.SELL_ORDERS_TOPIC, KafkaConfig.CANCELLED_ORDERS_TOPIC},
+            groupId = KafkaConfig.STOCK_ACTION_CONSUMER_GROUP_ID, containerFactory = KafkaConfig.BATCH_LISTENER_CONTAINER_FACTORY)
+    public void consumeOrderEvents(List<ConsumerRecord<String, OrderEvent>> records, Acknowledgment ack) {
+        List<OrderEvent> orderEvents = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, OrderEvent> record : records) {
+            if (record.value() == null || record.value().getOrderType() == null) {
+                log.error("Order event at {}-{} offset {} cannot be read, moving it to the dead letter topic",
+                        record.topic(), record.partition(), record.offset());
+                orderDeadLetterService.publishUnreadable(record);
+            } else {
+                orderEvents.add(record.value());
+            }
+        }
+        List<OrderEvent> validEvents = processedOrderFilter.filterUnprocessed(orderEvents);
+        log.debug("Received batch of {} order events for processing, {} skipped", validEvents.size(), records.size() - validEvents.size());
+
+        long startedAt = System.nanoTime();
+        try {
+            int committed = commitBatch(validEvents);
+            // Marked straight away, so a failure further on cannot apply the committed events a second time
+            validEvents.subList(0, committed).forEach(processedOrderFilter::markProcessed);
+            validEvents.subList(committed, validEvents.size()).forEach(this::processOrderEvent);
+        } finally {
+            orderListenerAutoscaler.recordProcessing(System.nanoTime() - startedAt, validEvents.size());
+        }
+        ack.acknowledge();
+        log.info("Successfully processed and acknowledged batch of {} order events", validEvents.size());
+    }
+
+    /**
+     * Processes the events as one batch. The stock service only throws for events it has not committed, so
+     * only those are processed one at a time afterwards.
+     *
+     * @return how many of the events, from the start of the list, were committed.
+     */
+    private int commitBatch(List<OrderEvent> orderEvents) {
+        try {
+            stockService.processOrderBatch(orderEvents);
+            return orderEvents.size();
+        } catch (OrderBatchPartiallyAppliedException e) {
+            log.error("Batch of {} order events failed after {} events, processing the rest one at a time", orderEvents.size(), e.getApplied(), e);
+            return e.getApplied();
+        } catch (Exception e) {
+            log.error("Batch of {} order events could not be committed, processing them one at a time", orderEvents.size(), e);
+            return 0;
+        }
+    }
+
+    private void processOrderEvent(OrderEvent orderEvent) {
+        try {
+            switch (orderEvent.getOrderType()) {
+                case BUY -> stockService.processBuyOrder(orderEvent);
+                case SELL -> stockService.processSellOrder(orderEvent);
+                case CANCEL -> stockService.processCancelOrder(orderEvent);
+            }
+        } catch (Exception e) {
+            log.error("An unexpected error occurred while processing the order event message: {}", orderEvent, e);
+            orderDeadLetterService.publish(orderEvent, e);
+            return;
+        }
+        processedOrderFilter.markProcessed(orderEvent);
+    }
+}
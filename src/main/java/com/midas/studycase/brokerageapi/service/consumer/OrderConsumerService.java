@@ -5,6 +5,7 @@ import com.midas.studycase.brokerageapi.model.event.OrderEvent;
 import com.midas.studycase.brokerageapi.service.StockService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
@@ -12,26 +13,39 @@ import org.springframework.stereotype.Service;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "order.kafka.batch", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class OrderConsumerService {
 
     private final StockService stockService;
+    private final ProcessedOrderFilter processedOrderFilter;
+    private final OrderListenerAutoscaler orderListenerAutoscaler;
 
     /**
      * Listens to the Kafka topics for order events and processes them accordingly.
+     * An event is acknowledged once it has been processed. If processing fails the exception is rethrown, and
+     * the event is moved to the retry topics or, after the last attempt, to the dead letter topic.
      *
      * @param orderEvent The order event message from Kafka.
      * @param ack        The acknowledgment for Kafka message processing.
      */
-    @KafkaListener(topics = {KafkaConfig.BUY_ORDERS_TOPIC, KafkaConfig.SELL_ORDERS_TOPIC, KafkaConfig.CANCELLED_ORDERS_TOPIC}, groupId = KafkaConfig.STOCK_ACTION_CONSUMER_GROUP_ID)
+    @KafkaListener(id = KafkaConfig.ORDER_LISTENER_ID, topics = {KafkaConfig.BUY_ORDERS_TOPIC, KafkaConfig.SELL_ORDERS_TOPIC, KafkaConfig.CANCELLED_ORDERS_TOPIC}, groupId = KafkaConfig.STOCK_ACTION_CONSUMER_GROUP_ID,
+            containerFactory = KafkaConfig.LISTENER_CONTAINER_FACTORY)
     public void consumeOrderEvent(OrderEvent orderEvent, Acknowledgment ack) {
         log.debug("Received order event for processing: {}", orderEvent);
 
+        long startedAt = System.nanoTime();
         try {
-            processOrderEvent(orderEvent);
+            if (!processedOrderFilter.isProcessed(orderEvent)) {
+                processOrderEvent(orderEvent);
+                processedOrderFilter.markProcessed(orderEvent);
+            }
             ack.acknowledge();
             log.info("Successfully processed and acknowledged order event: {}", orderEvent);
         } catch (Exception e) {
             log.error("An unexpected error occurred while processing the order event message: {}", orderEvent, e);
+            throw e;
+        } finally {
+            orderListenerAutoscaler.recordProcessing(System.nanoTime() - startedAt, 1);
         }
     }
 
@@ -0,0 +1,254 @@
+package com.midas.studycase.brokerageapi.service.consumer;
+
+import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.exception.UnknownOrderTopicException;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.response.DeadLetterReplayResponse;
+import com.midas.studycase.brokerageapi.service.cache.StockReservationService;
+import com.midas.studycase.brokerageapi.service.producer.OrderProducerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Dead letters of the order topics.
+ * <p>
+ * An order event that still fails after its last retry, or that cannot be read at all, ends up on the
+ * {@code <topic>-dlt} topic with the failure in the {@code kafka_dlt-*} headers. This service logs and counts
+ * those events, dead-letters the events the batch listener cannot process, and replays dead letters to their
+ * topic on request. A dead-lettered buy gives its stock reservation back, so it does not hold quantity while
+ * it waits for a replay; the replayed buy is still checked against the database by the consumer.
+ * </p>
+ */
+@Slf4j
+@Service
+public class OrderDeadLetterService {
+    public static final String DEAD_LETTER_HANDLER_METHOD = "handleDeadLetter";
+
+    private static final String REPLAY_GROUP_ID = "order-dead-letter-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final int MAX_POLL_RECORDS = 500;
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(30);
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(OrderDeadLetterService.class);
+
+    private final KafkaTemplate<String, Object> deadLetterKafkaTemplate;
+    private final ConsumerFactory<String, OrderEvent> consumerFactory;
+    private final OrderProducerService orderProducerService;
+    private final StockReservationService stockReservationService;
+    private final Map<String, Counter> deadLetterCounters = new HashMap<>();
+
+    public OrderDeadLetterService(KafkaTemplate<String, Object> deadLetterKafkaTemplate, ConsumerFactory<String, OrderEvent> consumerFactory,
+                                  OrderProducerService orderProducerService, StockReservationService stockReservationService,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        this.deadLetterKafkaTemplate = deadLetterKafkaTemplate;
+        this.consumerFactory = consumerFactory;
+        this.orderProducerService = orderProducerService;
+        this.stockReservationService = stockReservationService;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            for (String topic : KafkaConfig.ORDER_TOPICS) {
+                deadLetterCounters.put(topic + KafkaConfig.DLT_SUFFIX, Counter.builder("orders.dead_lettered")
+                        .description("Order events moved to a dead letter topic")
+                        .tag("topic", topic)
+                        .register(registry));
+            }
+        }
+    }
+
+    /**
+     * Listener of the dead letter topics. The event is left on the topic for {@link #replay(String, int)}.
+     */
+    public void handleDeadLetter(@Payload(required = false) OrderEvent orderEvent,
+                                 @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                                 @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) byte[] reason,
+                                 Acknowledgment ack) {
+        log.error("Order event dead-lettered on {}: {}. Reason: {}", topic, orderEvent,
+                reason != null ? new String(reason, StandardCharsets.UTF_8) : "unknown");
+        Counter counter = deadLetterCounters.get(topic);
+        if (counter != null) {
+            counter.increment();
+        }
+        releaseReservation(orderEvent);
+        ack.acknowledge();
+    }
+
+    /**
+     * Moves an order event straight to the dead letter topic of its order topic, with the same headers the
+     * retry topics write. Used by the batch listener, which has no retry topics. Returns once the broker has
+     * the dead letter, so the caller can acknowledge the event afterwards.
+     *
+     * @param orderEvent the event that could not be processed.
+     * @param e          the failure.
+     * @throws KafkaException if the dead letter could not be written.
+     */
+    public void publish(OrderEvent orderEvent, Exception e) {
+        String topic = KafkaConfig.getOrderTopic(orderEvent.getOrderType());
+        send(new ProducerRecord<>(topic + KafkaConfig.DLT_SUFFIX, orderEvent), topic, e);
+        releaseReservation(orderEvent);
+    }
+
+    /**
+     * Moves a record of an order topic that could not be read to its dead letter topic. The raw bytes are
+     * forwarded when the record failed to deserialize, otherwise the event that lacks its order type.
+     *
+     * @param record the record as the batch listener received it.
+     * @throws KafkaException if the dead letter could not be written.
+     */
+    public void publishUnreadable(ConsumerRecord<String, OrderEvent> record) {
+        DeserializationException deserializationException = SerializationUtils.getExceptionFromHeader(record,
+                SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+        Object value = deserializationException != null ? deserializationException.getData() : record.value();
+        Exception e = deserializationException != null ? deserializationException
+                : new IllegalArgumentException("Order type cannot be null for order event at " + record.topic() + "-"
+                + record.partition() + " offset " + record.offset());
+        send(new ProducerRecord<>(record.topic() + KafkaConfig.DLT_SUFFIX, record.key(), value), record.topic(), e);
+    }
+
+    private void send(ProducerRecord<String, Object> record, String topic, Exception e) {
+        record.headers().add(KafkaHeaders.DLT_ORIGINAL_TOPIC, topic.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_FQCN, e.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaHeaders.DLT_EXCEPTION_MESSAGE, String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        try {
+            deadLetterKafkaTemplate.send(record).get(SEND_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while dead-lettering a record of " + topic, interrupted);
+        } catch (ExecutionException | TimeoutException sendError) {
+            throw new KafkaException("Failed to dead-letter a record of " + topic, sendError);
+        }
+    }
+
+    /**
+     * A dead-lettered buy gives back its reservation. Events without an order type never reserved anything.
+     */
+    private void releaseReservation(OrderEvent orderEvent) {
+        if (orderEvent != null && orderEvent.getOrderType() != null) {
+            stockReservationService.settle(orderEvent, OrderStatus.FAILED);
+        }
+    }
+
+    /**
+     * Sends up to {@code maxRecords} dead letters of an order topic back to the topic, in offset order per
+     * partition. Each event is acknowledged by the broker before the next one of its partition is sent, and
+     * a partition stops at its first failure. Offsets are then committed for a dedicated consumer group up to
+     * the last event replayed on each partition, also when the replay failed, so a repeated replay continues
+     * after it and no dead letter is replayed twice.
+     *
+     * @param topic      the order topic whose dead letters are replayed.
+     * @param maxRecords the maximum number of dead letters to replay.
+     * @return a Mono emitting how many dead letters were replayed and skipped.
+     */
+    public Mono<DeadLetterReplayResponse> replay(String topic, int maxRecords) {
+        if (!KafkaConfig.ORDER_TOPICS.contains(topic)) {
+            return Mono.error(new UnknownOrderTopicException(topic));
+        }
+        return Mono.fromCallable(() -> replayDeadLetters(topic, Math.max(0, maxRecords)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private DeadLetterReplayResponse replayDeadLetters(String topic, int maxRecords) {
+        String deadLetterTopic = topic + KafkaConfig.DLT_SUFFIX;
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(1, Math.min(maxRecords, MAX_POLL_RECORDS)));
+
+        int replayed = 0;
+        int skipped = 0;
+        try (Consumer<String, OrderEvent> consumer = consumerFactory.createConsumer(REPLAY_GROUP_ID, null, null, overrides)) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(deadLetterTopic);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                return new DeadLetterReplayResponse(topic, 0, 0);
+            }
+
+            List<TopicPartition> partitions = partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            Map<TopicPartition, List<ConsumerRecord<String, OrderEvent>>> polled = new LinkedHashMap<>();
+            int count = 0;
+            while (count < maxRecords && !isCaughtUp(consumer, endOffsets)) {
+                for (ConsumerRecord<String, OrderEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (count == maxRecords) {
+                        break;
+                    }
+                    polled.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), partition -> new ArrayList<>()).add(record);
+                    count++;
+                }
+            }
+
+            Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+            RuntimeException failure = null;
+            for (Map.Entry<TopicPartition, List<ConsumerRecord<String, OrderEvent>>> partition : polled.entrySet()) {
+                for (ConsumerRecord<String, OrderEvent> record : partition.getValue()) {
+                    if (record.value() == null) {
+                        log.warn("Skipping unreadable dead letter {}-{} at offset {}", record.topic(), record.partition(), record.offset());
+                        skipped++;
+                    } else {
+                        try {
+                            orderProducerService.sendOrderEvent(topic, record.value()).block();
+                        } catch (RuntimeException e) {
+                            log.error("Replay of dead letter {}-{} at offset {} failed", record.topic(), record.partition(), record.offset(), e);
+                            failure = e;
+                            break;
+                        }
+                        replayed++;
+                    }
+                    offsets.put(partition.getKey(), new OffsetAndMetadata(record.offset() + 1));
+                }
+            }
+
+            // Only the events the broker acknowledged are committed, so a repeated replay starts at the failed one
+            if (!offsets.isEmpty()) {
+                consumer.commitSync(offsets);
+            }
+            if (failure != null) {
+                log.info("Replayed {} dead letters of {} before a failure, skipped {}", replayed, topic, skipped);
+                throw failure;
+            }
+        }
+
+        log.info("Replayed {} dead letters of {}, skipped {}", replayed, topic, skipped);
+        return new DeadLetterReplayResponse(topic, replayed, skipped);
+    }
+
+    private boolean isCaughtUp(Consumer<String, OrderEvent> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream().allMatch(endOffset -> consumer.position(endOffset.getKey()) >= endOffset.getValue());
+    }
+}
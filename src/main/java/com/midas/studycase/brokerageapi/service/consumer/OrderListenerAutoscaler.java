@@ -0,0 +1,217 @@
+package com.midas.studycase.brokerageapi.service.consumer;
+
+import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.config.kafka.KafkaProperties;
+import com.midas.studycase.brokerageapi.config.kafka.OrderKafkaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Scales the consumer threads of the order listener with the lag of {@link KafkaConfig#STOCK_ACTION_CONSUMER_GROUP_ID}.
+ * <p>
+ * The listeners report how long each order event took to process. Every check interval the lag of the group on
+ * the order topics is read with the admin client. Only the lag of the partitions assigned to this node's
+ * listener is used for the decision, since every node of the group runs its own autoscaler and the other
+ * partitions are drained by other nodes. Together with the mean processing latency it gives the time the
+ * current threads need to catch up, and {@link ListenerScalingPolicy} picks the thread count: when that time is
+ * too long the listener container is restarted with twice the threads, and once the lag has stayed low for a
+ * while it is restarted with one thread less. Each thread owns whole partitions and processes their events in
+ * order, so the threads are the only worker pool of the listener and there are never more of them than
+ * partitions. The group lag per topic, the thread count, the processing latency and the scaling decisions are
+ * registered with Micrometer.
+ * </p>
+ */
+@Slf4j
+@Service
+public class OrderListenerAutoscaler {
+    private static final String SCALE_UP = "up";
+    private static final String SCALE_DOWN = "down";
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final KafkaProperties kafkaProperties;
+    private final OrderKafkaProperties.Autoscale autoscale;
+    private final ListenerScalingPolicy scalingPolicy;
+    private final Map<String, AtomicLong> topicLag = new LinkedHashMap<>();
+    private final AtomicInteger concurrency = new AtomicInteger();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final Timer processingTimer;
+    private final Map<String, Counter> decisionCounters = new HashMap<>();
+    private final Scheduler scheduler = Schedulers.newSingle("order-listener-autoscaler", true);
+    private final Disposable checkTask;
+    private AdminClient adminClient;
+
+    public OrderListenerAutoscaler(KafkaListenerEndpointRegistry registry, KafkaProperties kafkaProperties,
+                                   OrderKafkaProperties orderKafkaProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.registry = registry;
+        this.kafkaProperties = kafkaProperties;
+        this.autoscale = orderKafkaProperties.getAutoscale();
+        this.scalingPolicy = new ListenerScalingPolicy(autoscale, orderKafkaProperties.getPartitions());
+        KafkaConfig.ORDER_TOPICS.forEach(topic -> topicLag.put(topic, new AtomicLong()));
+
+        MeterRegistry meters = meterRegistry.getIfAvailable();
+        if (meters != null) {
+            topicLag.forEach((topic, lag) -> Gauge.builder("orders.consumer.lag", lag, AtomicLong::get)
+                    .description("Records of the order topic not yet committed by the consumer group")
+                    .tag("group", KafkaConfig.STOCK_ACTION_CONSUMER_GROUP_ID)
+                    .tag("topic", topic)
+                    .register(meters));
+            Gauge.builder("orders.consumer.concurrency", concurrency, AtomicInteger::get)
+                    .description("Consumer threads of the order listener")
+                    .tag("group", KafkaConfig.STOCK_ACTION_CONSUMER_GROUP_ID)
+                    .register(meters);
+            for (String direction : new String[]{SCALE_UP, SCALE_DOWN}) {
+                decisionCounters.put(direction, Counter.builder("orders.consumer.scaling")
+                        .description("Changes of the order listener's consumer threads")
+                        .tag("direction", direction)
+                        .register(meters));
+            }
+        }
+        this.processingTimer = meters == null ? null : Timer.builder("orders.consumer.processing")
+                .description("Processing time of one order event by the listener")
+                .register(meters);
+
+        this.checkTask = autoscale.isEnabled()
+                ? scheduler.schedulePeriodically(this::check, autoscale.getIntervalMs(), autoscale.getIntervalMs(), TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * Records the time the listener spent on order events.
+     *
+     * @param nanos  the processing time.
+     * @param events the number of events processed in that time.
+     */
+    public void recordProcessing(long nanos, int events) {
+        if (events <= 0) {
+            return;
+        }
+        processed.add(events);
+        processingNanos.add(nanos);
+        if (processingTimer != null) {
+            processingTimer.record(nanos / events, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void check() {
+        try {
+            MessageListenerContainer listenerContainer = registry.getListenerContainer(KafkaConfig.ORDER_LISTENER_ID);
+            if (!(listenerContainer instanceof ConcurrentMessageListenerContainer<?, ?> container) || !container.isRunning()) {
+                return;
+            }
+
+            int current = container.getConcurrency();
+            concurrency.set(current);
+            long lag = readLag(container.getAssignedPartitions());
+            long events = processed.sumThenReset();
+            long nanos = processingNanos.sumThenReset();
+            long meanLatencyNanos = events == 0 ? 0 : nanos / events;
+            int target = scalingPolicy.decide(current, lag, meanLatencyNanos, System.currentTimeMillis());
+            if (target != current) {
+                scale(container, current, target, lag, meanLatencyNanos);
+            }
+        } catch (Exception e) {
+            log.warn("Order listener scaling check failed", e);
+        }
+    }
+
+    /**
+     * Restarts the listener container with the new thread count. Stopping it lets every thread finish its
+     * current event, and the group rebalances the partitions over the new threads on start.
+     */
+    private void scale(ConcurrentMessageListenerContainer<?, ?> container, int current, int target, long lag, long meanLatencyNanos) {
+        log.info("Scaling order listener from {} to {} threads. Lag of its partitions: {}, mean processing time: {} ms",
+                current, target, lag, meanLatencyNanos / 1_000_000.0);
+        Counter counter = decisionCounters.get(target > current ? SCALE_UP : SCALE_DOWN);
+        if (counter != null) {
+            counter.increment();
+        }
+
+        container.stop(() -> scheduler.schedule(() -> {
+            container.setConcurrency(target);
+            container.start();
+            concurrency.set(target);
+        }));
+    }
+
+    /**
+     * Reads the lag of the consumer group on every partition of the order topics it has committed on, and
+     * publishes it per topic.
+     *
+     * @param assignedPartitions the partitions assigned to this node's listener.
+     * @return the lag of the assigned partitions.
+     */
+    private long readLag(Collection<TopicPartition> assignedPartitions) throws Exception {
+        long timeoutMs = autoscale.getAdminTimeoutMs();
+        Map<TopicPartition, OffsetAndMetadata> committed = getAdminClient()
+                .listConsumerGroupOffsets(KafkaConfig.STOCK_ACTION_CONSUMER_GROUP_ID)
+                .partitionsToOffsetAndMetadata()
+                .get(timeoutMs, TimeUnit.MILLISECONDS)
+                .entrySet().stream()
+                .filter(entry -> topicLag.containsKey(entry.getKey().topic()) && entry.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> endOffsets = getAdminClient()
+                .listOffsets(committed.keySet().stream().collect(Collectors.toMap(Function.identity(), partition -> OffsetSpec.latest())))
+                .all()
+                .get(timeoutMs, TimeUnit.MILLISECONDS);
+
+        Map<String, Long> lagPerTopic = new HashMap<>();
+        endOffsets.forEach((partition, endOffset) -> lagPerTopic.merge(partition.topic(),
+                Math.max(0, endOffset.offset() - committed.get(partition).offset()), Long::sum));
+        topicLag.forEach((topic, lag) -> lag.set(lagPerTopic.getOrDefault(topic, 0L)));
+        if (assignedPartitions == null) {
+            return 0;
+        }
+        return assignedPartitions.stream()
+                .filter(endOffsets::containsKey)
+                .mapToLong(partition -> Math.max(0, endOffsets.get(partition).offset() - committed.get(partition).offset()))
+                .sum();
+    }
+
+    private AdminClient getAdminClient() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProperties.getBootstrapServers()));
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (checkTask != null) {
+            checkTask.dispose();
+        }
+        scheduler.dispose();
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+}
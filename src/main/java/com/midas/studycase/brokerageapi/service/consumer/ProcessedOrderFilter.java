@@ -0,0 +1,67 @@
+package com.midas.studycase.brokerageapi.service.consumer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bounded set of the order events this node has already processed, used by the consumers to skip an event
+ * that is delivered twice, for example when a producer retry or a redelivery after a failed acknowledgment
+ * repeats it.
+ * <p>
+ * Events are identified by their order id and type, since a CANCEL shares the order id of the order it
+ * cancels. Every event of an order is keyed to the same partition, so the node that processed an event is the
+ * one that sees its duplicates, unless the partition moved to another node in between. Entries are evicted
+ * by size and age, which keeps the set small; duplicates from retries arrive within seconds.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ProcessedOrderFilter {
+    private final Cache<String, Boolean> processedEvents;
+
+    public ProcessedOrderFilter(@Value("${order.dedupe.maximum-size:100000}") long maximumSize,
+                                @Value("${order.dedupe.expire-after-write-ms:3600000}") long expireAfterWriteMs) {
+        this.processedEvents = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .build();
+    }
+
+    public boolean isProcessed(OrderEvent orderEvent) {
+        boolean processed = processedEvents.getIfPresent(getEventKey(orderEvent)) != null;
+        if (processed) {
+            log.warn("Skipping duplicate {} event of order: {}", orderEvent.getOrderType(), orderEvent.getOrderId());
+        }
+        return processed;
+    }
+
+    public void markProcessed(OrderEvent orderEvent) {
+        processedEvents.put(getEventKey(orderEvent), Boolean.TRUE);
+    }
+
+    /**
+     * Drops the events that were already processed and the events repeated within the list itself.
+     *
+     * @param orderEvents the events of one poll.
+     * @return the events to be processed, in their original order.
+     */
+    public List<OrderEvent> filterUnprocessed(List<OrderEvent> orderEvents) {
+        Set<String> batchKeys = new HashSet<>();
+        return orderEvents.stream()
+                .filter(orderEvent -> !isProcessed(orderEvent) && batchKeys.add(getEventKey(orderEvent)))
+                .toList();
+    }
+
+    private String getEventKey(OrderEvent orderEvent) {
+        return orderEvent.getOrderId() + ':' + orderEvent.getOrderType().ordinal();
+    }
+}
@@ -0,0 +1,139 @@
+package com.midas.studycase.brokerageapi.service.engine;
+
+import com.midas.studycase.brokerageapi.config.engine.OrderEngineProperties;
+import com.midas.studycase.brokerageapi.exception.OrderProcessingException;
+import com.midas.studycase.brokerageapi.exception.StockNotFoundException;
+import com.midas.studycase.brokerageapi.model.entity.StockEntity;
+import com.midas.studycase.brokerageapi.model.entity.UserStockEntity;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.repository.StockEntityRepository;
+import com.midas.studycase.brokerageapi.repository.UserStockEntityRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Routes order events to the {@link TickerEventLoop} that owns their ticker.
+ * Loops are created lazily, the first time a ticker is traded on this node, and their book is
+ * seeded from the database. Keeping a ticker owned by a single node relies on order events being
+ * partitioned by ticker in Kafka. Whenever the partitions of this node change, every book is reloaded
+ * before its next event, since another node may have traded its ticker in the meantime. Loops that have
+ * not been used for {@code order.engine.idle-timeout-ms} are retired and their thread ends.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "order.engine", name = "enabled", havingValue = "true")
+public class OrderEngine {
+    private static final String STOCK_NOT_FOUND_MESSAGE = "Stock not found for ticker: ";
+
+    private final OrderEngineProperties properties;
+    private final StockEntityRepository stockRepository;
+    private final UserStockEntityRepository userStockRepository;
+    private final Map<String, TickerEventLoop> loops = new ConcurrentHashMap<>();
+    private final Scheduler scheduler = Schedulers.newSingle("order-engine-sweeper", true);
+    private final Disposable sweepTask;
+    private volatile boolean shuttingDown;
+
+    @Value("${system.stock.limit}")
+    private int systemStockLimit;
+
+    public OrderEngine(OrderEngineProperties properties, StockEntityRepository stockRepository, UserStockEntityRepository userStockRepository) {
+        this.properties = properties;
+        this.stockRepository = stockRepository;
+        this.userStockRepository = userStockRepository;
+        this.sweepTask = scheduler.schedulePeriodically(this::retireIdleLoops,
+                properties.getIdleTimeoutMs(), properties.getIdleTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the order event on the event loop of its ticker.
+     *
+     * @param orderEvent the order event.
+     * @param handler    the logic that applies the event to the ticker's book.
+     * @return a future completed once the event has been applied.
+     * @throws StockNotFoundException   if the ticker does not exist.
+     * @throws OrderProcessingException if the engine is shutting down.
+     */
+    public CompletableFuture<Void> submit(OrderEvent orderEvent, BiConsumer<TickerBook, OrderEvent> handler) {
+        while (!shuttingDown) {
+            TickerEventLoop loop = loops.computeIfAbsent(orderEvent.getTicker(), this::startLoop);
+            CompletableFuture<Void> completion = loop.submit(orderEvent, handler, properties.getSubmitTimeoutMs());
+            if (completion != null) {
+                return completion;
+            }
+            // The loop was retired after it was looked up; the next lookup starts a fresh one
+            loops.remove(orderEvent.getTicker(), loop);
+        }
+        throw new OrderProcessingException("Order engine is shutting down, order not accepted: " + orderEvent.getOrderId());
+    }
+
+    /**
+     * Reloads the available quantity of the book from the database and forgets its positions.
+     *
+     * @param book the book to reload.
+     */
+    public void reseed(TickerBook book) {
+        book.reset(loadQuantity(book.getTicker()));
+        log.info("Reloaded order engine book for ticker: {} with quantity: {}", book.getTicker(), book.getAvailableQuantity());
+    }
+
+    /**
+     * Makes every book reload from the database before its next event. Called when partitions are assigned
+     * to or revoked from this node, since the tickers of a partition this node did not own may have been
+     * traded elsewhere.
+     */
+    public void markAllStale() {
+        loops.values().forEach(TickerEventLoop::markStale);
+    }
+
+    private TickerEventLoop startLoop(String ticker) {
+        int quantity = loadQuantity(ticker);
+        TickerBook book = new TickerBook(ticker, quantity, systemStockLimit, userId -> loadPosition(userId, ticker),
+                properties.getMaxPositionsPerTicker());
+        TickerEventLoop loop = new TickerEventLoop(book, properties.getRingBufferSize(), this::reseed);
+        loop.start();
+        log.info("Started order engine loop for ticker: {} with quantity: {}", ticker, quantity);
+        return loop;
+    }
+
+    private int loadQuantity(String ticker) {
+        StockEntity stock = stockRepository.findByTicker(ticker);
+        if (stock == null) {
+            throw new StockNotFoundException(STOCK_NOT_FOUND_MESSAGE + ticker);
+        }
+        return stock.getQuantity();
+    }
+
+    private int loadPosition(Long userId, String ticker) {
+        UserStockEntity userStock = userStockRepository.findByUserIdAndTicker(userId, ticker);
+        return userStock == null ? 0 : userStock.getQuantity();
+    }
+
+    private void retireIdleLoops() {
+        loops.forEach((ticker, loop) -> {
+            if (loop.retireIfIdle(properties.getIdleTimeoutMs())) {
+                loops.remove(ticker, loop);
+                log.info("Retired idle order engine loop for ticker: {}", ticker);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        sweepTask.dispose();
+        scheduler.dispose();
+        loops.values().forEach(loop -> loop.shutdown(properties.getSubmitTimeoutMs()));
+    }
+}
@@ -0,0 +1,141 @@
+package com.midas.studycase.brokerageapi.service.engine;
+
+import com.midas.studycase.brokerageapi.exception.ExceedingSystemStockLimitException;
+import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory state of a single ticker: the system's available quantity and the positions of the users
+ * that traded it. A book is owned by exactly one {@link TickerEventLoop} thread, so it is intentionally
+ * not thread-safe.
+ * <p>
+ * The book is a cache of the database, which stays the source of truth: changes are persisted as relative,
+ * guarded updates and the book is synced with their results. Positions are loaded on first use and only the
+ * most recently used ones are kept.
+ * </p>
+ */
+public class TickerBook {
+    private static final String INSUFFICIENT_STOCK_MESSAGE = "Insufficient stock";
+    private static final int DEFAULT_MAX_POSITIONS = 10000;
+
+    private final String ticker;
+    private final int systemStockLimit;
+    private final ToIntFunction<Long> positionLoader;
+    private final Map<Long, Integer> positions;
+    private int availableQuantity;
+
+    /**
+     * @param ticker            the ticker this book belongs to.
+     * @param availableQuantity the quantity currently available in the system.
+     * @param systemStockLimit  the maximum quantity the system may hold for the ticker.
+     * @param positionLoader    loads the persisted position of a user the first time the user is seen.
+     */
+    public TickerBook(String ticker, int availableQuantity, int systemStockLimit, ToIntFunction<Long> positionLoader) {
+        this(ticker, availableQuantity, systemStockLimit, positionLoader, DEFAULT_MAX_POSITIONS);
+    }
+
+    /**
+     * @param maxPositions the number of user positions kept in memory; the least recently used ones are
+     *                     dropped and loaded again when needed.
+     */
+    public TickerBook(String ticker, int availableQuantity, int systemStockLimit, ToIntFunction<Long> positionLoader, int maxPositions) {
+        this.ticker = ticker;
+        this.availableQuantity = availableQuantity;
+        this.systemStockLimit = systemStockLimit;
+        this.positionLoader = positionLoader;
+        this.positions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                return size() > maxPositions;
+            }
+        };
+    }
+
+    /**
+     * Moves the given quantity from the system to the user.
+     *
+     * @return the user's new position.
+     * @throws InsufficientStockException if the system does not hold enough stock.
+     */
+    public int buy(long userId, int quantity) {
+        if (availableQuantity < quantity) {
+            throw new InsufficientStockException(INSUFFICIENT_STOCK_MESSAGE);
+        }
+        int position = getPosition(userId) + quantity;
+        availableQuantity -= quantity;
+        positions.put(userId, position);
+        return position;
+    }
+
+    /**
+     * Moves the given quantity from the user back to the system.
+     *
+     * @return the user's new position.
+     * @throws InsufficientStockException         if the user does not own enough stock.
+     * @throws ExceedingSystemStockLimitException if the system would exceed its stock limit.
+     */
+    public int sell(long userId, int quantity) {
+        int position = getPosition(userId);
+        if (position == 0) {
+            throw new InsufficientStockException("User does not own any stocks of " + ticker);
+        }
+        if (position < quantity) {
+            throw new InsufficientStockException("User does not have enough stocks of " + ticker + " to sell. Owned: " + position + ", Requested to sell: " + quantity);
+        }
+        if (availableQuantity + quantity > systemStockLimit) {
+            throw new ExceedingSystemStockLimitException("Selling this quantity will exceed the system's stock limit for " + ticker);
+        }
+        availableQuantity += quantity;
+        positions.put(userId, position - quantity);
+        return position - quantity;
+    }
+
+    /**
+     * Reverts a {@link #buy(long, int)} whose persistence failed.
+     */
+    public void revertBuy(long userId, int quantity) {
+        availableQuantity += quantity;
+        positions.put(userId, getPosition(userId) - quantity);
+    }
+
+    /**
+     * Reverts a {@link #sell(long, int)} whose persistence failed.
+     */
+    public void revertSell(long userId, int quantity) {
+        availableQuantity -= quantity;
+        positions.put(userId, getPosition(userId) + quantity);
+    }
+
+    /**
+     * Replaces the book's state with the given quantity and forgets every position, which are loaded again
+     * when they are next used. Called when the book may have missed changes made by another node.
+     */
+    public void reset(int availableQuantity) {
+        this.availableQuantity = availableQuantity;
+        positions.clear();
+    }
+
+    /**
+     * Takes over the quantities the database returned for a persisted change, which also picks up changes
+     * made by other nodes since the book was seeded.
+     */
+    public void sync(long userId, int availableQuantity, int position) {
+        this.availableQuantity = availableQuantity;
+        positions.put(userId, position);
+    }
+
+    public int getPosition(long userId) {
+        return positions.computeIfAbsent(userId, positionLoader::applyAsInt);
+    }
+
+    public int getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+}
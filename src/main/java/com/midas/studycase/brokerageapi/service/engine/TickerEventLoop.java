@@ -0,0 +1,154 @@
+package com.midas.studycase.brokerageapi.service.engine;
+
+import com.midas.studycase.brokerageapi.exception.OrderProcessingException;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A single-threaded event loop that owns one {@link TickerBook}.
+ * Order events are queued in a bounded ring buffer and applied strictly one at a time,
+ * so the book never needs a lock. A loop that has been idle for a while can be retired, after which
+ * it accepts no more events and its thread ends.
+ */
+@Slf4j
+public class TickerEventLoop implements Runnable {
+
+    private final TickerBook book;
+    private final Consumer<TickerBook> reseeder;
+    private final BlockingQueue<PendingOrder> ringBuffer;
+    private final Thread thread;
+    private final Object submitLock = new Object();
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private volatile boolean running = true;
+    private volatile long lastSubmittedAt = System.currentTimeMillis();
+
+    /**
+     * @param book           the book owned by the loop.
+     * @param ringBufferSize the number of events that can wait to be applied.
+     * @param reseeder       reloads the book from the database once it has been marked stale.
+     */
+    public TickerEventLoop(TickerBook book, int ringBufferSize, Consumer<TickerBook> reseeder) {
+        this.book = book;
+        this.reseeder = reseeder;
+        this.ringBuffer = new ArrayBlockingQueue<>(ringBufferSize);
+        this.thread = new Thread(this, "order-engine-" + book.getTicker());
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues an order event to be applied on the loop thread.
+     *
+     * @param orderEvent the order event.
+     * @param handler    the logic that applies the event to the book.
+     * @param timeoutMs  how long to wait for a free slot when the ring buffer is full.
+     * @return a future completed once the handler has run, or null if the loop has been retired or shut down.
+     * @throws OrderProcessingException if the ring buffer stays full for the whole timeout.
+     */
+    public CompletableFuture<Void> submit(OrderEvent orderEvent, BiConsumer<TickerBook, OrderEvent> handler, long timeoutMs) {
+        PendingOrder pendingOrder = new PendingOrder(orderEvent, handler, new CompletableFuture<>());
+        synchronized (submitLock) {
+            if (!running) {
+                return null;
+            }
+            lastSubmittedAt = System.currentTimeMillis();
+            try {
+                if (!ringBuffer.offer(pendingOrder, timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new OrderProcessingException("Order engine is not accepting events for ticker: " + book.getTicker());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OrderProcessingException("Interrupted while queueing order: " + orderEvent.getOrderId(), e);
+            }
+        }
+        return pendingOrder.completion();
+    }
+
+    /**
+     * Makes the loop reload its book before it applies the next event. The events already queued are
+     * applied against the reloaded book, so the reload never races with them.
+     */
+    public void markStale() {
+        stale.set(true);
+    }
+
+    /**
+     * Stops the loop if nothing has been submitted to it for the given time and no event is waiting.
+     *
+     * @return true if the loop has been retired.
+     */
+    public boolean retireIfIdle(long idleTimeoutMs) {
+        synchronized (submitLock) {
+            if (!running || !ringBuffer.isEmpty() || System.currentTimeMillis() - lastSubmittedAt < idleTimeoutMs) {
+                return false;
+            }
+            running = false;
+            return true;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running || !ringBuffer.isEmpty()) {
+            try {
+                PendingOrder pendingOrder = ringBuffer.poll(100, TimeUnit.MILLISECONDS);
+                if (pendingOrder != null) {
+                    apply(pendingOrder);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void apply(PendingOrder pendingOrder) {
+        try {
+            if (stale.getAndSet(false)) {
+                reseed();
+            }
+            pendingOrder.handler().accept(book, pendingOrder.orderEvent());
+            pendingOrder.completion().complete(null);
+        } catch (Exception e) {
+            log.error("Order engine failed to apply order: {} for ticker: {}", pendingOrder.orderEvent().getOrderId(), book.getTicker(), e);
+            pendingOrder.completion().completeExceptionally(e);
+        }
+    }
+
+    private void reseed() {
+        try {
+            reseeder.accept(book);
+        } catch (RuntimeException e) {
+            stale.set(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops accepting new events and waits for the queued ones to be applied.
+     */
+    public void shutdown(long timeoutMs) {
+        synchronized (submitLock) {
+            running = false;
+        }
+        try {
+            thread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingOrder(OrderEvent orderEvent, BiConsumer<TickerBook, OrderEvent> handler, CompletableFuture<Void> completion) {
+    }
+}
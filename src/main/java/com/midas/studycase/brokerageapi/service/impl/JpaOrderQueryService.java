@@ -0,0 +1,70 @@
+package com.midas.studycase.brokerageapi.service.impl;
+
+import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
+import com.midas.studycase.brokerageapi.model.mapper.OrderDetailMapper;
+import com.midas.studycase.brokerageapi.model.request.OrderCursor;
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import com.midas.studycase.brokerageapi.repository.OrderEntityRepository;
+import com.midas.studycase.brokerageapi.repository.OrderExportRepository;
+import com.midas.studycase.brokerageapi.repository.OrderHistoryRepository;
+import com.midas.studycase.brokerageapi.service.OrderQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Reads orders with the blocking JPA repositories on the bounded elastic scheduler.
+ */
+@Service
+@Profile("!r2dbc")
+@RequiredArgsConstructor
+public class JpaOrderQueryService implements OrderQueryService {
+
+    private final OrderEntityRepository orderRepository;
+    private final OrderHistoryRepository orderHistoryRepository;
+    private final OrderDetailMapper orderDetailMapper;
+    private final OrderExportRepository orderExportRepository;
+
+    @Override
+    public Mono<OrderDetailResponse> findOrderDetails(String orderId) {
+        return Mono.fromCallable(() -> orderRepository.findByOrderIdWithHistories(orderId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(orderEntityOpt -> Mono.justOrEmpty(orderEntityOpt.map(orderDetailMapper::toOrderDetailResponse)));
+    }
+
+    @Override
+    public Flux<OrderDetailResponse> findUserOrders(Long userId, int limit, int offset) {
+        return findOrdersWithHistories(() -> orderRepository.findOrdersForUser(userId, limit, offset));
+    }
+
+    @Override
+    public Flux<OrderDetailResponse> findUserOrdersAfter(Long userId, OrderCursor after, int limit) {
+        return findOrdersWithHistories(() -> orderRepository.findOrdersForUserAfter(userId, after.createdAt(), after.orderId(), limit));
+    }
+
+    @Override
+    public Flux<OrderDetailResponse> streamUserOrders(Long userId) {
+        return orderExportRepository.streamOrdersWithHistoriesForUser(userId)
+                .bufferUntilChanged(row -> row.order().getOrderId())
+                .map(orderDetailMapper::toOrderDetailResponseFromRows);
+    }
+
+    private Flux<OrderDetailResponse> findOrdersWithHistories(Callable<List<OrderEntity>> ordersQuery) {
+        return Mono.fromCallable(() -> {
+                    List<OrderEntity> orders = ordersQuery.call();
+                    if (orders.isEmpty()) {
+                        return List.<OrderDetailResponse>of();
+                    }
+                    List<String> orderIds = orders.stream().map(OrderEntity::getOrderId).toList();
+                    return orderDetailMapper.toOrderDetailResponses(orders, orderHistoryRepository.findByOrderIdInOrderByCreatedAtAsc(orderIds));
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(Flux::fromIterable);
+    }
+}
@@ -0,0 +1,280 @@
+package com.midas.studycase.brokerageapi.service.impl;
+
+import com.midas.studycase.brokerageapi.exception.ExceedingSystemStockLimitException;
+import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
+import com.midas.studycase.brokerageapi.exception.OrderBatchPartiallyAppliedException;
+import com.midas.studycase.brokerageapi.exception.OrderProcessingException;
+import com.midas.studycase.brokerageapi.exception.StockNotFoundException;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.event.UserNotification;
+import com.midas.studycase.brokerageapi.repository.StockEntityRepository;
+import com.midas.studycase.brokerageapi.repository.UserStockEntityRepository;
+import com.midas.studycase.brokerageapi.service.OrderHistoryService;
+import com.midas.studycase.brokerageapi.service.OrderService;
+import com.midas.studycase.brokerageapi.service.StockService;
+import com.midas.studycase.brokerageapi.service.cache.OrderRedisService;
+import com.midas.studycase.brokerageapi.service.cache.OrderStatusStreamService;
+import com.midas.studycase.brokerageapi.service.cache.StockCacheService;
+import com.midas.studycase.brokerageapi.service.cache.StockReservationService;
+import com.midas.studycase.brokerageapi.service.engine.OrderEngine;
+import com.midas.studycase.brokerageapi.service.engine.TickerBook;
+import com.midas.studycase.brokerageapi.service.producer.NotifyProducerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * StockService implementation backed by the in-memory {@link OrderEngine}.
+ * Each order event is applied on the event loop that owns its ticker, so stock quantities and user
+ * positions are validated against memory and no distributed lock is taken. The database is written
+ * after the in-memory change, with relative updates guarded like the ones of {@link StockServiceImpl}, and
+ * the book is synced with their results. The in-memory change is reverted if the write fails.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "order.engine", name = "enabled", havingValue = "true")
+public class OrderEngineStockServiceImpl implements StockService {
+
+    private final OrderEngine orderEngine;
+    private final StockEntityRepository stockRepository;
+    private final UserStockEntityRepository userStockRepository;
+    private final NotifyProducerService notifyService;
+    private final OrderService orderService;
+    private final OrderHistoryService orderHistoryService;
+    private final StockCacheService stockCacheService;
+    private final StockReservationService stockReservationService;
+    private final OrderRedisService orderRedisService;
+    private final OrderStatusStreamService orderStatusStreamService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${system.stock.limit}")
+    private int systemStockLimit;
+
+    @Override
+    public void processBuyOrder(OrderEvent orderEvent) {
+        log.info("Queueing buy order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
+        submit(orderEvent, this::applyBuyOrder);
+    }
+
+    @Override
+    public void processSellOrder(OrderEvent orderEvent) {
+        log.info("Queueing sell order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
+        submit(orderEvent, this::applySellOrder);
+    }
+
+    @Override
+    public void processCancelOrder(OrderEvent orderEvent) {
+        log.info("Queueing cancel order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
+        submit(orderEvent, this::applyCancelOrder);
+    }
+
+    /**
+     * The engine already applies events on per-ticker loops and persists each of them right away, so a
+     * batch is handed over one event at a time, in order.
+     *
+     * @throws OrderBatchPartiallyAppliedException if an event fails, with the number of events persisted before it.
+     */
+    @Override
+    public void processOrderBatch(List<OrderEvent> orderEvents) {
+        for (int applied = 0; applied < orderEvents.size(); applied++) {
+            OrderEvent orderEvent = orderEvents.get(applied);
+            try {
+                switch (orderEvent.getOrderType()) {
+                    case BUY -> processBuyOrder(orderEvent);
+                    case SELL -> processSellOrder(orderEvent);
+                    case CANCEL -> processCancelOrder(orderEvent);
+                }
+            } catch (RuntimeException e) {
+                throw new OrderBatchPartiallyAppliedException(applied, e);
+            }
+        }
+    }
+
+    /**
+     * Hands the event to the ticker's event loop and waits until it has been applied, so the Kafka
+     * record is only acknowledged once the order is persisted.
+     */
+    private void submit(OrderEvent orderEvent, BiConsumer<TickerBook, OrderEvent> handler) {
+        try {
+            orderEngine.submit(orderEvent, handler).join();
+        } catch (StockNotFoundException e) {
+            handleOrderException(orderEvent, e);
+        } catch (CompletionException e) {
+            throw new OrderProcessingException("Order engine failed to process order: " + orderEvent.getOrderId(), e.getCause());
+        }
+    }
+
+    private void applyBuyOrder(TickerBook book, OrderEvent orderEvent) {
+        if (orderRedisService.isCancelledOrderInCache(orderEvent.getOrderId())) {
+            manageCancelledOrder(orderEvent);
+            return;
+        }
+
+        long userId = orderEvent.getUserId();
+        int quantity = orderEvent.getQuantity();
+        applyTrade(book, orderEvent, () -> book.buy(userId, quantity), () -> book.revertBuy(userId, quantity),
+                status -> persistBuy(orderEvent), "Order successful. " + quantity + " stocks bought.");
+    }
+
+    private void applySellOrder(TickerBook book, OrderEvent orderEvent) {
+        if (orderRedisService.isCancelledOrderInCache(orderEvent.getOrderId())) {
+            manageCancelledOrder(orderEvent);
+            return;
+        }
+
+        long userId = orderEvent.getUserId();
+        int quantity = orderEvent.getQuantity();
+        applyTrade(book, orderEvent, () -> book.sell(userId, quantity), () -> book.revertSell(userId, quantity),
+                status -> persistSell(orderEvent, status), "Order successful. " + quantity + " stocks sold.");
+    }
+
+    private void applyCancelOrder(TickerBook book, OrderEvent orderEvent) {
+        if (!orderRedisService.isCancelledOrderInCache(orderEvent.getOrderId())) {
+            orderHistoryService.saveOrderHistory(orderEvent, Optional.empty());
+            notifyService.notifyOrder(orderEvent, UserNotification.Outcome.CANCEL_REJECTED, "Your order with ID " + orderEvent.getOrderId() + " has already been processed and cannot be cancelled.");
+        }
+    }
+
+    /**
+     * Validates a buy or sell against the book and persists it as a relative, guarded change.
+     * <p>
+     * The book is only a cache of the database. If it rejects the order, or the guarded UPDATE shows that
+     * the database no longer matches it because another node traded the ticker, the book is reloaded and the
+     * order is tried once more. A rejection by the reloaded book fails the order; a second guard failure is
+     * rethrown so the event is retried later, and so are transient database or Redis errors of the write.
+     * </p>
+     */
+    private void applyTrade(TickerBook book, OrderEvent orderEvent, Runnable trade, Runnable revert,
+                            Function<TransactionStatus, PersistedTrade> persist, String message) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                trade.run();
+            } catch (InsufficientStockException | ExceedingSystemStockLimitException e) {
+                if (attempt == 0) {
+                    orderEngine.reseed(book);
+                    continue;
+                }
+                handleOrderException(orderEvent, e);
+                return;
+            }
+
+            PersistedTrade persisted;
+            try {
+                persisted = transactionTemplate.execute(persist::apply);
+            } catch (RuntimeException e) {
+                revert.run();
+                StockServiceImpl.rethrowIfRetryable(e);
+                handleGenericException(orderEvent, e);
+                return;
+            }
+
+            if (persisted != null) {
+                book.sync(orderEvent.getUserId(), persisted.availableQuantity(), persisted.position());
+                completeOrder(book, orderEvent, message);
+                return;
+            }
+
+            orderEngine.reseed(book);
+            if (attempt > 0) {
+                throw new OrderProcessingException("Stock of " + book.getTicker() + " changed concurrently while processing order: " + orderEvent.getOrderId());
+            }
+        }
+    }
+
+    /**
+     * Takes the bought quantity from the stock and adds it to the user's position.
+     *
+     * @return the persisted quantities, or null if the stock no longer holds enough.
+     */
+    private PersistedTrade persistBuy(OrderEvent orderEvent) {
+        Integer availableQuantity = stockRepository.decrementQuantityIfAvailable(orderEvent.getTicker(), orderEvent.getQuantity());
+        if (availableQuantity == null) {
+            return null;
+        }
+        int position = userStockRepository.incrementQuantity(orderEvent.getUserId(), orderEvent.getTicker(), orderEvent.getQuantity());
+        saveCompletedOrder(orderEvent);
+        return new PersistedTrade(availableQuantity, position);
+    }
+
+    /**
+     * Takes the sold quantity from the user's position and returns it to the stock.
+     *
+     * @return the persisted quantities, or null if the user no longer owns enough or the stock limit would be
+     * exceeded, in which case the transaction is rolled back.
+     */
+    private PersistedTrade persistSell(OrderEvent orderEvent, TransactionStatus status) {
+        Integer position = userStockRepository.decrementQuantityIfAvailable(orderEvent.getUserId(), orderEvent.getTicker(), orderEvent.getQuantity());
+        if (position == null) {
+            return null;
+        }
+        Integer availableQuantity = stockRepository.incrementQuantityWithinLimit(orderEvent.getTicker(), orderEvent.getQuantity(), systemStockLimit);
+        if (availableQuantity == null) {
+            status.setRollbackOnly();
+            return null;
+        }
+        saveCompletedOrder(orderEvent);
+        return new PersistedTrade(availableQuantity, position);
+    }
+
+    private void saveCompletedOrder(OrderEvent orderEvent) {
+        orderService.saveOrder(orderEvent, OrderStatus.COMPLETED);
+        orderHistoryService.saveOrderHistory(orderEvent, Optional.empty());
+    }
+
+    private void completeOrder(TickerBook book, OrderEvent orderEvent, String message) {
+        stockCacheService.updateStockInCache(book.getTicker(), book.getAvailableQuantity());
+        updateOrderStatus(orderEvent, OrderStatus.COMPLETED);
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.COMPLETED, message);
+    }
+
+    private void handleOrderException(OrderEvent orderEvent, Exception e) {
+        log.warn(e.getMessage() + " for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.FAILED, e.getMessage());
+        failOrder(orderEvent, e);
+    }
+
+    private void handleGenericException(OrderEvent orderEvent, Exception e) {
+        log.error("An error occurred while processing the order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId(), e);
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.FAILED, "Order failed due to a system error.");
+        failOrder(orderEvent, e);
+    }
+
+    private void failOrder(OrderEvent orderEvent, Exception e) {
+        orderService.saveOrder(orderEvent, OrderStatus.FAILED);
+        orderHistoryService.saveOrderHistory(orderEvent, Optional.ofNullable(e.getMessage()));
+        updateOrderStatus(orderEvent, OrderStatus.FAILED);
+    }
+
+    private void manageCancelledOrder(OrderEvent orderEvent) {
+        log.warn("Order with ID {} was already cancelled.", orderEvent.getOrderId());
+        orderService.saveOrder(orderEvent, OrderStatus.CANCELLED);
+        orderHistoryService.saveOrderHistory(orderEvent, Optional.empty());
+        updateOrderStatus(orderEvent, OrderStatus.CANCELLED);
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.CANCELLED, "Your order with ID " + orderEvent.getOrderId() + " has been successfully cancelled.");
+    }
+
+    /**
+     * Writes the final status of the order to the cache, settles its stock reservation and streams the change
+     * to the clients of the user.
+     */
+    private void updateOrderStatus(OrderEvent orderEvent, OrderStatus orderStatus) {
+        orderRedisService.updateOrderStatusInCache(orderEvent.getOrderId(), orderStatus);
+        stockReservationService.settle(orderEvent, orderStatus);
+        orderStatusStreamService.publish(orderEvent, orderStatus);
+    }
+
+    private record PersistedTrade(int availableQuantity, int position) {
+    }
+}
@@ -2,6 +2,7 @@ package com.midas.studycase.brokerageapi.service.impl;
 
 import com.midas.studycase.brokerageapi.model.entity.OrderHistoryEntity;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.repository.OrderBatchRepository;
 import com.midas.studycase.brokerageapi.repository.OrderHistoryRepository;
 import com.midas.studycase.brokerageapi.service.OrderHistoryService;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,10 +20,29 @@ import java.util.UUID;
 public class OrderHistoryServiceImpl implements OrderHistoryService {
 
     private final OrderHistoryRepository orderHistoryRepository;
+    private final OrderBatchRepository orderBatchRepository;
 
     @Override
     @Transactional
     public void saveOrderHistory(OrderEvent orderEvent, Optional<String> reason) {
+        orderHistoryRepository.save(prepareOrderHistoryEntity(orderEvent, reason));
+    }
+
+    /**
+     * Saves one history entry per order event with a single JDBC batch.
+     *
+     * @param reasons the order events, in the order they were processed, with their failure reasons.
+     */
+    @Override
+    @Transactional
+    public void saveOrderHistories(Map<OrderEvent, Optional<String>> reasons) {
+        List<OrderHistoryEntity> histories = reasons.entrySet().stream()
+                .map(entry -> prepareOrderHistoryEntity(entry.getKey(), entry.getValue()))
+                .toList();
+        orderBatchRepository.insertOrderHistories(histories);
+    }
+
+    private OrderHistoryEntity prepareOrderHistoryEntity(OrderEvent orderEvent, Optional<String> reason) {
         final OrderHistoryEntity orderHistoryEntity = new OrderHistoryEntity();
         orderHistoryEntity.setTransactionId(UUID.randomUUID().toString());
         orderHistoryEntity.setOrderId(orderEvent.getOrderId());
@@ -31,7 +53,6 @@ public class OrderHistoryServiceImpl implements OrderHistoryService {
         orderHistoryEntity.setCreatedAt(LocalDateTime.now());
         orderHistoryEntity.setUpdatedAt(LocalDateTime.now());
         reason.ifPresent(orderHistoryEntity::setReason);
-
-        orderHistoryRepository.save(orderHistoryEntity);
+        return orderHistoryEntity;
     }
 }
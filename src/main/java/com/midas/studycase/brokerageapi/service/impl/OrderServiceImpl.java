@@ -4,25 +4,24 @@ import com.midas.studycase.brokerageapi.exception.OrderNotFoundException;
 import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
 import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
-import com.midas.studycase.brokerageapi.model.mapper.OrderDetailMapper;
+import com.midas.studycase.brokerageapi.model.request.OrderCursor;
 import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import com.midas.studycase.brokerageapi.repository.OrderBatchRepository;
 import com.midas.studycase.brokerageapi.repository.OrderEntityRepository;
+import com.midas.studycase.brokerageapi.service.OrderQueryService;
 import com.midas.studycase.brokerageapi.service.OrderService;
 import com.midas.studycase.brokerageapi.service.cache.OrderRedisReactiveService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RequiredArgsConstructor
 @Service
@@ -31,7 +30,8 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderRedisReactiveService orderRedisReactiveService;
     private final OrderEntityRepository orderRepository;
-    private final OrderDetailMapper orderDetailMapper;
+    private final OrderBatchRepository orderBatchRepository;
+    private final OrderQueryService orderQueryService;
 
 
     /**
@@ -46,18 +46,8 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public Mono<OrderDetailResponse> getOrderDetails(String orderId) {
         return orderRedisReactiveService.getOrderFromCache(orderId)
-                .switchIfEmpty(
-                        Mono.defer(() -> Mono.fromCallable(() -> orderRepository.findByOrderIdWithHistories(orderId))
-                                .subscribeOn(Schedulers.boundedElastic())
-                                .flatMap(orderEntityOpt -> {
-                                    if (orderEntityOpt.isPresent()) {
-                                        OrderDetailResponse response = orderDetailMapper.toOrderDetailResponse(orderEntityOpt.get());
-                                        return Mono.just(response);
-                                    } else {
-                                        return Mono.error(new OrderNotFoundException("Order not found with ID: " + orderId));
-                                    }
-                                }))
-                )
+                .switchIfEmpty(Mono.defer(() -> orderQueryService.findOrderDetails(orderId)))
+                .switchIfEmpty(Mono.error(() -> new OrderNotFoundException(orderId)))
                 .onErrorResume(OrderNotFoundException.class, Mono::error)
                 .onErrorResume(e -> {
                     if (!(e instanceof OrderNotFoundException)) {
@@ -71,30 +61,47 @@ public class OrderServiceImpl implements OrderService {
 
 
 
+    /**
+     * Fetches a page of a user's orders, newest first.
+     * Without a cursor the page is read from the cache and falls back to the database. With a cursor the orders
+     * after it are read from the database with a keyset query, so deep pages cost the same as the first one.
+     * Histories of the page are loaded with one query for all of its orders.
+     *
+     * @param userId The ID of the user whose orders are to be fetched.
+     * @param page   The page number, used when no cursor is given.
+     * @param size   The page size.
+     * @param after  The cursor of the last order of the previous page, or null.
+     * @return A Flux emitting the orders of the page.
+     */
     @Override
-    public Flux<OrderDetailResponse> getUserOrders(Long userId, Integer page, Integer size) {
+    public Flux<OrderDetailResponse> getUserOrders(Long userId, Integer page, Integer size, OrderCursor after) {
         int currentPage = page != null ? page : 0;
         int pageSize = size != null ? size : 10;
 
-        Pageable pageable = PageRequest.of(currentPage, pageSize, Sort.by(Sort.Order.desc("createdAt")));
-        return orderRedisReactiveService.getLastOrdersForUser(userId, currentPage, pageSize)
-                .switchIfEmpty(
-                        Flux.defer(() -> Mono.fromCallable(() -> orderRepository.findOrdersForUser(userId, pageable))
-                                .subscribeOn(Schedulers.boundedElastic())
-                                .flatMapMany(ordersPage -> {
-                                    List<OrderDetailResponse> responses = ordersPage.getContent().stream()
-                                            .map(orderDetailMapper::toOrderDetailResponse)
-                                            .collect(Collectors.toList());
-                                    return Flux.fromIterable(responses);
-                                }))
-                )
-                .onErrorResume(e -> {
-                    String errorMsg = "An error occurred while fetching orders for user ID: " + userId;
-                    log.error(errorMsg, e);
-                    return Flux.error(new RuntimeException(errorMsg, e));
-                });
+        Flux<OrderDetailResponse> orders = after != null
+                ? orderQueryService.findUserOrdersAfter(userId, after, pageSize)
+                : orderRedisReactiveService.getLastOrdersForUser(userId, currentPage, pageSize)
+                        .switchIfEmpty(Flux.defer(() -> orderQueryService.findUserOrders(userId, pageSize, currentPage * pageSize)));
+
+        return orders.onErrorResume(e -> {
+            String errorMsg = "An error occurred while fetching orders for user ID: " + userId;
+            log.error(errorMsg, e);
+            return Flux.error(new RuntimeException(errorMsg, e));
+        });
     }
 
+    /**
+     * Streams every order of a user with its histories from the database, newest first, for exports.
+     * The orders are read while they are written to the client, so memory use does not grow with their number.
+     *
+     * @param userId The ID of the user whose orders are to be exported.
+     * @return A Flux emitting all orders of the user.
+     */
+    @Override
+    public Flux<OrderDetailResponse> exportUserOrders(Long userId) {
+        return orderQueryService.streamUserOrders(userId)
+                .doOnError(e -> log.error("An error occurred while exporting orders for user ID: {}", userId, e));
+    }
 
     @Override
     @Transactional
@@ -102,6 +109,20 @@ public class OrderServiceImpl implements OrderService {
         orderRepository.save(prepareOrderEntity(orderEvent, orderStatus));
     }
 
+    /**
+     * Saves the given orders with a single JDBC batch. Orders that already exist get their status updated.
+     *
+     * @param orderStatuses the order events, in the order they were processed, with their final status.
+     */
+    @Override
+    @Transactional
+    public void saveOrders(Map<OrderEvent, OrderStatus> orderStatuses) {
+        List<OrderEntity> orders = orderStatuses.entrySet().stream()
+                .map(entry -> prepareOrderEntity(entry.getKey(), entry.getValue()))
+                .toList();
+        orderBatchRepository.upsertOrders(orders);
+    }
+
 
     private OrderEntity prepareOrderEntity(OrderEvent orderEvent, OrderStatus orderStatus) {
         OrderEntity order = new OrderEntity();
@@ -111,7 +132,8 @@ public class OrderServiceImpl implements OrderService {
         order.setQuantity(orderEvent.getQuantity());
         order.setOrderType(orderEvent.getOrderType());
         order.setStatus(orderStatus);
-        order.setCreatedAt(LocalDateTime.now());
+        // The accept time, which user order pages and their cursors are ordered by
+        order.setCreatedAt(orderEvent.getCreatedAt() != null ? orderEvent.getCreatedAt().truncatedTo(ChronoUnit.MICROS) : LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
         return order;
     }
@@ -0,0 +1,66 @@
+package com.midas.studycase.brokerageapi.service.impl;
+
+import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
+import com.midas.studycase.brokerageapi.model.mapper.OrderDetailMapper;
+import com.midas.studycase.brokerageapi.model.request.OrderCursor;
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import com.midas.studycase.brokerageapi.repository.OrderR2dbcRepository;
+import com.midas.studycase.brokerageapi.service.OrderQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reads orders with R2DBC on the event loop of the driver, without handing off to a blocking thread pool.
+ */
+@Service
+@Profile("r2dbc")
+@RequiredArgsConstructor
+public class R2dbcOrderQueryService implements OrderQueryService {
+
+    private final OrderR2dbcRepository orderR2dbcRepository;
+    private final OrderDetailMapper orderDetailMapper;
+
+    @Override
+    public Mono<OrderDetailResponse> findOrderDetails(String orderId) {
+        return orderR2dbcRepository.findByOrderId(orderId)
+                .flatMapMany(order -> withHistories(List.of(order)))
+                .next();
+    }
+
+    @Override
+    public Flux<OrderDetailResponse> findUserOrders(Long userId, int limit, int offset) {
+        return orderR2dbcRepository.findOrdersForUser(userId, limit, offset)
+                .collectList()
+                .flatMapMany(this::withHistories);
+    }
+
+    @Override
+    public Flux<OrderDetailResponse> findUserOrdersAfter(Long userId, OrderCursor after, int limit) {
+        return orderR2dbcRepository.findOrdersForUserAfter(userId, after.createdAt(), after.orderId(), limit)
+                .collectList()
+                .flatMapMany(this::withHistories);
+    }
+
+    @Override
+    public Flux<OrderDetailResponse> streamUserOrders(Long userId) {
+        return orderR2dbcRepository.streamOrdersWithHistoriesForUser(userId)
+                .bufferUntilChanged(row -> row.order().getOrderId())
+                .map(orderDetailMapper::toOrderDetailResponseFromRows);
+    }
+
+    private Flux<OrderDetailResponse> withHistories(List<OrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return Flux.empty();
+        }
+
+        List<String> orderIds = orders.stream().map(OrderEntity::getOrderId).toList();
+        return orderR2dbcRepository.findHistoriesByOrderIds(orderIds)
+                .collectList()
+                .flatMapIterable(histories -> orderDetailMapper.toOrderDetailResponses(orders, histories));
+    }
+}
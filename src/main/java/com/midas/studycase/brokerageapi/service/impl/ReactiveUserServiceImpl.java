@@ -0,0 +1,64 @@
+package com.midas.studycase.brokerageapi.service.impl;
+
+import com.midas.studycase.brokerageapi.model.request.CreateUserRequest;
+import com.midas.studycase.brokerageapi.model.response.CreateUserResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserDetailResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserPageResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserResponseList;
+import com.midas.studycase.brokerageapi.service.ReactiveUserService;
+import com.midas.studycase.brokerageapi.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive facade over {@link UserService}. The JPA calls, and the transaction of {@code createUser}, run on the
+ * bounded elastic scheduler, so request threads never wait on JDBC.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private final UserService userService;
+
+    @Value("${user.list.max-page-size:100}")
+    private int streamPageSize;
+
+    @Override
+    public Mono<CreateUserResponse> createUser(CreateUserRequest request) {
+        return Mono.fromCallable(() -> userService.createUser(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<GetUserResponseList> listAllUsers() {
+        return Mono.fromCallable(userService::listAllUsers)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<GetUserPageResponse> listUsers(Long after, Integer pageSize) {
+        return Mono.fromCallable(() -> userService.listUsers(after, pageSize))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Streams every user in id order. The users are read one keyset page at a time, and the next page is only
+     * read once the previous one has been written out, so a single page is held in memory.
+     */
+    @Override
+    public Flux<GetUserResponseList.User> streamUsers() {
+        return listUsers(null, streamPageSize)
+                .expand(page -> page.getNextCursor() == null ? Mono.empty() : listUsers(page.getNextCursor(), streamPageSize))
+                .concatMapIterable(GetUserPageResponse::getUsers);
+    }
+
+    @Override
+    public Mono<GetUserDetailResponse> getUserById(Long userId) {
+        return Mono.fromCallable(() -> userService.getUserById(userId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -2,30 +2,46 @@ package com.midas.studycase.brokerageapi.service.impl;
 
 import com.midas.studycase.brokerageapi.exception.ExceedingSystemStockLimitException;
 import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
+import com.midas.studycase.brokerageapi.exception.OrderProcessingException;
 import com.midas.studycase.brokerageapi.exception.StockNotFoundException;
 import com.midas.studycase.brokerageapi.model.entity.StockEntity;
 import com.midas.studycase.brokerageapi.model.entity.UserStockEntity;
 import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.event.UserNotification;
 import com.midas.studycase.brokerageapi.repository.StockEntityRepository;
 import com.midas.studycase.brokerageapi.repository.UserStockEntityRepository;
 import com.midas.studycase.brokerageapi.service.OrderHistoryService;
 import com.midas.studycase.brokerageapi.service.OrderService;
 import com.midas.studycase.brokerageapi.service.StockService;
 import com.midas.studycase.brokerageapi.service.cache.OrderRedisService;
+import com.midas.studycase.brokerageapi.service.cache.OrderStatusStreamService;
 import com.midas.studycase.brokerageapi.service.cache.StockCacheService;
+import com.midas.studycase.brokerageapi.service.cache.StockReservationService;
 import com.midas.studycase.brokerageapi.service.producer.NotifyProducerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 
 /**
@@ -35,6 +51,7 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "order.engine", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class StockServiceImpl implements StockService {
     private static final String INSUFFICIENT_STOCK_MESSAGE = "Insufficient stock";
     private static final String STOCK_NOT_FOUND_MESSAGE = "Stock not found for ticker: ";
@@ -45,19 +62,25 @@ public class StockServiceImpl implements StockService {
     private final OrderService orderService;
     private final OrderHistoryService orderHistoryService;
     private final StockCacheService stockCacheService;
+    private final StockReservationService stockReservationService;
     private final OrderRedisService orderRedisService;
+    private final OrderStatusStreamService orderStatusStreamService;
     private final RedissonClient redissonClient;
+    private final TransactionTemplate transactionTemplate;
 
 
 
     @Value("${system.stock.limit}")
     private int systemStockLimit;
 
+    @Value("${order.lock.enabled:false}")
+    private boolean orderLockEnabled;
+
 
     /**
      * Processes a buy order based on the provided order event. This method ensures that the order processing
      * is thread-safe by acquiring a distributed lock using Redisson. If the lock cannot be acquired within
-     * a specified timeout, the order processing is aborted.
+     * a specified timeout, the order processing is aborted and retried later.
      *
      * <p>Once the lock is acquired, the method attempts to handle the buy order. If any specific exceptions
      * related to stock availability or stock not being found are encountered, they are handled using the
@@ -79,10 +102,9 @@ public class StockServiceImpl implements StockService {
         boolean isLockAcquired = false;
 
         try {
-            isLockAcquired = lock.tryLock(10, TimeUnit.SECONDS);
+            isLockAcquired = tryLockOrder(lock);
             if (!isLockAcquired) {
-                log.warn("Unable to acquire lock for order: {}. Order processing aborted.", orderEvent.getOrderId());
-                return;
+                throw new OrderProcessingException("Unable to acquire lock for order: " + orderEvent.getOrderId() + ". Order processing aborted.");
             }
 
             log.info("Processing buy order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
@@ -92,11 +114,11 @@ public class StockServiceImpl implements StockService {
             handleOrderException(orderEvent, e);
         } catch (Exception e) {
             log.error("Unexpected error processing order for user: {}. OrderId: {}. Reason: {}", orderEvent.getUserId(), orderEvent.getOrderId(), e.getMessage());
+            rethrowIfRetryable(e);
             handleGenericException(orderEvent, e);
         } finally {
             if (isLockAcquired) {
-                lock.unlock();
-                log.info("Lock released for order: {}", orderEvent.getOrderId());
+                unlockOrder(lock, orderEvent);
             }
         }
     }
@@ -104,7 +126,7 @@ public class StockServiceImpl implements StockService {
     /**
      * Processes a sell order based on the provided order event. This method ensures that the order processing
      * is thread-safe by acquiring a distributed lock using Redisson. If the lock cannot be acquired within
-     * a specified timeout, the order processing is aborted.
+     * a specified timeout, the order processing is aborted and retried later.
      *
      * <p>Once the lock is acquired, the method attempts to handle the sell order. If any specific exceptions
      * related to stock availability, stock not being found, or exceeding system stock limits are encountered,
@@ -127,10 +149,9 @@ public class StockServiceImpl implements StockService {
         boolean isLockAcquired = false;
 
         try {
-            isLockAcquired = lock.tryLock(10, TimeUnit.SECONDS);
+            isLockAcquired = tryLockOrder(lock);
             if (!isLockAcquired) {
-                log.warn("Unable to acquire lock for order: {}. Order processing aborted.", orderEvent.getOrderId());
-                return;
+                throw new OrderProcessingException("Unable to acquire lock for order: " + orderEvent.getOrderId() + ". Order processing aborted.");
             }
 
             log.info("Processing sell order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
@@ -140,11 +161,11 @@ public class StockServiceImpl implements StockService {
             handleOrderException(orderEvent, e);
         } catch (Exception e) {
             log.error("Unexpected error processing order for user: {}. OrderId: {}. Reason: {}", orderEvent.getUserId(), orderEvent.getOrderId(), e.getMessage());
+            rethrowIfRetryable(e);
             handleGenericException(orderEvent, e);
         } finally {
             if (isLockAcquired) {
-                lock.unlock();
-                log.info("Lock released for order: {}", orderEvent.getOrderId());
+                unlockOrder(lock, orderEvent);
             }
         }
     }
@@ -152,7 +173,7 @@ public class StockServiceImpl implements StockService {
     /**
      * Processes a cancel order request based on the provided order event. This method ensures that the order cancellation
      * is thread-safe by acquiring a distributed lock using Redisson. If the lock cannot be acquired within
-     * a specified timeout, the order cancellation is aborted.
+     * a specified timeout, the order cancellation is aborted and retried later.
      *
      * <p>Once the lock is acquired, the method attempts to handle the cancel order request. Any unexpected exceptions
      * encountered during the cancellation process are handled using the {@code handleGenericException} method.</p>
@@ -170,22 +191,210 @@ public class StockServiceImpl implements StockService {
         boolean isLockAcquired = false;
 
         try {
-            isLockAcquired = lock.tryLock(10, TimeUnit.SECONDS);
+            isLockAcquired = tryLockOrder(lock);
             if (!isLockAcquired) {
-                log.warn("Unable to acquire lock for order: {}. Order cancellation aborted.", orderEvent.getOrderId());
-                return;
+                throw new OrderProcessingException("Unable to acquire lock for order: " + orderEvent.getOrderId() + ". Order cancellation aborted.");
             }
 
             log.info("Processing cancel order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
             handleCancelOrder(orderEvent);
         } catch (Exception e) {
             log.error("Unexpected error processing cancel order for user: {}. OrderId: {}. Reason: {}", orderEvent.getUserId(), orderEvent.getOrderId(), e.getMessage());
+            rethrowIfRetryable(e);
             handleGenericException(orderEvent, e);
         } finally {
             if (isLockAcquired) {
-                lock.unlock();
-                log.info("Lock released for order: {}", orderEvent.getOrderId());
+                unlockOrder(lock, orderEvent);
+            }
+        }
+    }
+
+    /**
+     * Processes a batch of order events, typically one Kafka poll, in a single database transaction.
+     * <p>
+     * Events are validated and applied in order against in-memory copies of the stock quantities and user
+     * positions they touch, and the net change of the batch is written once per stock and position with the
+     * same guarded relative UPDATEs as the one-by-one path, so concurrent writers do not conflict with the
+     * batch. Orders and their histories are written with JDBC batch inserts. Caches are updated and users
+     * notified only after the transaction has been committed, and only on a best effort basis: a failure there
+     * is logged and not rethrown, since the batch must not be applied a second time. Cached entries expire and
+     * the reservation counters are reconciled, which repairs what a failed update left behind.
+     * </p>
+     *
+     * <p>Business rule violations fail the single order, as in the one-by-one path. Any other exception,
+     * including a guard that no longer holds because the stock changed under the batch, rolls back the whole
+     * batch and is rethrown, so the caller can fall back to processing the events one at a time. An exception
+     * therefore always means that nothing of the batch was committed.</p>
+     *
+     * @param orderEvents the order events to be processed, in the order they were consumed.
+     */
+    @Override
+    public void processOrderBatch(List<OrderEvent> orderEvents) {
+        log.info("Processing batch of {} order events", orderEvents.size());
+        BatchState state = new BatchState();
+        List<BatchOutcome> outcomes = transactionTemplate.execute(status -> applyOrderBatch(orderEvents, state));
+
+        state.persistedStockQuantities.forEach((ticker, quantity) ->
+                afterBatchCommit(() -> stockCacheService.updateStockInCache(ticker, quantity), "update the cached stock of", ticker));
+        for (BatchOutcome outcome : outcomes) {
+            OrderEvent orderEvent = outcome.orderEvent();
+            if (outcome.status() != null) {
+                afterBatchCommit(() -> updateOrderStatusInCache(orderEvent, outcome.status()), "update the cached status of order", orderEvent.getOrderId());
+            }
+            afterBatchCommit(() -> notifyService.notifyOrder(orderEvent, outcome.outcome(), outcome.notification()), "notify order", orderEvent.getOrderId());
+        }
+    }
+
+    /**
+     * Runs a side effect of a committed batch, logging instead of rethrowing its failure.
+     */
+    private void afterBatchCommit(Runnable sideEffect, String action, String subject) {
+        try {
+            sideEffect.run();
+        } catch (Exception e) {
+            log.error("Failed to {} {} after its batch was committed", action, subject, e);
+        }
+    }
+
+    private List<BatchOutcome> applyOrderBatch(List<OrderEvent> orderEvents, BatchState state) {
+        List<BatchOutcome> outcomes = new ArrayList<>();
+        for (OrderEvent orderEvent : orderEvents) {
+            applyBatchOrder(orderEvent, state).ifPresent(outcomes::add);
+        }
+
+        persistStockChanges(state);
+        persistUserStockChanges(state);
+
+        Map<OrderEvent, OrderStatus> orderStatuses = new LinkedHashMap<>();
+        Map<OrderEvent, Optional<String>> reasons = new LinkedHashMap<>();
+        for (BatchOutcome outcome : outcomes) {
+            if (outcome.status() != null) {
+                orderStatuses.put(outcome.orderEvent(), outcome.status());
+            }
+            reasons.put(outcome.orderEvent(), outcome.reason());
+        }
+        orderService.saveOrders(orderStatuses);
+        orderHistoryService.saveOrderHistories(reasons);
+        return outcomes;
+    }
+
+    /**
+     * Applies the net change of the batch to every stock it touched with one guarded UPDATE per ticker.
+     *
+     * @throws OrderProcessingException if a stock no longer allows the change, which rolls back the batch.
+     */
+    private void persistStockChanges(BatchState state) {
+        state.stockChanges.forEach((ticker, change) -> {
+            Integer quantity;
+            if (change < 0) {
+                quantity = stockRepository.decrementQuantityIfAvailable(ticker, -change);
+            } else if (change > 0) {
+                quantity = stockRepository.incrementQuantityWithinLimit(ticker, change, systemStockLimit);
+            } else {
+                return;
+            }
+            if (quantity == null) {
+                throw new OrderProcessingException("Stock of " + ticker + " changed while its batch was processed");
             }
+            state.persistedStockQuantities.put(ticker, quantity);
+        });
+    }
+
+    /**
+     * Applies the net change of the batch to every user position it touched with one atomic UPDATE each.
+     *
+     * @throws OrderProcessingException if a user no longer owns enough, which rolls back the batch.
+     */
+    private void persistUserStockChanges(BatchState state) {
+        state.positionChanges.forEach((key, change) -> {
+            Long userId = state.positionOwners.get(key).userId();
+            String ticker = state.positionOwners.get(key).ticker();
+            if (change > 0) {
+                userStockRepository.incrementQuantity(userId, ticker, change);
+            } else if (change < 0 && userStockRepository.decrementQuantityIfAvailable(userId, ticker, -change) == null) {
+                throw new OrderProcessingException("Position of user " + userId + " in " + ticker + " changed while its batch was processed");
+            }
+        });
+    }
+
+    private Optional<BatchOutcome> applyBatchOrder(OrderEvent orderEvent, BatchState state) {
+        try {
+            return switch (orderEvent.getOrderType()) {
+                case BUY -> Optional.of(applyBatchBuyOrder(orderEvent, state));
+                case SELL -> Optional.of(applyBatchSellOrder(orderEvent, state));
+                case CANCEL -> applyBatchCancelOrder(orderEvent);
+            };
+        } catch (InsufficientStockException | StockNotFoundException | ExceedingSystemStockLimitException e) {
+            log.error("Error processing order for user: {}. OrderId: {}. Reason: {}", orderEvent.getUserId(), orderEvent.getOrderId(), e.getMessage());
+            return Optional.of(new BatchOutcome(orderEvent, OrderStatus.FAILED, Optional.of(e.getMessage()), e.getMessage()));
+        }
+    }
+
+    private BatchOutcome applyBatchBuyOrder(OrderEvent orderEvent, BatchState state) {
+        if (isOrderCancelled(orderEvent.getOrderId())) {
+            return cancelledOutcome(orderEvent);
+        }
+
+        int stockQuantity = state.stockQuantities.computeIfAbsent(orderEvent.getTicker(), ticker -> getStockEntity(ticker).getQuantity());
+        validateStockAvailability(stockQuantity, orderEvent.getQuantity());
+
+        Integer position = state.position(orderEvent, this::findPosition);
+        state.changeStock(orderEvent.getTicker(), stockQuantity, -orderEvent.getQuantity());
+        state.changePosition(orderEvent, position == null ? 0 : position, orderEvent.getQuantity());
+        return new BatchOutcome(orderEvent, OrderStatus.COMPLETED, Optional.empty(), "Order successful. " + orderEvent.getQuantity() + " stocks bought.");
+    }
+
+    private BatchOutcome applyBatchSellOrder(OrderEvent orderEvent, BatchState state) {
+        if (isOrderCancelled(orderEvent.getOrderId())) {
+            return cancelledOutcome(orderEvent);
+        }
+
+        Integer position = state.position(orderEvent, this::findPosition);
+        validateUserStockQuantity(position, orderEvent.getTicker(), orderEvent.getQuantity());
+
+        int stockQuantity = state.stockQuantities.computeIfAbsent(orderEvent.getTicker(), ticker -> getStockEntity(ticker).getQuantity());
+        validateSystemStockLimit(stockQuantity, orderEvent.getTicker(), orderEvent.getQuantity());
+
+        state.changeStock(orderEvent.getTicker(), stockQuantity, orderEvent.getQuantity());
+        state.changePosition(orderEvent, position, -orderEvent.getQuantity());
+        return new BatchOutcome(orderEvent, OrderStatus.COMPLETED, Optional.empty(), "Order successful. " + orderEvent.getQuantity() + " stocks sold.");
+    }
+
+    private Optional<BatchOutcome> applyBatchCancelOrder(OrderEvent orderEvent) {
+        if (isOrderCancelled(orderEvent.getOrderId())) {
+            return Optional.empty();
+        }
+        return Optional.of(new BatchOutcome(orderEvent, null, Optional.empty(),
+                "Your order with ID " + orderEvent.getOrderId() + " has already been processed and cannot be cancelled."));
+    }
+
+    private BatchOutcome cancelledOutcome(OrderEvent orderEvent) {
+        log.warn("Order with ID {} was already cancelled.", orderEvent.getOrderId());
+        return new BatchOutcome(orderEvent, OrderStatus.CANCELLED, Optional.empty(),
+                "Your order with ID " + orderEvent.getOrderId() + " has been successfully cancelled.");
+    }
+
+    private Integer findPosition(OrderEvent orderEvent) {
+        UserStockEntity userStock = userStockRepository.findByUserIdAndTicker(orderEvent.getUserId(), orderEvent.getTicker());
+        return userStock == null ? null : userStock.getQuantity();
+    }
+
+    /**
+     * Acquires the distributed lock of an order. When order events are keyed and consumed with
+     * partition affinity, the events of an order are never processed concurrently and the lock can be
+     * disabled with {@code order.lock.enabled=false}, which saves the Redis round trips.
+     *
+     * @param lock the lock of the order.
+     * @return true if the lock is held or locking is disabled.
+     */
+    private boolean tryLockOrder(RLock lock) throws InterruptedException {
+        return !orderLockEnabled || lock.tryLock(10, TimeUnit.SECONDS);
+    }
+
+    private void unlockOrder(RLock lock, OrderEvent orderEvent) {
+        if (orderLockEnabled) {
+            lock.unlock();
+            log.info("Lock released for order: {}", orderEvent.getOrderId());
         }
     }
 
@@ -208,22 +417,22 @@ public class StockServiceImpl implements StockService {
         }
 
         Integer currentStock = getCachedStock(orderEvent.getTicker());
+        if (currentStock == null || currentStock < orderEvent.getQuantity()) {
+            currentStock = reloadCachedStock(orderEvent.getTicker());
+        }
         validateStockAvailability(currentStock, orderEvent.getQuantity());
 
-        StockEntity stock = getStockEntity(orderEvent.getTicker());
-        validateStockQuantity(stock, orderEvent.getQuantity());
-
-        continueBuyOrderProcess(orderEvent, stock);
+        continueBuyOrderProcess(orderEvent);
     }
 
-    private void continueBuyOrderProcess(OrderEvent orderEvent, StockEntity stock) {
-        adjustStockQuantityAfterBuy(stock, orderEvent.getQuantity());
+    private void continueBuyOrderProcess(OrderEvent orderEvent) {
+        adjustStockQuantityAfterBuy(orderEvent.getTicker(), orderEvent.getQuantity());
         adjustUserStockQuantityAfterBuy(orderEvent);
         persistOrder(orderEvent, OrderStatus.COMPLETED);
         persistOrderHistory(orderEvent, Optional.empty());
         updateOrderStatusInCache(orderEvent, OrderStatus.COMPLETED);
 
-        notifyService.notifyUser(orderEvent.getUserId(), "Order successful. " + orderEvent.getQuantity() + " stocks bought.");
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.COMPLETED, "Order successful. " + orderEvent.getQuantity() + " stocks bought.");
     }
 
 
@@ -250,15 +459,13 @@ public class StockServiceImpl implements StockService {
         ensureUserHasSufficientStocks(orderEvent.getUserId(), orderEvent.getTicker(), orderEvent.getQuantity());
         ensureSystemHasSufficientStocksAfterSell(orderEvent.getTicker(), orderEvent.getQuantity());
 
-        StockEntity stock = getStockEntity(orderEvent.getTicker());
-
-        adjustStockQuantityAfterSell(stock, orderEvent.getQuantity());
+        adjustStockQuantityAfterSell(orderEvent.getTicker(), orderEvent.getQuantity());
         adjustUserStockQuantityAfterSell(orderEvent);
         persistOrder(orderEvent, OrderStatus.COMPLETED);
         persistOrderHistory(orderEvent, Optional.empty() );
         updateOrderStatusInCache(orderEvent, OrderStatus.COMPLETED);
 
-        notifyService.notifyUser(orderEvent.getUserId(), "Order successful. " + orderEvent.getQuantity() + " stocks sold.");
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.COMPLETED, "Order successful. " + orderEvent.getQuantity() + " stocks sold.");
     }
 
     /**
@@ -275,7 +482,7 @@ public class StockServiceImpl implements StockService {
 
         if (isOrderNotCancelled(orderEvent.getOrderId())) {
             persistOrderHistory(orderEvent, Optional.empty());
-            notifyService.notifyUser(orderEvent.getUserId(), "Your order with ID " + orderEvent.getOrderId() + " has already been processed and cannot be cancelled.");
+            notifyService.notifyOrder(orderEvent, UserNotification.Outcome.CANCEL_REJECTED, "Your order with ID " + orderEvent.getOrderId() + " has already been processed and cannot be cancelled.");
         }
     }
 
@@ -301,15 +508,24 @@ public class StockServiceImpl implements StockService {
 
     /**
      * Updates the stock quantity in the database and cache after a sell order.
+     * <p>
+     * The quantity is returned with a single conditional UPDATE, so the system stock limit is enforced by
+     * the database even when the cached quantity is stale, and the new quantity is written straight to the cache.
+     * </p>
      *
-     * @param stock         the stock entity.
+     * @param ticker        the ticker of the stock.
      * @param orderQuantity the quantity of the order.
+     * @throws StockNotFoundException             if the stock does not exist.
+     * @throws ExceedingSystemStockLimitException if the system's stock limit would be exceeded.
      */
-    private void adjustStockQuantityAfterSell(StockEntity stock, int orderQuantity) {
-        log.debug("Updating stock after sell for: {}", stock.getTicker());
-        stock.setQuantity(stock.getQuantity() + orderQuantity);
-        stockRepository.save(stock);
-        stockCacheService.updateStockInCache(stock.getTicker(), stock.getQuantity());
+    private void adjustStockQuantityAfterSell(String ticker, int orderQuantity) {
+        log.debug("Updating stock after sell for: {}", ticker);
+        Integer newQuantity = stockRepository.incrementQuantityWithinLimit(ticker, orderQuantity, systemStockLimit);
+        if (newQuantity == null) {
+            ensureStockExists(ticker);
+            throw new ExceedingSystemStockLimitException("Selling this quantity will exceed the system's stock limit for " + ticker);
+        }
+        stockCacheService.updateStockInCache(ticker, newQuantity);
     }
 
     /**
@@ -386,13 +602,16 @@ public class StockServiceImpl implements StockService {
      */
     private void ensureUserHasSufficientStocks(Long userId, String stockName, int quantity) {
         UserStockEntity userStock = userStockRepository.findByUserIdAndTicker(userId, stockName);
+        validateUserStockQuantity(userStock == null ? null : userStock.getQuantity(), stockName, quantity);
+    }
 
-        if (userStock == null) {
+    private void validateUserStockQuantity(Integer ownedQuantity, String stockName, int quantity) {
+        if (ownedQuantity == null) {
             throw new InsufficientStockException("User does not own any stocks of " + stockName);
         }
 
-        if (userStock.getQuantity() < quantity) {
-            throw new InsufficientStockException("User does not have enough stocks of " + stockName + " to sell. Owned: " + userStock.getQuantity() + ", Requested to sell: " + quantity);
+        if (ownedQuantity < quantity) {
+            throw new InsufficientStockException("User does not have enough stocks of " + stockName + " to sell. Owned: " + ownedQuantity + ", Requested to sell: " + quantity);
         }
     }
 
@@ -409,7 +628,14 @@ public class StockServiceImpl implements StockService {
      * @throws ExceedingSystemStockLimitException if selling the given quantity will exceed the system's stock limit.
      */
     private void ensureSystemHasSufficientStocksAfterSell(String ticker, int quantity) {
-        Integer currentSystemStock = getCachedStock(ticker);
+        int currentStock = getCachedStock(ticker);
+        if (currentStock + quantity > systemStockLimit) {
+            currentStock = reloadCachedStock(ticker);
+        }
+        validateSystemStockLimit(currentStock, ticker, quantity);
+    }
+
+    private void validateSystemStockLimit(int currentSystemStock, String ticker, int quantity) {
         if (currentSystemStock + quantity > systemStockLimit) {
             throw new ExceedingSystemStockLimitException("Selling this quantity will exceed the system's stock limit for " + ticker);
         }
@@ -427,6 +653,23 @@ public class StockServiceImpl implements StockService {
         return stockCacheService.getCachedStock(ticker);
     }
 
+    /**
+     * Reloads the cached stock quantity from the database before it rejects an order.
+     * <p>
+     * Without the order lock, orders of a ticker are also processed from the retry topics, which run on their
+     * own threads, so a cache write can land after a newer one and leave a stale quantity. The guarded UPDATEs
+     * keep the stored quantity exact either way; reloading keeps a stale cache from failing a valid order.
+     * </p>
+     *
+     * @param ticker the name of the stock.
+     * @return the stock quantity in the database.
+     */
+    private Integer reloadCachedStock(String ticker) {
+        log.debug("Reloading cached stock for: {}", ticker);
+        stockCacheService.evictStockFromCache(ticker);
+        return stockCacheService.getCachedStock(ticker);
+    }
+
     private void validateStockAvailability(Integer currentStock, int orderQuantity) {
         log.debug("Validating stock availability for order quantity: {}", orderQuantity);
         if (currentStock == null || currentStock < orderQuantity) {
@@ -443,24 +686,33 @@ public class StockServiceImpl implements StockService {
         return stock;
     }
 
-    private void validateStockQuantity(StockEntity stock, int orderQuantity) {
-        log.debug("Validating stock quantity for order quantity: {}", orderQuantity);
-        if (stock.getQuantity() < orderQuantity) {
-            throw new InsufficientStockException(INSUFFICIENT_STOCK_MESSAGE);
-        }
-    }
-
     /**
      * Updates the stock quantity in the database and cache.
+     * <p>
+     * The quantity is taken with a single conditional UPDATE instead of a read followed by a versioned save,
+     * so concurrent buys on the same ticker never oversell and never fail on an optimistic lock. The remaining
+     * quantity returned by the database is written straight to the cache.
+     * </p>
      *
-     * @param stock         the stock entity.
+     * @param ticker        the ticker of the stock.
      * @param orderQuantity the quantity of the order.
+     * @throws StockNotFoundException     if the stock does not exist.
+     * @throws InsufficientStockException if the stock does not hold enough quantity.
      */
-    private void adjustStockQuantityAfterBuy(StockEntity stock, int orderQuantity) {
-        log.debug("Updating stock for: {}", stock.getTicker());
-        stock.setQuantity(stock.getQuantity() - orderQuantity);
-        stockRepository.save(stock);
-        stockCacheService.updateStockInCache(stock.getTicker(), stock.getQuantity());
+    private void adjustStockQuantityAfterBuy(String ticker, int orderQuantity) {
+        log.debug("Updating stock for: {}", ticker);
+        Integer remainingQuantity = stockRepository.decrementQuantityIfAvailable(ticker, orderQuantity);
+        if (remainingQuantity == null) {
+            ensureStockExists(ticker);
+            throw new InsufficientStockException(INSUFFICIENT_STOCK_MESSAGE);
+        }
+        stockCacheService.updateStockInCache(ticker, remainingQuantity);
+    }
+
+    private void ensureStockExists(String ticker) {
+        if (!stockRepository.existsByTicker(ticker)) {
+            throw new StockNotFoundException(STOCK_NOT_FOUND_MESSAGE + ticker);
+        }
     }
 
     /**
@@ -471,15 +723,33 @@ public class StockServiceImpl implements StockService {
      */
     private void handleOrderException(OrderEvent orderEvent, Exception e) {
         log.warn(e.getMessage() + " for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
-        notifyService.notifyUser(orderEvent.getUserId(), e.getMessage());
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.FAILED, e.getMessage());
         persistOrder(orderEvent, OrderStatus.FAILED);
         persistOrderHistory(orderEvent, Optional.of(e.getMessage()));
         updateOrderStatusInCache(orderEvent, OrderStatus.FAILED);
     }
 
+    /**
+     * Rethrows failures that may succeed on a later attempt, such as a lock held by another node or an
+     * unreachable database or Redis. The transaction is rolled back and the event is retried from the retry
+     * topics instead of the order being marked as failed. Shared with {@link OrderEngineStockServiceImpl} so
+     * both implementations only fail an order on errors that a retry cannot fix.
+     *
+     * @param e the exception.
+     */
+    static void rethrowIfRetryable(Exception e) {
+        if (e instanceof OrderProcessingException orderProcessingException) {
+            throw orderProcessingException;
+        }
+        if (e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException || e instanceof RedisException) {
+            throw new OrderProcessingException("Order processing failed with a retryable error: " + e.getMessage(), e);
+        }
+    }
+
     private void handleGenericException(OrderEvent orderEvent, Exception e) {
         log.error("An error occurred while processing the order for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId(), e);
-        notifyService.notifyUser(orderEvent.getUserId(), "Order failed due to a system error.");
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.FAILED, "Order failed due to a system error.");
         persistOrder(orderEvent, OrderStatus.FAILED);
         persistOrderHistory(orderEvent, Optional.of(e.getMessage()));
         updateOrderStatusInCache(orderEvent, OrderStatus.FAILED);
@@ -491,19 +761,90 @@ public class StockServiceImpl implements StockService {
         persistOrder(orderEvent, OrderStatus.CANCELLED);
         persistOrderHistory(orderEvent, Optional.empty());
         updateOrderStatusInCache(orderEvent, OrderStatus.CANCELLED);
-        notifyService.notifyUser(orderEvent.getUserId(), "Your order with ID " + orderEvent.getOrderId() + " has been successfully cancelled.");
+        notifyService.notifyOrder(orderEvent, UserNotification.Outcome.CANCELLED, "Your order with ID " + orderEvent.getOrderId() + " has been successfully cancelled.");
     }
 
     private void persistOrder(OrderEvent orderEvent, OrderStatus orderStatus) {
         orderService.saveOrder(orderEvent, orderStatus);
     }
 
+    /**
+     * Writes the final status of the order to the cache, settles the stock reservation taken when the
+     * order was accepted and streams the change to the clients of the user.
+     */
     private void updateOrderStatusInCache(OrderEvent orderEvent, OrderStatus orderStatus) {
         orderRedisService.updateOrderStatusInCache(orderEvent.getOrderId(), orderStatus);
+        stockReservationService.settle(orderEvent, orderStatus);
+        orderStatusStreamService.publish(orderEvent, orderStatus);
     }
     private void persistOrderHistory(OrderEvent orderEvent, Optional<String> errorMessage) {
         log.debug("Saving order history for user: {}. OrderId: {}", orderEvent.getUserId(), orderEvent.getOrderId());
         orderHistoryService.saveOrderHistory(orderEvent, errorMessage);
     }
 
+    /**
+     * The stock quantities and user positions a batch has seen, as changed by the orders applied so far, and
+     * the net change the batch makes to each of them.
+     */
+    private static class BatchState {
+        private final Map<String, Integer> stockQuantities = new HashMap<>();
+        private final Map<String, Integer> positions = new HashMap<>();
+        private final Map<String, Integer> stockChanges = new LinkedHashMap<>();
+        private final Map<String, Integer> positionChanges = new LinkedHashMap<>();
+        private final Map<String, PositionOwner> positionOwners = new HashMap<>();
+        private final Map<String, Integer> persistedStockQuantities = new LinkedHashMap<>();
+
+        Integer position(OrderEvent orderEvent, Function<OrderEvent, Integer> loader) {
+            String key = positionKey(orderEvent);
+            if (!positions.containsKey(key)) {
+                positions.put(key, loader.apply(orderEvent));
+            }
+            return positions.get(key);
+        }
+
+        void changeStock(String ticker, int quantity, int change) {
+            stockQuantities.put(ticker, quantity + change);
+            stockChanges.merge(ticker, change, Integer::sum);
+        }
+
+        void changePosition(OrderEvent orderEvent, int position, int change) {
+            String key = positionKey(orderEvent);
+            positions.put(key, position + change);
+            positionChanges.merge(key, change, Integer::sum);
+            positionOwners.putIfAbsent(key, new PositionOwner(orderEvent.getUserId(), orderEvent.getTicker()));
+        }
+
+        private static String positionKey(OrderEvent orderEvent) {
+            return orderEvent.getUserId() + ":" + orderEvent.getTicker();
+        }
+    }
+
+    private record PositionOwner(Long userId, String ticker) {
+    }
+
+    /**
+     * Result of one order event within a batch.
+     *
+     * @param orderEvent   the order event.
+     * @param status       the final status of the order, or null when only a history entry is written.
+     * @param reason       the failure reason recorded in the order history.
+     * @param notification the message sent to the user once the batch is committed.
+     */
+    private record BatchOutcome(OrderEvent orderEvent, OrderStatus status, Optional<String> reason, String notification) {
+
+        /**
+         * A cancel order without a status is a cancellation that came too late.
+         */
+        UserNotification.Outcome outcome() {
+            if (status == null) {
+                return UserNotification.Outcome.CANCEL_REJECTED;
+            }
+            return switch (status) {
+                case FAILED -> UserNotification.Outcome.FAILED;
+                case CANCELLED -> UserNotification.Outcome.CANCELLED;
+                default -> UserNotification.Outcome.COMPLETED;
+            };
+        }
+    }
+
 }
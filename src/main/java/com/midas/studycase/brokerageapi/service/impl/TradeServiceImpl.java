@@ -1,35 +1,53 @@
 package com.midas.studycase.brokerageapi.service.impl;
 
 import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.exception.OrderPublishRejectedException;
 import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
 import com.midas.studycase.brokerageapi.model.enums.OrderType;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.request.BatchOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.BuyOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.CancelOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.OrderRequest;
 import com.midas.studycase.brokerageapi.model.request.SellOrderRequest;
+import com.midas.studycase.brokerageapi.model.response.BatchOrderResponse;
 import com.midas.studycase.brokerageapi.model.response.OrderResponse;
 import com.midas.studycase.brokerageapi.service.TradeService;
 import com.midas.studycase.brokerageapi.service.cache.OrderRedisReactiveService;
+import com.midas.studycase.brokerageapi.service.cache.StockReservationService;
 import com.midas.studycase.brokerageapi.service.producer.OrderProducerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TradeServiceImpl implements TradeService {
+    private static final String PROCESSING_ERROR_MESSAGE = "An error occurred while processing the order. Please try again later.";
 
     private final OrderRedisReactiveService orderRedisReactiveService;
     private final OrderProducerService orderProducerService;
+    private final StockReservationService stockReservationService;
+
+    /**
+     * Reserves the order's quantity before accepting it, so a buy order that cannot be filled is rejected
+     * here instead of failing in the consumer. The reservation is released if the order cannot be published.
+     */
     @Override
     public Mono<OrderResponse> processBuyOrder(BuyOrderRequest order) {
-        return processOrderEvent(order, OrderType.BUY, KafkaConfig.BUY_ORDERS_TOPIC);
+        return prepareOrderEvent(order, OrderType.BUY)
+                .flatMap(orderEvent -> stockReservationService.reserve(orderEvent)
+                        .then(Mono.defer(() -> processOrderEvent(orderEvent, KafkaConfig.BUY_ORDERS_TOPIC)
+                                .onErrorResume(e -> stockReservationService.releaseReactive(orderEvent)
+                                        .then(Mono.error(e))))));
     }
 
     @Override
@@ -42,13 +60,110 @@ public class TradeServiceImpl implements TradeService {
         return processOrderEvent(order, OrderType.CANCEL, KafkaConfig.CANCELLED_ORDERS_TOPIC);
     }
 
+    /**
+     * Accepts a batch of orders with the same steps as the single order endpoints, but runs each step for the
+     * whole batch at once: buy orders reserve their quantity concurrently, every order is cached in one
+     * pipelined Redis batch and every event is sent before any acknowledgement is awaited.
+     * <p>
+     * An order that fails a step is left out of the following ones and reported as FAILED, and its cache
+     * entry and reservation are rolled back the same way as for a single order. The other orders of the
+     * batch are still accepted.
+     * </p>
+     *
+     * @param batchOrder The orders to be processed.
+     * @return A Mono emitting the outcome of each order, in the order of the request.
+     */
+    @Override
+    public Mono<BatchOrderResponse> processBatchOrder(BatchOrderRequest batchOrder) {
+        return Flux.fromIterable(batchOrder.getOrders())
+                .concatMap(order -> prepareOrderEvent(order, getOrderType(order)))
+                .map(BatchEntry::new)
+                .collectList()
+                .flatMap(entries -> reserveBatch(entries)
+                        .then(Mono.defer(() -> cacheBatch(entries)))
+                        .then(Mono.defer(() -> sendBatch(entries)))
+                        .then(Mono.defer(() -> rollbackFailedBatchEntries(entries)))
+                        .then(Mono.fromCallable(() -> new BatchOrderResponse(entries.stream().map(BatchEntry::toResult).toList()))));
+    }
+
+    private Mono<Void> reserveBatch(List<BatchEntry> entries) {
+        return Flux.fromIterable(entries)
+                .filter(entry -> entry.orderEvent.getOrderType() == OrderType.BUY)
+                .flatMap(entry -> stockReservationService.reserve(entry.orderEvent)
+                        .doOnNext(remaining -> entry.reserved = true)
+                        .onErrorResume(e -> {
+                            entry.failure = e.getMessage();
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private Mono<Void> cacheBatch(List<BatchEntry> entries) {
+        List<BatchEntry> pending = getPendingBatchEntries(entries);
+        return orderRedisReactiveService.cacheOrders(pending.stream().map(entry -> entry.orderEvent).toList(), OrderStatus.CREATED)
+                .doOnNext(cached -> {
+                    for (int i = 0; i < pending.size(); i++) {
+                        pending.get(i).cached = cached.get(i);
+                        if (!cached.get(i)) {
+                            log.error("Failed to write order with ID: {} to Redis", pending.get(i).orderEvent.getOrderId());
+                            pending.get(i).failure = PROCESSING_ERROR_MESSAGE;
+                        }
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("Error occurred while caching a batch of {} orders", pending.size(), e);
+                    pending.forEach(entry -> {
+                        entry.cached = true;
+                        entry.failure = PROCESSING_ERROR_MESSAGE;
+                    });
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> sendBatch(List<BatchEntry> entries) {
+        List<BatchEntry> pending = getPendingBatchEntries(entries);
+        return orderProducerService.sendOrderEvents(pending.stream().map(entry -> entry.orderEvent).toList(),
+                        orderEvent -> KafkaConfig.getOrderTopic(orderEvent.getOrderType()))
+                .doOnNext(sent -> {
+                    for (int i = 0; i < pending.size(); i++) {
+                        if (!sent.get(i)) {
+                            pending.get(i).failure = PROCESSING_ERROR_MESSAGE;
+                        }
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("Error occurred while sending a batch of {} orders", pending.size(), e);
+                    pending.forEach(entry -> entry.failure = PROCESSING_ERROR_MESSAGE);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> rollbackFailedBatchEntries(List<BatchEntry> entries) {
+        return Flux.fromIterable(entries)
+                .filter(entry -> entry.failure != null)
+                .flatMap(entry -> Mono.when(
+                                entry.cached ? orderRedisReactiveService.removeCachedOrder(entry.orderEvent.getOrderId(), entry.orderEvent.getUserId()) : Mono.empty(),
+                                entry.reserved ? stockReservationService.releaseReactive(entry.orderEvent) : Mono.empty())
+                        .onErrorResume(e -> {
+                            log.error("Error occurred while rolling back order ID: {}", entry.orderEvent.getOrderId(), e);
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+
+    private List<BatchEntry> getPendingBatchEntries(List<BatchEntry> entries) {
+        return entries.stream().filter(entry -> entry.failure == null).toList();
+    }
+
     /**
      * Processes an order based on the provided order type and sends it to the specified Kafka topic.
      * <p>
      * This method performs the following steps:
      * 1. Prepares the order event based on the provided order request and order type.
      * 2. Attempts to add the order to a Redis queue.
-     * 3. If successful, sends the order event to the specified Kafka topic.
+     * 3. If successful, sends the order event to the specified Kafka topic and waits for the broker to acknowledge it.
      * 4. In case of any error (either in Redis or Kafka operations), it attempts to remove the order from the Redis queue.
      * </p>
      *
@@ -93,7 +208,7 @@ public class TradeServiceImpl implements TradeService {
                 .onErrorResume(e -> {
                     log.error("Error occurred during order processing for order ID: {}", orderEvent.getOrderId(), e);
                     return orderRedisReactiveService.removeCachedOrder(orderEvent.getOrderId(), orderEvent.getUserId())
-                            .then(Mono.error(new RuntimeException("An error occurred while processing the order. Please try again later.")));
+                            .then(Mono.error(e instanceof OrderPublishRejectedException ? e : new RuntimeException(PROCESSING_ERROR_MESSAGE)));
                 });
     }
 
@@ -112,7 +227,8 @@ public class TradeServiceImpl implements TradeService {
         //set common info
         orderEvent.setUserId(orderRequest.getUserId());
         orderEvent.setOrderType(orderType);
-        orderEvent.setCreatedAt(LocalDateTime.now());
+        // Microseconds are what the created_at column keeps, so the cache and the database hold the same value
+        orderEvent.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
 
 
         if (orderRequest instanceof BuyOrderRequest) {
@@ -131,6 +247,15 @@ public class TradeServiceImpl implements TradeService {
         return Mono.just(orderEvent);
     }
 
+    private OrderType getOrderType(OrderRequest orderRequest) {
+        if (orderRequest instanceof BuyOrderRequest) {
+            return OrderType.BUY;
+        } else if (orderRequest instanceof SellOrderRequest) {
+            return OrderType.SELL;
+        }
+        return OrderType.CANCEL;
+    }
+
     private void populateOrderEventFromCancelRequest(OrderEvent orderEvent, CancelOrderRequest cancelOrderRequest) {
         orderEvent.setOrderId(cancelOrderRequest.getOrderId());
         orderEvent.setTicker(cancelOrderRequest.getTicker());
@@ -151,4 +276,22 @@ public class TradeServiceImpl implements TradeService {
         orderEvent.setTicker(sellOrderRequest.getTicker());
     }
 
+    /**
+     * Tracks one order of a batch through the steps, so a failed order can be rolled back and reported.
+     */
+    private static class BatchEntry {
+        private final OrderEvent orderEvent;
+        private boolean reserved;
+        private boolean cached;
+        private String failure;
+
+        private BatchEntry(OrderEvent orderEvent) {
+            this.orderEvent = orderEvent;
+        }
+
+        private BatchOrderResponse.OrderResult toResult() {
+            OrderStatus status = failure == null ? OrderStatus.CREATED : OrderStatus.FAILED;
+            return new BatchOrderResponse.OrderResult(orderEvent.getOrderId(), orderEvent.getOrderType(), status, failure);
+        }
+    }
 }
@@ -7,11 +7,14 @@ import com.midas.studycase.brokerageapi.model.mapper.UserMapper;
 import com.midas.studycase.brokerageapi.model.request.CreateUserRequest;
 import com.midas.studycase.brokerageapi.model.response.CreateUserResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserDetailResponse;
+import com.midas.studycase.brokerageapi.model.response.GetUserPageResponse;
 import com.midas.studycase.brokerageapi.model.response.GetUserResponseList;
 import com.midas.studycase.brokerageapi.repository.UserEntityRepository;
 import com.midas.studycase.brokerageapi.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +26,12 @@ public class UserServiceImpl implements UserService {
 
     private final UserEntityRepository userEntityRepository;
 
+    @Value("${user.list.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${user.list.max-page-size:100}")
+    private int maxPageSize;
+
     @Override
     @Transactional
     public CreateUserResponse createUser(CreateUserRequest request) {
@@ -39,6 +48,16 @@ public class UserServiceImpl implements UserService {
         return UserMapper.INSTANCE.toGetUserResponseList(userEntityRepository.findAll());
     }
 
+    /**
+     * Reads the page of users after the given id. The page size is capped at {@code user.list.max-page-size}.
+     */
+    @Override
+    public GetUserPageResponse listUsers(Long after, Integer pageSize) {
+        int size = Math.max(1, Math.min(pageSize != null ? pageSize : defaultPageSize, maxPageSize));
+        return UserMapper.INSTANCE.toGetUserPageResponse(
+                userEntityRepository.findByIdGreaterThanOrderByIdAsc(after != null ? after : 0L, PageRequest.of(0, size)), size);
+    }
+
 
     @Override
     public GetUserDetailResponse getUserById(Long userId) {
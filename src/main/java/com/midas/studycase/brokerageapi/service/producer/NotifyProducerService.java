@@ -1,20 +1,59 @@
 package com.midas.studycase.brokerageapi.service.producer;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.event.UserNotification;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes user notifications.
+ * <p>
+ * Order outcomes are not sent one by one. They are buffered per user and every notification window the outcomes
+ * of each user are coalesced into one {@link UserNotification}, and the messages of all users are handed to the
+ * producer together. An outcome reported inside a transaction is only buffered once the transaction has been
+ * committed, so the consumer never waits on Kafka and users are not told about changes that were rolled back.
+ * </p>
+ */
 @Slf4j
 @Service
 public class NotifyProducerService {
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final KafkaTemplate<String, String> notiyfKafkaTemplate;
+    private final int maxPending;
+    private final Scheduler scheduler = Schedulers.newSingle("user-notifications", true);
+    private final Disposable windowTask;
+    private Map<Long, List<UserNotification.Entry>> pending = new HashMap<>();
+    private int pendingCount;
 
-    public NotifyProducerService(@Qualifier("notifyKafkaTemplate") KafkaTemplate<String, String> notiyfKafkaTemplate) {
+    public NotifyProducerService(@Qualifier("notifyKafkaTemplate") KafkaTemplate<String, String> notiyfKafkaTemplate,
+                                 @Value("${notification.window-ms:1000}") long windowMs,
+                                 @Value("${notification.max-pending:10000}") int maxPending) {
         this.notiyfKafkaTemplate = notiyfKafkaTemplate;
+        this.maxPending = maxPending;
+        this.windowTask = scheduler.schedulePeriodically(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -31,5 +70,83 @@ public class NotifyProducerService {
             log.error("Failed to send notification to user: {}. Message: {}", userId, message, e);
         }
     }
-}
 
+    /**
+     * Reports the outcome of an order to its user with the next notification of the user. Inside a transaction
+     * the outcome is only reported once the transaction has been committed.
+     *
+     * @param orderEvent the settled order.
+     * @param outcome    the outcome of the order.
+     * @param message    the detail shown to the user for this order.
+     */
+    public void notifyOrder(OrderEvent orderEvent, UserNotification.Outcome outcome, String message) {
+        UserNotification.Entry entry = new UserNotification.Entry(orderEvent.getOrderId(), outcome, message);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(orderEvent.getUserId(), entry);
+                }
+            });
+        } else {
+            enqueue(orderEvent.getUserId(), entry);
+        }
+    }
+
+    private void enqueue(long userId, UserNotification.Entry entry) {
+        boolean full;
+        synchronized (this) {
+            pending.computeIfAbsent(userId, id -> new ArrayList<>()).add(entry);
+            full = ++pendingCount == maxPending;
+        }
+        if (full) {
+            // Sends the window early instead of holding more outcomes in memory
+            scheduler.schedule(this::flush);
+        }
+    }
+
+    /**
+     * Sends one notification per user with the outcomes buffered since the previous window.
+     */
+    private void flush() {
+        Map<Long, List<UserNotification.Entry>> window;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            window = pending;
+            pending = new HashMap<>();
+            pendingCount = 0;
+        }
+
+        window.forEach((userId, entries) -> {
+            try {
+                String message = OBJECT_MAPPER.writeValueAsString(new UserNotification(userId, summarize(entries), entries));
+                notiyfKafkaTemplate.send(KafkaConfig.USER_NOTIFICATION_TOPIC, String.valueOf(userId), message)
+                        .whenComplete((result, e) -> {
+                            if (e != null) {
+                                log.error("Failed to send notification to user: {}. Message: {}", userId, message, e);
+                            }
+                        });
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.error("Failed to send notification of {} orders to user: {}", entries.size(), userId, e);
+            }
+        });
+        log.info("Sent notifications of {} orders to {} users", window.values().stream().mapToInt(List::size).sum(), window.size());
+    }
+
+    private static String summarize(List<UserNotification.Entry> entries) {
+        Map<UserNotification.Outcome, Long> counts = entries.stream()
+                .collect(Collectors.groupingBy(UserNotification.Entry::getOutcome, () -> new EnumMap<>(UserNotification.Outcome.class), Collectors.counting()));
+        return counts.entrySet().stream()
+                .map(count -> count.getKey().describe(count.getValue()))
+                .collect(Collectors.joining(", "));
+    }
+
+    @PreDestroy
+    public void close() {
+        windowTask.dispose();
+        flush();
+        scheduler.dispose();
+    }
+}
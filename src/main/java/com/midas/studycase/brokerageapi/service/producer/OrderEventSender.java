@@ -0,0 +1,156 @@
+package com.midas.studycase.brokerageapi.service.producer;
+
+import com.midas.studycase.brokerageapi.config.kafka.OrderKafkaProperties;
+import com.midas.studycase.brokerageapi.exception.OrderPublishRejectedException;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Publishes order events with one reactor-kafka sender per topic.
+ * <p>
+ * Each sender consumes a single queue of records for its topic, so its in-flight window bounds every
+ * record of the topic that has been sent but not yet acknowledged by the broker. While the window is full
+ * the sender stops requesting records and they wait in the queue, which is bounded as well: once it is full
+ * new records are rejected instead of piling up in the producer buffer. Every record is completed with its
+ * own acknowledgement, so a caller only sees success once the broker has written the record. A caller waits
+ * at most {@code ackTimeoutMs} for it, and when a sender stops, the records it still holds are failed
+ * rather than left waiting.
+ * </p>
+ */
+@Slf4j
+public class OrderEventSender {
+
+    private final OrderKafkaProperties.Producer properties;
+    private final Function<String, SenderOptions<String, OrderEvent>> senderOptions;
+    private final Map<String, TopicSender> topicSenders = new ConcurrentHashMap<>();
+
+    public OrderEventSender(OrderKafkaProperties.Producer properties, Function<String, SenderOptions<String, OrderEvent>> senderOptions) {
+        this.properties = properties;
+        this.senderOptions = senderOptions;
+    }
+
+    /**
+     * Sends an order event.
+     *
+     * @param topic      The topic to which the order event should be sent.
+     * @param key        The record key.
+     * @param orderEvent The order event.
+     * @return A Mono emitting the metadata of the record once the broker has acknowledged it, an
+     * {@link OrderPublishRejectedException} if too many records of the topic are already waiting, or a
+     * {@link java.util.concurrent.TimeoutException} if no acknowledgement came in time. A record that timed
+     * out may still be written by the broker later.
+     */
+    public Mono<RecordMetadata> send(String topic, String key, OrderEvent orderEvent) {
+        return Mono.defer(() -> {
+            Sinks.One<RecordMetadata> acknowledgement = Sinks.one();
+            SenderRecord<String, OrderEvent, Sinks.One<RecordMetadata>> record =
+                    SenderRecord.create(new ProducerRecord<>(topic, key, orderEvent), acknowledgement);
+            if (!topicSenders.computeIfAbsent(topic, this::createTopicSender).offer(record)) {
+                log.warn("Rejected order {}, {} records of topic {} are already waiting", orderEvent.getOrderId(),
+                        properties.getMaxQueued(), topic);
+                return Mono.error(new OrderPublishRejectedException(topic));
+            }
+            return acknowledgement.asMono().timeout(Duration.ofMillis(properties.getAckTimeoutMs()));
+        });
+    }
+
+    public void close() {
+        topicSenders.values().forEach(TopicSender::close);
+        topicSenders.clear();
+    }
+
+    private TopicSender createTopicSender(String topic) {
+        SenderOptions<String, OrderEvent> options = senderOptions.apply(topic)
+                .maxInFlight(properties.getMaxInFlight())
+                .stopOnError(false);
+        return new TopicSender(topic, KafkaSender.create(options));
+    }
+
+    /**
+     * The sender of one topic and the queue feeding it.
+     */
+    private final class TopicSender {
+        private final String topic;
+        private final Sinks.Many<SenderRecord<String, OrderEvent, Sinks.One<RecordMetadata>>> queue;
+        private final KafkaSender<String, OrderEvent> sender;
+        private final Set<Sinks.One<RecordMetadata>> pending = ConcurrentHashMap.newKeySet();
+        private final Disposable subscription;
+        private boolean stopped;
+
+        private TopicSender(String topic, KafkaSender<String, OrderEvent> sender) {
+            this.topic = topic;
+            this.sender = sender;
+            this.queue = Sinks.many().unicast().onBackpressureBuffer(
+                    Queues.<SenderRecord<String, OrderEvent, Sinks.One<RecordMetadata>>>get(properties.getMaxQueued()).get());
+            this.subscription = sender.send(queue.asFlux())
+                    .subscribe(this::acknowledge, e -> {
+                        // Records are failed one by one, so this is a fatal producer error; the next send starts a new sender
+                        log.error("Sender of topic {} stopped", topic, e);
+                        topicSenders.remove(topic, this);
+                        sender.close();
+                        failPending(e);
+                    });
+        }
+
+        /**
+         * Queues a record. Emissions are serialized, since the request threads of all callers share the queue.
+         * A record is tracked until it is acknowledged, so it can be failed if the sender stops first.
+         */
+        private synchronized boolean offer(SenderRecord<String, OrderEvent, Sinks.One<RecordMetadata>> record) {
+            if (stopped) {
+                return false;
+            }
+            pending.add(record.correlationMetadata());
+            if (!queue.tryEmitNext(record).isSuccess()) {
+                pending.remove(record.correlationMetadata());
+                return false;
+            }
+            return true;
+        }
+
+        private void acknowledge(SenderResult<Sinks.One<RecordMetadata>> result) {
+            pending.remove(result.correlationMetadata());
+            if (result.exception() != null) {
+                result.correlationMetadata().tryEmitError(result.exception());
+            } else {
+                result.correlationMetadata().tryEmitValue(result.recordMetadata());
+            }
+        }
+
+        private void close() {
+            subscription.dispose();
+            sender.close();
+            failPending(new IllegalStateException("Sender of topic " + topic + " was closed"));
+        }
+
+        /**
+         * Fails every record that was queued or sent but not acknowledged, and stops accepting new ones.
+         */
+        private void failPending(Throwable cause) {
+            synchronized (this) {
+                stopped = true;
+            }
+            for (Sinks.One<RecordMetadata> acknowledgement : new ArrayList<>(pending)) {
+                pending.remove(acknowledgement);
+                acknowledgement.tryEmitError(cause);
+            }
+        }
+    }
+}
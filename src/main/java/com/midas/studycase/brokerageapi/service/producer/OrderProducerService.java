@@ -1,28 +1,94 @@
 package com.midas.studycase.brokerageapi.service.producer;
 
+import com.midas.studycase.brokerageapi.config.kafka.OrderKafkaProperties;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.function.Function;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderProducerService {
 
-    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final OrderEventSender orderEventSender;
+    private final OrderKafkaProperties orderKafkaProperties;
+
+    @Value("${order.lock.enabled:false}")
+    private boolean orderLockEnabled;
+
+    @Value("${order.engine.enabled:false}")
+    private boolean orderEngineEnabled;
+
+    /**
+     * Keying by user spreads the events of a ticker over every partition, so no single consumer thread owns a
+     * ticker any more. The order engine and the lock-free consumer rely on that ownership, so the USER strategy
+     * is only accepted with the order lock on and the engine off.
+     *
+     * @throws IllegalStateException if the key strategy does not fit the consumer settings.
+     */
+    @PostConstruct
+    void validateKeyStrategy() {
+        if (orderKafkaProperties.getKeyStrategy() == OrderKafkaProperties.KeyStrategy.USER && (!orderLockEnabled || orderEngineEnabled)) {
+            throw new IllegalStateException("order.kafka.key-strategy=USER requires order.lock.enabled=true and order.engine.enabled=false");
+        }
+    }
 
+    /**
+     * Sends an order event and waits for the broker to acknowledge it.
+     *
+     * @param topic      The topic to which the order event should be sent.
+     * @param orderEvent The order event to be sent.
+     * @return A Mono completing once the record is written, or failing if it was rejected or could not be written.
+     */
     public Mono<Void> sendOrderEvent(String topic, OrderEvent orderEvent) {
-        return Mono.fromRunnable(() -> {
-            try {
-                kafkaTemplate.send(topic, orderEvent);
-                log.info("Successfully sent message to Kafka topic: {}", topic);
-            } catch (Exception e) {
-                log.error("Error while sending message to Kafka", e);
-                throw e;
-            }
-        });
+        return orderEventSender.send(topic, partitionKey(orderEvent), orderEvent)
+                .doOnNext(metadata -> log.info("Order event {} acknowledged on {}-{} at offset {}",
+                        orderEvent.getOrderId(), metadata.topic(), metadata.partition(), metadata.offset()))
+                .doOnError(e -> log.error("Error while sending message to Kafka", e))
+                .then();
+    }
+
+    /**
+     * Sends several order events. Every event is handed to the producer before any acknowledgement is awaited,
+     * so the records of a batch request leave in as few produce requests as the linger settings allow.
+     *
+     * @param orderEvents The order events to be sent.
+     * @param topics      Resolves the topic of each order event.
+     * @return A Mono emitting whether each event was acknowledged by the broker, in the order of the given events.
+     */
+    public Mono<List<Boolean>> sendOrderEvents(List<OrderEvent> orderEvents, Function<OrderEvent, String> topics) {
+        if (orderEvents.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return Flux.fromIterable(orderEvents)
+                .flatMapSequential(orderEvent -> sendOrderEvent(topics.apply(orderEvent), orderEvent)
+                                .thenReturn(true)
+                                .onErrorReturn(false),
+                        orderEvents.size())
+                .collectList()
+                .doOnSuccess(sent -> log.info("Sent {} order events to Kafka", orderEvents.size()));
+    }
+
+    /**
+     * Resolves the record key of an order event, so every event of the same ticker (or user) is
+     * routed to the same partition and consumed by a single thread.
+     *
+     * @param orderEvent The order event.
+     * @return The record key.
+     */
+    private String partitionKey(OrderEvent orderEvent) {
+        return switch (orderKafkaProperties.getKeyStrategy()) {
+            case TICKER -> orderEvent.getTicker();
+            case USER -> String.valueOf(orderEvent.getUserId());
+        };
     }
 }
@@ -0,0 +1,232 @@
+package com.midas.studycase.brokerageapi.service.ratelimit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.midas.studycase.brokerageapi.config.ratelimit.TradeRateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token bucket rate limiter for the trade endpoints, keyed by user and by ticker.
+ * <p>
+ * The buckets live in Redis and are refilled and debited by one script, so every node shares the same
+ * budget. To keep Redis off the hot path a node leases several tokens at once and hands them out locally,
+ * and once Redis has denied a key the node denies it locally until the bucket has refilled. Most requests
+ * are therefore decided without a round trip. If Redis cannot be reached requests are let through, since
+ * the limiter protects the order pipeline but must not stop it.
+ * </p>
+ */
+@Slf4j
+@Service
+public class TradeRateLimiter {
+    private static final String USER_LIMIT = "user";
+    private static final String TICKER_LIMIT = "ticker";
+
+    /**
+     * KEYS[1] = bucket hash. ARGV[1] = capacity, ARGV[2] = tokens refilled per second,
+     * ARGV[3] = tokens needed, ARGV[4] = tokens wanted, at least the needed ones.
+     * Grants as many of the wanted tokens as the bucket holds, or none if it holds fewer than needed.
+     * Returns the granted tokens, or minus the milliseconds until the needed tokens are available.
+     * The time is taken from Redis, so the clocks of the nodes do not matter.
+     */
+    private static final String ACQUIRE_SCRIPT = """
+            local capacity = tonumber(ARGV[1])
+            local refillPerMs = tonumber(ARGV[2]) / 1000
+            local needed = tonumber(ARGV[3])
+            local wanted = tonumber(ARGV[4])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'timestamp')
+            local tokens = tonumber(bucket[1]) or capacity
+            local timestamp = tonumber(bucket[2]) or now
+            tokens = math.min(capacity, tokens + math.max(0, now - timestamp) * refillPerMs)
+            if tokens < needed then
+                return -math.max(1, math.ceil((needed - tokens) / refillPerMs))
+            end
+            local granted = math.min(wanted, math.floor(tokens))
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens - granted), 'timestamp', tostring(now))
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / refillPerMs))
+            return granted
+            """;
+
+    private final RedissonReactiveClient redissonReactiveClient;
+    private final TradeRateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, LocalBucket> localBuckets;
+    private final Map<String, Counter> shedCounters = new LinkedHashMap<>();
+    private final Counter remoteChecks;
+
+    public TradeRateLimiter(RedissonReactiveClient redissonReactiveClient, TradeRateLimitProperties properties,
+                            ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.redissonReactiveClient = redissonReactiveClient;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.localBuckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumLocalBuckets())
+                .expireAfterAccess(Duration.ofMillis(properties.getLeaseTtlMs()))
+                .build();
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        for (String limit : List.of(USER_LIMIT, TICKER_LIMIT)) {
+            shedCounters.put(limit, registry == null ? null : Counter.builder("trades.rate_limit.shed")
+                    .description("Trade requests rejected by the rate limiter")
+                    .tag("limit", limit)
+                    .register(registry));
+        }
+        this.remoteChecks = registry == null ? null : Counter.builder("trades.rate_limit.remote_checks")
+                .description("Rate limit decisions that needed a Redis round trip")
+                .register(registry);
+    }
+
+    /**
+     * Takes the tokens needed by a trade request, one per order from the bucket of the order's user and one
+     * from the bucket of its ticker. Either all of them are taken or none.
+     *
+     * @param body the JSON body of a trade request.
+     * @return a Mono emitting 0 if the request is allowed, or the milliseconds after which it can be retried.
+     */
+    public Mono<Long> acquire(byte[] body) {
+        if (!properties.isEnabled()) {
+            return Mono.just(0L);
+        }
+        return acquireAll(resolvePermits(body), 0);
+    }
+
+    private Mono<Long> acquireAll(List<BucketPermits> permits, int index) {
+        if (index == permits.size()) {
+            return Mono.just(0L);
+        }
+
+        BucketPermits bucketPermits = permits.get(index);
+        return acquire(bucketPermits)
+                .flatMap(retryAfterMs -> {
+                    if (retryAfterMs > 0) {
+                        // Tokens taken from the other buckets go back to the local lease, which costs no round trip
+                        permits.subList(0, index).forEach(taken -> getLocalBucket(taken).lease(taken.permits()));
+                        Counter shedCounter = shedCounters.get(bucketPermits.limit());
+                        if (shedCounter != null) {
+                            shedCounter.increment();
+                        }
+                        log.debug("Rate limited trade request on {}, retry after {} ms", bucketPermits.key(), retryAfterMs);
+                        return Mono.just(retryAfterMs);
+                    }
+                    return acquireAll(permits, index + 1);
+                });
+    }
+
+    private Mono<Long> acquire(BucketPermits bucketPermits) {
+        LocalBucket localBucket = getLocalBucket(bucketPermits);
+        long localDecision = localBucket.tryTake(bucketPermits.permits(), System.currentTimeMillis());
+        if (localDecision >= 0) {
+            return Mono.just(localDecision);
+        }
+
+        if (remoteChecks != null) {
+            remoteChecks.increment();
+        }
+        TradeRateLimitProperties.Limit limit = USER_LIMIT.equals(bucketPermits.limit()) ? properties.getUser() : properties.getTicker();
+        int wanted = Math.max(bucketPermits.permits(), properties.getLeaseSize());
+        return redissonReactiveClient.getScript(StringCodec.INSTANCE)
+                .<Long>eval(RScript.Mode.READ_WRITE, ACQUIRE_SCRIPT, RScript.ReturnType.INTEGER, List.of(bucketPermits.key()),
+                        String.valueOf(limit.getCapacity()), String.valueOf(limit.getRefillPerSecond()),
+                        String.valueOf(bucketPermits.permits()), String.valueOf(wanted))
+                .map(granted -> granted < 0
+                        ? localBucket.deny(-granted, System.currentTimeMillis())
+                        : localBucket.lease(granted - bucketPermits.permits()))
+                .onErrorResume(e -> {
+                    log.warn("Rate limit check on {} failed, letting the request through", bucketPermits.key(), e);
+                    return Mono.just(0L);
+                });
+    }
+
+    private LocalBucket getLocalBucket(BucketPermits bucketPermits) {
+        return localBuckets.get(bucketPermits.key(), key -> new LocalBucket());
+    }
+
+    /**
+     * Counts the tokens a request needs per bucket. A batch request needs one per order, but never more than
+     * the bucket holds, or it could never be granted; a batch that large empties the bucket instead. Bodies
+     * that cannot be read need none, and are rejected by the validation of the endpoint instead.
+     */
+    private List<BucketPermits> resolvePermits(byte[] body) {
+        Map<String, Integer> userPermits = new LinkedHashMap<>();
+        Map<String, Integer> tickerPermits = new LinkedHashMap<>();
+        try {
+            JsonNode request = objectMapper.readTree(body);
+            Iterable<JsonNode> orders = request == null ? List.of() : request.has("orders") ? request.get("orders") : List.of(request);
+            for (JsonNode order : orders) {
+                if (order.hasNonNull("userId")) {
+                    userPermits.merge(order.get("userId").asText(), 1, Integer::sum);
+                }
+                if (order.hasNonNull("ticker")) {
+                    tickerPermits.merge(order.get("ticker").asText(), 1, Integer::sum);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Trade request body could not be read for rate limiting", e);
+        }
+
+        List<BucketPermits> permits = new ArrayList<>();
+        userPermits.forEach((userId, count) -> permits.add(new BucketPermits(USER_LIMIT, "rate:user:" + userId,
+                capPermits(count, properties.getUser()))));
+        tickerPermits.forEach((ticker, count) -> permits.add(new BucketPermits(TICKER_LIMIT, "rate:ticker:" + ticker,
+                capPermits(count, properties.getTicker()))));
+        return permits;
+    }
+
+    private static int capPermits(int count, TradeRateLimitProperties.Limit limit) {
+        return (int) Math.max(1, Math.min(count, limit.getCapacity()));
+    }
+
+    private record BucketPermits(String limit, String key, int permits) {
+    }
+
+    /**
+     * Tokens leased from Redis by this node for one bucket, and the time until which Redis denied it.
+     */
+    private static class LocalBucket {
+        private long leased;
+        private long deniedUntil;
+
+        /**
+         * @return 0 if the tokens were taken from the lease, the milliseconds until the bucket refills if it
+         * is denied, or -1 if Redis has to be asked.
+         */
+        synchronized long tryTake(int permits, long now) {
+            if (deniedUntil > now) {
+                return deniedUntil - now;
+            }
+            if (leased >= permits) {
+                leased -= permits;
+                return 0;
+            }
+            return -1;
+        }
+
+        synchronized long lease(long tokens) {
+            leased += tokens;
+            return 0;
+        }
+
+        synchronized long deny(long retryAfterMs, long now) {
+            deniedUntil = now + retryAfterMs;
+            return retryAfterMs;
+        }
+    }
+}
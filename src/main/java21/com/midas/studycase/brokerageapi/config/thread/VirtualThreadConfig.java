@@ -0,0 +1,53 @@
+package com.midas.studycase.brokerageapi.config.thread;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the blocking parts of the application on virtual threads: Tomcat request handling, the Kafka listener
+ * containers and the bounded elastic scheduler used to offload JPA calls from reactive pipelines.
+ * <p>
+ * Only compiled with the {@code jdk21} Maven profile and activated with the {@code virtual-threads} Spring
+ * profile. Listener concurrency still follows the partition count, since every partition is consumed by a
+ * single thread to keep the order of its events. The bounded elastic scheduler is switched by
+ * {@link VirtualThreadSchedulerInitializer} before the context starts.
+ * </p>
+ * <p>
+ * A virtual thread that blocks inside a {@code synchronized} block or a native frame stays pinned to its carrier.
+ * The application code holds no monitors while blocking, and the Redisson lock waits on futures. The PostgreSQL
+ * driver uses ReentrantLock from 42.6 on. To find other pinning, start the JVM with
+ * {@code -Djdk.tracePinnedThreads=short}, which the profile sets for {@code spring-boot:run}, or record the
+ * {@code jdk.VirtualThreadPinned} JFR event.
+ * </p>
+ */
+@Configuration
+@Profile(VirtualThreadConfig.PROFILE)
+public class VirtualThreadConfig {
+    public static final String PROFILE = "virtual-threads";
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public static BeanPostProcessor virtualThreadListenerContainerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractKafkaListenerContainerFactory<?, ?, ?> factory) {
+                    factory.getContainerProperties()
+                            .setListenerTaskExecutor(new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor()));
+                }
+                return bean;
+            }
+        };
+    }
+}
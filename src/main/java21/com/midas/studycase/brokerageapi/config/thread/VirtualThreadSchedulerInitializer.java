@@ -0,0 +1,39 @@
+package com.midas.studycase.brokerageapi.config.thread;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Profiles;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Makes the bounded elastic scheduler create virtual threads when the {@code virtual-threads} profile is active.
+ * <p>
+ * Runs before the application context is refreshed, so no bean can have created the scheduler with platform
+ * threads yet; a factory set later only applies to schedulers created after it. The scheduler keeps its thread
+ * cap and task queue cap, so the number of blocking calls in flight, for example on the JDBC pool, stays bounded
+ * as it is with platform threads. Registered in {@code META-INF/spring.factories} of the {@code jdk21} build.
+ * </p>
+ */
+@Slf4j
+public class VirtualThreadSchedulerInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext applicationContext) {
+        if (!applicationContext.getEnvironment().acceptsProfiles(Profiles.of(VirtualThreadConfig.PROFILE))) {
+            return;
+        }
+
+        ThreadFactory virtualThreadFactory = Thread.ofVirtual().name("boundedElastic-virtual-", 0).factory();
+        Schedulers.setFactory(new Schedulers.Factory() {
+            @Override
+            public Scheduler newBoundedElastic(int threadCap, int queuedTaskCap, ThreadFactory threadFactory, int ttlSeconds) {
+                return Schedulers.Factory.super.newBoundedElastic(threadCap, queuedTaskCap, virtualThreadFactory, ttlSeconds);
+            }
+        });
+        log.info("Bounded elastic scheduler runs on virtual threads");
+    }
+}
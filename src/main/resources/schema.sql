@@ -65,7 +65,8 @@ CREATE TABLE orders
 );
 
 CREATE INDEX idx_order_id ON orders(order_id);
-CREATE INDEX idx_user_id ON orders(user_id);
+-- Serves lookups by user and the keyset pagination of a user's orders, newest first
+CREATE INDEX idx_user_created_at_order_id ON orders(user_id, created_at DESC, order_id DESC);
 CREATE INDEX idx_ticker ON orders(ticker);
 CREATE INDEX idx_status ON orders(status);
 
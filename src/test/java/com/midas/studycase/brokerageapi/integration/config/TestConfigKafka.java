@@ -2,8 +2,11 @@ package com.midas.studycase.brokerageapi.integration.config;
 
 import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
 import com.midas.studycase.brokerageapi.config.kafka.KafkaProperties;
+import com.midas.studycase.brokerageapi.config.kafka.OrderKafkaProperties;
+import com.midas.studycase.brokerageapi.service.engine.OrderEngine;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -20,8 +23,8 @@ public class TestConfigKafka extends KafkaConfig {
     @Autowired
     private KafkaContainer kafkaContainer;
 
-    public TestConfigKafka(KafkaProperties properties) {
-        super(properties);
+    public TestConfigKafka(KafkaProperties properties, OrderKafkaProperties orderKafkaProperties, ObjectProvider<OrderEngine> orderEngine) {
+        super(properties, orderKafkaProperties, orderEngine);
     }
 
     @PostConstruct
@@ -3,6 +3,7 @@ package com.midas.studycase.brokerageapi.integration.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.midas.studycase.brokerageapi.config.redis.CompactCodec;
 import com.midas.studycase.brokerageapi.integration.config.property.RedisProperties;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
@@ -13,6 +14,7 @@ import org.redisson.codec.JsonJacksonCodec;
 import org.redisson.config.Config;
 import org.redisson.spring.data.connection.RedissonConnectionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
@@ -29,6 +31,9 @@ public class TestConfigRedis {
     @Autowired
     private GenericContainer<?> redisContainer;
 
+    @Value("${redis.codec.compact-writes:true}")
+    private boolean compactWrites;
+
     @PostConstruct
     public void setRedisHostAndPort() {
         redisProperties.setHost(redisContainer.getHost());
@@ -43,25 +48,19 @@ public class TestConfigRedis {
     @Bean(destroyMethod = "shutdown")
     public RedissonClient redissonClient() {
         Config config = new Config();
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        JsonJacksonCodec jsonJacksonCodec = new JsonJacksonCodec(objectMapper);
-        config.setCodec(jsonJacksonCodec);
+        config.setCodec(createCodec());
         config.useSingleServer().setAddress("redis://" + getRedisProperties().getHost() +":" + getRedisProperties().getPort());
         return Redisson.create(config);
     }
 
-    @Bean(destroyMethod = "shutdown")
-    public RedissonReactiveClient redissonReactiveClient() {
-        Config config = new Config();
-
+    @Bean(destroyMethod = "")
+    public RedissonReactiveClient redissonReactiveClient(RedissonClient redissonClient) {
+        return redissonClient.reactive();
+    }
 
+    private CompactCodec createCodec() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        JsonJacksonCodec jsonJacksonCodec = new JsonJacksonCodec(objectMapper);
-
-        config.setCodec(jsonJacksonCodec);
-        config.useSingleServer().setAddress("redis://" + getRedisProperties().getHost() +":" + getRedisProperties().getPort());
-        return Redisson.create(config).reactive();
+        return new CompactCodec(new JsonJacksonCodec(objectMapper), compactWrites);
     }
 }
@@ -0,0 +1,100 @@
+package com.midas.studycase.brokerageapi.integration.controller;
+
+import com.midas.studycase.brokerageapi.TestBrokerageApiApplication;
+import com.midas.studycase.brokerageapi.model.entity.OrderEntity;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.repository.OrderEntityRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest(classes = TestBrokerageApiApplication.class)
+@AutoConfigureMockMvc
+@Testcontainers
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class OrderControllerIntegrationTest {
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderEntityRepository orderRepository;
+
+    @Test
+    @DisplayName("Should Page A User's Orders With The Cursor Of Each Full Page")
+    public void shouldPageUserOrdersWithCursor() throws Exception {
+        // Given
+        long userId = new Random().nextLong();
+        LocalDateTime acceptedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        OrderEntity newest = saveOrder(userId, acceptedAt);
+        OrderEntity middle = saveOrder(userId, acceptedAt.minusNanos(1_000));
+        OrderEntity oldest = saveOrder(userId, acceptedAt.minusSeconds(1));
+
+        // When
+        MvcResult firstPage = perform("/orders/user/" + userId + "?pageSize=2")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].orderId").value(newest.getOrderId()))
+                .andExpect(jsonPath("$[1].orderId").value(middle.getOrderId()))
+                .andExpect(header().exists(NEXT_CURSOR_HEADER))
+                .andReturn();
+
+        // Then
+        perform("/orders/user/" + userId + "?pageSize=2&after=" + firstPage.getResponse().getHeader(NEXT_CURSOR_HEADER))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].orderId").value(oldest.getOrderId()))
+                .andExpect(header().doesNotExist(NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should Reject A Cursor That Was Not Issued By The Api")
+    public void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/orders/user/1?after=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions perform(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private OrderEntity saveOrder(long userId, LocalDateTime createdAt) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(UUID.randomUUID().toString());
+        order.setUserId(userId);
+        order.setTicker("APPL");
+        order.setOrderType(OrderType.BUY);
+        order.setQuantity(1);
+        order.setStatus(OrderStatus.COMPLETED);
+        order.setCreatedAt(createdAt);
+        order.setUpdatedAt(createdAt);
+        return orderRepository.save(order);
+    }
+}
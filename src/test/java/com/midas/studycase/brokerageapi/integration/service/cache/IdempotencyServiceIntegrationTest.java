@@ -0,0 +1,106 @@
+package com.midas.studycase.brokerageapi.integration.service.cache;
+
+import com.midas.studycase.brokerageapi.exception.IdempotencyKeyMismatchException;
+import com.midas.studycase.brokerageapi.integration.config.RedisContainerConfig;
+import com.midas.studycase.brokerageapi.integration.config.TestConfigRedis;
+import com.midas.studycase.brokerageapi.integration.config.property.RedisProperties;
+import com.midas.studycase.brokerageapi.model.request.BuyOrderRequest;
+import com.midas.studycase.brokerageapi.model.response.OrderResponse;
+import com.midas.studycase.brokerageapi.service.cache.IdempotencyService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ActiveProfiles("test")
+@Testcontainers
+@SpringBootTest(classes = {IdempotencyService.class, JacksonAutoConfiguration.class, TestConfigRedis.class, RedisProperties.class, RedisContainerConfig.class})
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class IdempotencyServiceIntegrationTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Test
+    @DisplayName("Should Replay The First Response For The Same Key And Body")
+    public void shouldReplayFirstResponse() {
+        // Given
+        BuyOrderRequest order = buildBuyOrderRequest();
+        String key = UUID.randomUUID().toString();
+        AtomicInteger published = new AtomicInteger();
+
+        // When
+        OrderResponse first = idempotencyService.execute(order.getUserId(), key, "buy", order, () -> publish(published)).block();
+        OrderResponse retry = idempotencyService.execute(order.getUserId(), key, "buy", order, () -> publish(published)).block();
+
+        // Then
+        Assertions.assertEquals(first.getOrderId(), retry.getOrderId());
+        Assertions.assertEquals(1, published.get());
+    }
+
+    @Test
+    @DisplayName("Should Reject A Key Reused For Another Endpoint Or Body")
+    public void shouldRejectKeyReusedForDifferentRequest() {
+        // Given
+        BuyOrderRequest order = buildBuyOrderRequest();
+        String key = UUID.randomUUID().toString();
+        AtomicInteger published = new AtomicInteger();
+        idempotencyService.execute(order.getUserId(), key, "buy", order, () -> publish(published)).block();
+        BuyOrderRequest changedOrder = buildBuyOrderRequest();
+        changedOrder.setUserId(order.getUserId());
+        changedOrder.setQuantity(order.getQuantity() + 1);
+
+        // When & Then
+        StepVerifier.create(idempotencyService.execute(order.getUserId(), key, "buy", changedOrder, () -> publish(published)))
+                .expectError(IdempotencyKeyMismatchException.class)
+                .verify();
+        StepVerifier.create(idempotencyService.execute(order.getUserId(), key, "sell", order, () -> publish(published)))
+                .expectError(IdempotencyKeyMismatchException.class)
+                .verify();
+        Assertions.assertEquals(1, published.get());
+    }
+
+    @Test
+    @DisplayName("Should Release The Key When The Request Fails")
+    public void shouldReleaseKeyWhenRequestFails() {
+        // Given
+        BuyOrderRequest order = buildBuyOrderRequest();
+        String key = UUID.randomUUID().toString();
+        AtomicInteger published = new AtomicInteger();
+        StepVerifier.create(idempotencyService.execute(order.getUserId(), key, "buy", order, () -> Mono.error(new RuntimeException("Kafka is down"))))
+                .expectError(RuntimeException.class)
+                .verify();
+
+        // When
+        idempotencyService.execute(order.getUserId(), key, "buy", order, () -> publish(published)).block();
+
+        // Then
+        Assertions.assertEquals(1, published.get());
+    }
+
+    private Mono<OrderResponse> publish(AtomicInteger published) {
+        return Mono.fromCallable(() -> {
+            published.incrementAndGet();
+            return new OrderResponse(UUID.randomUUID().toString());
+        });
+    }
+
+    private BuyOrderRequest buildBuyOrderRequest() {
+        BuyOrderRequest order = new BuyOrderRequest();
+        order.setUserId(new Random().nextLong());
+        order.setTicker("APPL");
+        order.setQuantity(5);
+        return order;
+    }
+}
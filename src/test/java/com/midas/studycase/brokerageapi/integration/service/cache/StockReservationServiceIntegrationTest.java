@@ -0,0 +1,135 @@
+package com.midas.studycase.brokerageapi.integration.service.cache;
+
+import com.midas.studycase.brokerageapi.TestBrokerageApiApplication;
+import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
+import com.midas.studycase.brokerageapi.model.entity.StockEntity;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.repository.StockEntityRepository;
+import com.midas.studycase.brokerageapi.service.cache.StockReservationService;
+import com.midas.studycase.brokerageapi.service.consumer.OrderConsumerService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+@ActiveProfiles("test")
+@Testcontainers
+@SpringBootTest(classes = TestBrokerageApiApplication.class)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "order.reservation.reconcile-interval-ms=0")
+public class StockReservationServiceIntegrationTest {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private StockEntityRepository stockEntityRepository;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @MockBean
+    private OrderConsumerService orderConsumerService;
+
+    @Test
+    @DisplayName("Should Reserve Buy Quantity And Reject Buys Exceeding The Remaining Quantity")
+    public void shouldReserveAndRejectBuys() {
+        // Given
+        String ticker = initializeStock(10);
+
+        // When & Then
+        StepVerifier.create(stockReservationService.reserve(buildOrderEvent(ticker, OrderType.BUY, 6)))
+                .expectNext(4L)
+                .verifyComplete();
+        StepVerifier.create(stockReservationService.reserve(buildOrderEvent(ticker, OrderType.BUY, 5)))
+                .expectError(InsufficientStockException.class)
+                .verify();
+        Assertions.assertEquals(4, getAvailable(ticker));
+    }
+
+    @Test
+    @DisplayName("Should Release The Reservation Of A Failed Buy Only Once")
+    public void shouldReleaseFailedBuyOnce() {
+        // Given
+        String ticker = initializeStock(10);
+        OrderEvent buy = buildOrderEvent(ticker, OrderType.BUY, 6);
+        stockReservationService.reserve(buy).block();
+
+        // When
+        stockReservationService.settle(buy, OrderStatus.FAILED);
+        stockReservationService.settle(buy, OrderStatus.FAILED);
+
+        // Then
+        Assertions.assertEquals(10, getAvailable(ticker));
+    }
+
+    @Test
+    @DisplayName("Should Keep The Reservation Of A Completed Buy And Release A Completed Sell")
+    public void shouldSettleCompletedOrders() {
+        // Given
+        String ticker = initializeStock(10);
+        OrderEvent buy = buildOrderEvent(ticker, OrderType.BUY, 6);
+        stockReservationService.reserve(buy).block();
+
+        // When
+        stockReservationService.settle(buy, OrderStatus.COMPLETED);
+        stockReservationService.settle(buy, OrderStatus.FAILED);
+        stockReservationService.settle(buildOrderEvent(ticker, OrderType.SELL, 2), OrderStatus.COMPLETED);
+
+        // Then
+        Assertions.assertEquals(6, getAvailable(ticker));
+    }
+
+    @Test
+    @DisplayName("Should Reconcile The Counter To The Database Quantity Minus Open Reservations")
+    public void shouldReconcileCounter() {
+        // Given
+        String ticker = initializeStock(10);
+        stockReservationService.reserve(buildOrderEvent(ticker, OrderType.BUY, 3)).block();
+        StockEntity stock = stockEntityRepository.findByTicker(ticker);
+        stock.setQuantity(8);
+        stockEntityRepository.save(stock);
+
+        // When
+        stockReservationService.reconcile();
+
+        // Then
+        Assertions.assertEquals(5, getAvailable(ticker));
+    }
+
+    private String initializeStock(int quantity) {
+        StockEntity stockEntity = new StockEntity();
+        stockEntity.setTicker(UUID.randomUUID() + "APPL");
+        stockEntity.setQuantity(quantity);
+        stockEntityRepository.save(stockEntity);
+        return stockEntity.getTicker();
+    }
+
+    private long getAvailable(String ticker) {
+        return Long.parseLong(redissonClient.<String>getBucket("stock:available:" + ticker, StringCodec.INSTANCE).get());
+    }
+
+    private OrderEvent buildOrderEvent(String ticker, OrderType orderType, int quantity) {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setOrderId(UUID.randomUUID().toString());
+        orderEvent.setUserId(new Random().nextLong());
+        orderEvent.setTicker(ticker);
+        orderEvent.setOrderType(orderType);
+        orderEvent.setQuantity(quantity);
+        orderEvent.setCreatedAt(LocalDateTime.now());
+        return orderEvent;
+    }
+}
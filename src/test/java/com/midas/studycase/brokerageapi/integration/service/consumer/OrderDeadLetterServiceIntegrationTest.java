@@ -0,0 +1,156 @@
+package com.midas.studycase.brokerageapi.integration.service.consumer;
+
+import com.midas.studycase.brokerageapi.TestBrokerageApiApplication;
+import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.exception.OrderProcessingException;
+import com.midas.studycase.brokerageapi.integration.util.KafkaTestUtils;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.model.response.DeadLetterReplayResponse;
+import com.midas.studycase.brokerageapi.service.StockService;
+import com.midas.studycase.brokerageapi.service.consumer.OrderDeadLetterService;
+import com.midas.studycase.brokerageapi.service.producer.OrderProducerService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@Slf4j
+@ActiveProfiles("test")
+@SpringBootTest(classes = TestBrokerageApiApplication.class)
+@Testcontainers
+@TestPropertySource(locations = "classpath:application-test.properties",
+        properties = {"order.kafka.retry.initial-delay-ms=100", "order.kafka.retry.max-delay-ms=200"})
+public class OrderDeadLetterServiceIntegrationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    OrderDeadLetterService orderDeadLetterService;
+
+    @Autowired
+    KafkaTemplate<String, OrderEvent> kafkaTemplate;
+
+    @Autowired
+    KafkaTemplate<String, Object> deadLetterKafkaTemplate;
+
+    @Autowired
+    KafkaContainer kafkaContainer;
+
+    @SpyBean
+    StockService stockService;
+
+    @SpyBean
+    OrderProducerService orderProducerService;
+
+    @Test
+    @DisplayName("Given an order event that keeps failing, when it is consumed, then it is retried and moved to the dead letter topic")
+    public void shouldRetryAndDeadLetterFailingEvent() {
+        // Given
+        OrderEvent buy = buildOrderEvent(OrderType.BUY);
+        doThrow(new OrderProcessingException("Order processing failed"))
+                .when(stockService).processBuyOrder(argThat(orderEvent -> isOrder(orderEvent, buy)));
+
+        // When
+        kafkaTemplate.send(KafkaConfig.BUY_ORDERS_TOPIC, buy.getTicker(), buy);
+
+        // Then
+        ConsumerRecord<String, OrderEvent> deadLetter = KafkaTestUtils.awaitOrderEvent(kafkaContainer.getBootstrapServers(),
+                KafkaConfig.BUY_ORDERS_TOPIC + KafkaConfig.DLT_SUFFIX, buy.getOrderId(), TIMEOUT);
+        assertNotNull(deadLetter);
+        assertNotNull(deadLetter.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN));
+        verify(stockService, times(4)).processBuyOrder(argThat(orderEvent -> isOrder(orderEvent, buy)));
+    }
+
+    @Test
+    @DisplayName("Given dead letters, when they are replayed twice, then they are sent to their topic once")
+    public void shouldReplayDeadLettersOnce() {
+        // Given
+        doNothing().when(stockService).processCancelOrder(any());
+        orderDeadLetterService.replay(KafkaConfig.CANCELLED_ORDERS_TOPIC, 1000).block();
+        OrderEvent first = buildOrderEvent(OrderType.CANCEL);
+        OrderEvent second = buildOrderEvent(OrderType.CANCEL);
+        orderDeadLetterService.publish(first, new IllegalStateException("Order processing failed"));
+        orderDeadLetterService.publish(second, new IllegalStateException("Order processing failed"));
+
+        // When
+        DeadLetterReplayResponse replay = orderDeadLetterService.replay(KafkaConfig.CANCELLED_ORDERS_TOPIC, 1000).block();
+        DeadLetterReplayResponse repeatedReplay = orderDeadLetterService.replay(KafkaConfig.CANCELLED_ORDERS_TOPIC, 1000).block();
+
+        // Then
+        assertEquals(2, replay.getReplayed());
+        assertEquals(0, repeatedReplay.getReplayed());
+        assertNotNull(KafkaTestUtils.awaitOrderEvent(kafkaContainer.getBootstrapServers(),
+                KafkaConfig.CANCELLED_ORDERS_TOPIC, second.getOrderId(), TIMEOUT));
+    }
+
+    @Test
+    @DisplayName("Given a replay that fails midway, when it is repeated, then it continues at the failed dead letter")
+    public void shouldContinueFailedReplayWithoutDuplicates() throws Exception {
+        // Given
+        doNothing().when(stockService).processSellOrder(any());
+        orderDeadLetterService.replay(KafkaConfig.SELL_ORDERS_TOPIC, 1000).block();
+        OrderEvent first = buildOrderEvent(OrderType.SELL);
+        OrderEvent second = buildOrderEvent(OrderType.SELL);
+        OrderEvent third = buildOrderEvent(OrderType.SELL);
+        for (OrderEvent orderEvent : new OrderEvent[]{first, second, third}) {
+            deadLetterKafkaTemplate.send(new ProducerRecord<>(KafkaConfig.SELL_ORDERS_TOPIC + KafkaConfig.DLT_SUFFIX, 0,
+                    orderEvent.getTicker(), orderEvent)).get();
+        }
+        doReturn(Mono.error(new IllegalStateException("Broker unavailable"))).doCallRealMethod()
+                .when(orderProducerService).sendOrderEvent(eq(KafkaConfig.SELL_ORDERS_TOPIC), argThat(orderEvent -> isOrder(orderEvent, second)));
+
+        // When
+        assertThrows(IllegalStateException.class, () -> orderDeadLetterService.replay(KafkaConfig.SELL_ORDERS_TOPIC, 1000).block());
+        DeadLetterReplayResponse repeatedReplay = orderDeadLetterService.replay(KafkaConfig.SELL_ORDERS_TOPIC, 1000).block();
+
+        // Then
+        assertEquals(2, repeatedReplay.getReplayed());
+        verify(orderProducerService, times(1)).sendOrderEvent(eq(KafkaConfig.SELL_ORDERS_TOPIC), argThat(orderEvent -> isOrder(orderEvent, first)));
+        verify(orderProducerService, times(2)).sendOrderEvent(eq(KafkaConfig.SELL_ORDERS_TOPIC), argThat(orderEvent -> isOrder(orderEvent, second)));
+        verify(orderProducerService, times(1)).sendOrderEvent(eq(KafkaConfig.SELL_ORDERS_TOPIC), argThat(orderEvent -> isOrder(orderEvent, third)));
+    }
+
+    private boolean isOrder(OrderEvent orderEvent, OrderEvent expected) {
+        return orderEvent != null && expected.getOrderId().equals(orderEvent.getOrderId());
+    }
+
+    private OrderEvent buildOrderEvent(OrderType orderType) {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setOrderId(UUID.randomUUID().toString());
+        orderEvent.setUserId(new Random().nextLong());
+        orderEvent.setOrderType(orderType);
+        orderEvent.setQuantity(5);
+        orderEvent.setTicker(UUID.randomUUID() + "APPL");
+        orderEvent.setCreatedAt(LocalDateTime.now());
+        return orderEvent;
+    }
+}
@@ -0,0 +1,263 @@
+package com.midas.studycase.brokerageapi.integration.service.impl;
+
+import com.midas.studycase.brokerageapi.TestBrokerageApiApplication;
+import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.exception.OrderProcessingException;
+import com.midas.studycase.brokerageapi.integration.util.KafkaTestUtils;
+import com.midas.studycase.brokerageapi.model.entity.StockEntity;
+import com.midas.studycase.brokerageapi.model.entity.UserStockEntity;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.repository.OrderEntityRepository;
+import com.midas.studycase.brokerageapi.repository.StockEntityRepository;
+import com.midas.studycase.brokerageapi.repository.UserStockEntityRepository;
+import com.midas.studycase.brokerageapi.service.StockService;
+import com.midas.studycase.brokerageapi.service.cache.StockCacheService;
+import com.midas.studycase.brokerageapi.service.consumer.OrderBatchConsumerService;
+import com.midas.studycase.brokerageapi.service.consumer.ProcessedOrderFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.client.RedisException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+
+@Slf4j
+@ActiveProfiles("test")
+@SpringBootTest(classes = TestBrokerageApiApplication.class)
+@Testcontainers
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "order.kafka.batch.enabled=true")
+public class StockServiceImplBatchIntegrationTest {
+
+    @Autowired
+    StockService stockService;
+
+    @Autowired
+    OrderBatchConsumerService orderBatchConsumerService;
+
+    @SpyBean
+    StockEntityRepository stockEntityRepository;
+
+    @Autowired
+    UserStockEntityRepository userStockEntityRepository;
+
+    @Autowired
+    OrderEntityRepository orderRepository;
+
+    @Autowired
+    ProcessedOrderFilter processedOrderFilter;
+
+    @SpyBean
+    StockCacheService stockCacheService;
+
+    @Autowired
+    KafkaContainer kafkaContainer;
+
+    @Test
+    @DisplayName("Given buys and sells of one ticker, when processOrderBatch is called, then the net change is applied to the stock and positions")
+    public void shouldApplyNetChangeOfBatch() {
+        // Given
+        String ticker = UUID.randomUUID() + "APPL";
+        long buyer = new Random().nextLong();
+        long seller = new Random().nextLong();
+        initializeStock(ticker, 8);
+        saveUserStock(seller, ticker, 4);
+        OrderEvent buy = buildOrderEvent(buyer, ticker, OrderType.BUY, 5);
+        OrderEvent sell = buildOrderEvent(seller, ticker, OrderType.SELL, 2);
+        OrderEvent secondBuy = buildOrderEvent(buyer, ticker, OrderType.BUY, 4);
+
+        // When
+        stockService.processOrderBatch(List.of(buy, sell, secondBuy));
+
+        // Then
+        assertEquals(1, stockEntityRepository.findByTicker(ticker).getQuantity());
+        assertEquals(9, userStockEntityRepository.findByUserIdAndTicker(buyer, ticker).getQuantity());
+        assertEquals(2, userStockEntityRepository.findByUserIdAndTicker(seller, ticker).getQuantity());
+        assertEquals(OrderStatus.COMPLETED, orderRepository.findByOrderIdWithHistories(secondBuy.getOrderId()).get().getStatus());
+    }
+
+    @Test
+    @DisplayName("Given a buy the earlier orders of the batch made impossible, when processOrderBatch is called, then only that order fails")
+    public void shouldFailOrderExceedingBatchQuantity() {
+        // Given
+        String ticker = UUID.randomUUID() + "APPL";
+        long userId = new Random().nextLong();
+        initializeStock(ticker, 6);
+        OrderEvent buy = buildOrderEvent(userId, ticker, OrderType.BUY, 5);
+        OrderEvent secondBuy = buildOrderEvent(userId, ticker, OrderType.BUY, 5);
+
+        // When
+        stockService.processOrderBatch(List.of(buy, secondBuy));
+
+        // Then
+        assertEquals(1, stockEntityRepository.findByTicker(ticker).getQuantity());
+        assertEquals(5, userStockEntityRepository.findByUserIdAndTicker(userId, ticker).getQuantity());
+        assertEquals(OrderStatus.COMPLETED, orderRepository.findByOrderIdWithHistories(buy.getOrderId()).get().getStatus());
+        assertEquals(OrderStatus.FAILED, orderRepository.findByOrderIdWithHistories(secondBuy.getOrderId()).get().getStatus());
+    }
+
+    @Test
+    @DisplayName("Given a stock that changed under the batch, when processOrderBatch is called, then the whole batch is rolled back")
+    public void shouldRollBackBatchWhenGuardFails() {
+        // Given
+        String ticker = UUID.randomUUID() + "APPL";
+        long userId = new Random().nextLong();
+        initializeStock(ticker, 6);
+        OrderEvent buy = buildOrderEvent(userId, ticker, OrderType.BUY, 5);
+        doReturn(null).when(stockEntityRepository).decrementQuantityIfAvailable(eq(ticker), anyInt());
+
+        // When
+        assertThrows(OrderProcessingException.class, () -> stockService.processOrderBatch(List.of(buy)));
+
+        // Then
+        assertEquals(6, stockEntityRepository.findByTicker(ticker).getQuantity());
+        assertNull(userStockEntityRepository.findByUserIdAndTicker(userId, ticker));
+        assertTrue(orderRepository.findByOrderIdWithHistories(buy.getOrderId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given a batch that cannot be committed, when the batch consumer receives it, then its events are processed one at a time")
+    public void shouldFallBackToSingleEventsWhenBatchFails() {
+        // Given
+        String ticker = UUID.randomUUID() + "APPL";
+        long userId = new Random().nextLong();
+        initializeStock(ticker, 6);
+        OrderEvent buy = buildOrderEvent(userId, ticker, OrderType.BUY, 5);
+        doReturn(null).doCallRealMethod().when(stockEntityRepository).decrementQuantityIfAvailable(eq(ticker), anyInt());
+        AtomicBoolean acknowledged = new AtomicBoolean();
+
+        // When
+        orderBatchConsumerService.consumeOrderEvents(List.of(toRecord(KafkaConfig.BUY_ORDERS_TOPIC, buy)), () -> acknowledged.set(true));
+
+        // Then
+        assertTrue(acknowledged.get());
+        assertEquals(1, stockEntityRepository.findByTicker(ticker).getQuantity());
+        assertEquals(5, userStockEntityRepository.findByUserIdAndTicker(userId, ticker).getQuantity());
+        assertEquals(OrderStatus.COMPLETED, orderRepository.findByOrderIdWithHistories(buy.getOrderId()).get().getStatus());
+    }
+
+    @Test
+    @DisplayName("Given a stale cached stock quantity, when processBuyOrder is called, then the order is completed from the stored quantity")
+    public void shouldCompleteBuyOrderWhenCachedStockIsStale() {
+        // Given
+        String ticker = UUID.randomUUID() + "APPL";
+        long userId = new Random().nextLong();
+        initializeStock(ticker, 6);
+        stockCacheService.updateStockInCache(ticker, 0);
+        OrderEvent buy = buildOrderEvent(userId, ticker, OrderType.BUY, 5);
+
+        // When
+        stockService.processBuyOrder(buy);
+
+        // Then
+        assertEquals(1, stockEntityRepository.findByTicker(ticker).getQuantity());
+        assertEquals(5, userStockEntityRepository.findByUserIdAndTicker(userId, ticker).getQuantity());
+        assertEquals(1, stockCacheService.getCachedStock(ticker));
+    }
+
+    @Test
+    @DisplayName("Given a cache that fails after the batch has committed, when the batch consumer receives it, then the batch is applied once")
+    public void shouldNotReapplyCommittedBatchWhenCacheUpdateFails() {
+        // Given
+        String ticker = UUID.randomUUID() + "APPL";
+        long userId = new Random().nextLong();
+        initializeStock(ticker, 6);
+        OrderEvent buy = buildOrderEvent(userId, ticker, OrderType.BUY, 5);
+        doThrow(new RedisException("Redis unavailable")).when(stockCacheService).updateStockInCache(eq(ticker), anyInt());
+        AtomicBoolean acknowledged = new AtomicBoolean();
+
+        // When
+        orderBatchConsumerService.consumeOrderEvents(List.of(toRecord(KafkaConfig.BUY_ORDERS_TOPIC, buy)), () -> acknowledged.set(true));
+
+        // Then
+        assertTrue(acknowledged.get());
+        assertTrue(processedOrderFilter.isProcessed(buy));
+        assertEquals(1, stockEntityRepository.findByTicker(ticker).getQuantity());
+        assertEquals(5, userStockEntityRepository.findByUserIdAndTicker(userId, ticker).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Given an unreadable record and an event that keeps failing, when the batch consumer receives them, then both are dead-lettered and only the processed event is marked")
+    public void shouldDeadLetterFailedAndUnreadableEvents() {
+        // Given
+        String ticker = UUID.randomUUID() + "APPL";
+        String failingTicker = UUID.randomUUID() + "APPL";
+        long userId = new Random().nextLong();
+        initializeStock(ticker, 6);
+        initializeStock(failingTicker, 6);
+        OrderEvent buy = buildOrderEvent(userId, ticker, OrderType.BUY, 5);
+        OrderEvent failingBuy = buildOrderEvent(userId, failingTicker, OrderType.BUY, 5);
+        OrderEvent unreadable = buildOrderEvent(userId, ticker, null, 5);
+        doThrow(new QueryTimeoutException("Query timed out")).when(stockEntityRepository).decrementQuantityIfAvailable(eq(failingTicker), anyInt());
+        AtomicBoolean acknowledged = new AtomicBoolean();
+
+        // When
+        orderBatchConsumerService.consumeOrderEvents(List.of(toRecord(KafkaConfig.BUY_ORDERS_TOPIC, buy),
+                toRecord(KafkaConfig.BUY_ORDERS_TOPIC, failingBuy), toRecord(KafkaConfig.SELL_ORDERS_TOPIC, unreadable)), () -> acknowledged.set(true));
+
+        // Then
+        assertTrue(acknowledged.get());
+        assertTrue(processedOrderFilter.isProcessed(buy));
+        assertFalse(processedOrderFilter.isProcessed(failingBuy));
+        assertNotNull(KafkaTestUtils.awaitOrderEvent(kafkaContainer.getBootstrapServers(),
+                KafkaConfig.BUY_ORDERS_TOPIC + KafkaConfig.DLT_SUFFIX, failingBuy.getOrderId(), Duration.ofSeconds(30)));
+        assertNotNull(KafkaTestUtils.awaitOrderEvent(kafkaContainer.getBootstrapServers(),
+                KafkaConfig.SELL_ORDERS_TOPIC + KafkaConfig.DLT_SUFFIX, unreadable.getOrderId(), Duration.ofSeconds(30)));
+    }
+
+    private ConsumerRecord<String, OrderEvent> toRecord(String topic, OrderEvent orderEvent) {
+        return new ConsumerRecord<>(topic, 0, 0L, orderEvent.getTicker(), orderEvent);
+    }
+
+    private void initializeStock(String ticker, int quantity) {
+        StockEntity stockEntity = new StockEntity();
+        stockEntity.setTicker(ticker);
+        stockEntity.setQuantity(quantity);
+        stockEntityRepository.save(stockEntity);
+    }
+
+    private void saveUserStock(Long userId, String ticker, int quantity) {
+        UserStockEntity userStockEntity = new UserStockEntity();
+        userStockEntity.setUserId(userId);
+        userStockEntity.setTicker(ticker);
+        userStockEntity.setQuantity(quantity);
+        userStockEntityRepository.save(userStockEntity);
+    }
+
+    private OrderEvent buildOrderEvent(Long userId, String ticker, OrderType orderType, int quantity) {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setOrderId(UUID.randomUUID().toString());
+        orderEvent.setUserId(userId);
+        orderEvent.setOrderType(orderType);
+        orderEvent.setQuantity(quantity);
+        orderEvent.setTicker(ticker);
+        orderEvent.setCreatedAt(LocalDateTime.now());
+        return orderEvent;
+    }
+}
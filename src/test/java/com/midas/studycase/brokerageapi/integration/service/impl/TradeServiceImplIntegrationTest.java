@@ -4,14 +4,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.midas.studycase.brokerageapi.TestBrokerageApiApplication;
 import com.midas.studycase.brokerageapi.config.kafka.KafkaConfig;
+import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
 import com.midas.studycase.brokerageapi.integration.config.TestConfigKafka;
 import com.midas.studycase.brokerageapi.integration.util.KafkaTestUtils;
+import com.midas.studycase.brokerageapi.model.entity.StockEntity;
 import com.midas.studycase.brokerageapi.model.enums.OrderType;
 import com.midas.studycase.brokerageapi.model.event.OrderEvent;
 import com.midas.studycase.brokerageapi.model.request.BuyOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.CancelOrderRequest;
 import com.midas.studycase.brokerageapi.model.request.OrderRequest;
 import com.midas.studycase.brokerageapi.model.request.SellOrderRequest;
+import com.midas.studycase.brokerageapi.repository.StockEntityRepository;
 import com.midas.studycase.brokerageapi.service.TradeService;
 import com.midas.studycase.brokerageapi.service.cache.OrderRedisService;
 import com.midas.studycase.brokerageapi.service.consumer.OrderConsumerService;
@@ -53,6 +56,9 @@ public class TradeServiceImplIntegrationTest {
     @Autowired
     TestConfigKafka testConfigKafka;
 
+    @Autowired
+    StockEntityRepository stockEntityRepository;
+
     private static ObjectMapper objectMapper = new ObjectMapper();
 
 
@@ -74,6 +80,7 @@ public class TradeServiceImplIntegrationTest {
 
         // Given
         BuyOrderRequest buyOrderRequest = createBuyOrderRequest();
+        initializeStock(buyOrderRequest.getTicker(), 10);
 
         // When
         StepVerifier.create(tradeService.processBuyOrder(buyOrderRequest))
@@ -81,12 +88,34 @@ public class TradeServiceImplIntegrationTest {
                 .verifyComplete();
 
         // Then
-        Consumer<String, String> consumer = createConsumer(KafkaConfig.BUY_ORDERS_TOPIC, UUID.randomUUID().toString());
+        Consumer<String, OrderEvent> consumer = createConsumer(KafkaConfig.BUY_ORDERS_TOPIC, UUID.randomUUID().toString());
         verifyOrderEvent(consumer, buyOrderRequest, OrderType.BUY);
 
         log.info("shouldProcessBuyOrderSuccessfully has been executed successfully");
     }
 
+    @Test
+    @DisplayName("Given a BuyOrderRequest exceeding the unreserved stock, when processBuyOrder is called, then it should be rejected before publishing")
+    public void shouldRejectBuyOrderExceedingReservableStock() throws IOException {
+        log.info("Executing shouldRejectBuyOrderExceedingReservableStock");
+
+        // Given
+        BuyOrderRequest firstOrderRequest = createBuyOrderRequest();
+        initializeStock(firstOrderRequest.getTicker(), 8);
+        BuyOrderRequest secondOrderRequest = createBuyOrderRequest();
+        secondOrderRequest.setTicker(firstOrderRequest.getTicker());
+        StepVerifier.create(tradeService.processBuyOrder(firstOrderRequest))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // When & Then
+        StepVerifier.create(tradeService.processBuyOrder(secondOrderRequest))
+                .expectError(InsufficientStockException.class)
+                .verify();
+
+        log.info("shouldRejectBuyOrderExceedingReservableStock has been executed successfully");
+    }
+
     @Test
     @DisplayName("Given a SellOrderRequest, when processSellOrder is called, then it should complete successfully")
     public void shouldProcessSellOrderSuccessfully() throws IOException {
@@ -101,7 +130,7 @@ public class TradeServiceImplIntegrationTest {
                 .verifyComplete();
 
         // Then
-        Consumer<String, String> consumer = createConsumer(KafkaConfig.SELL_ORDERS_TOPIC, UUID.randomUUID().toString());
+        Consumer<String, OrderEvent> consumer = createConsumer(KafkaConfig.SELL_ORDERS_TOPIC, UUID.randomUUID().toString());
         verifyOrderEvent(consumer, sellOrderRequest, OrderType.SELL);
 
         log.info("shouldProcessSellOrderSuccessfully has been executed successfully");
@@ -121,12 +150,19 @@ public class TradeServiceImplIntegrationTest {
                 .verifyComplete();
 
         // Then
-        Consumer<String, String> consumer = createConsumer(KafkaConfig.CANCELLED_ORDERS_TOPIC, UUID.randomUUID().toString());
+        Consumer<String, OrderEvent> consumer = createConsumer(KafkaConfig.CANCELLED_ORDERS_TOPIC, UUID.randomUUID().toString());
         verifyOrderEvent(consumer, cancelOrderRequest, OrderType.CANCEL);
 
         log.info("shouldProcessCancelOrderSuccessfully has been executed successfully");
     }
 
+    private void initializeStock(String ticker, int quantity) {
+        StockEntity stockEntity = new StockEntity();
+        stockEntity.setTicker(ticker);
+        stockEntity.setQuantity(quantity);
+        stockEntityRepository.save(stockEntity);
+    }
+
     private BuyOrderRequest createBuyOrderRequest() {
         log.info("Creating BuyOrderRequest");
         BuyOrderRequest buyOrderRequest = new BuyOrderRequest();
@@ -159,22 +195,21 @@ public class TradeServiceImplIntegrationTest {
         return cancelOrderRequest;
     }
 
-    private Consumer<String, String> createConsumer(String topic, String groupSuffix) {
+    private Consumer<String, OrderEvent> createConsumer(String topic, String groupSuffix) {
         log.info("Creating Kafka Consumer for topic: {}", topic);
-        Consumer<String, String> consumer = KafkaTestUtils.createConsumer(
+        Consumer<String, OrderEvent> consumer = KafkaTestUtils.createOrderEventConsumer(
                 testConfigKafka.getKafkaProperties().getBootstrapServers(),
                 "testGroup"+ groupSuffix, topic);
         log.info("Kafka Consumer has been created for topic: {}", topic);
         return consumer;
     }
 
-    private void verifyOrderEvent(Consumer<String, String> consumer, OrderRequest orderRequest, OrderType orderType) throws IOException {
+    private void verifyOrderEvent(Consumer<String, OrderEvent> consumer, OrderRequest orderRequest, OrderType orderType) throws IOException {
         log.info("Verifying OrderEvent for OrderRequest: {}", orderRequest);
-        ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer);
+        ConsumerRecords<String, OrderEvent> records = KafkaTestUtils.getRecords(consumer);
         assertEquals(1, records.count()); // Ensure we have consumed one message
 
-        String consumedMessage = records.iterator().next().value();
-        OrderEvent consumedOrderEvent = objectMapper.readValue(consumedMessage, OrderEvent.class);
+        OrderEvent consumedOrderEvent = records.iterator().next().value();
 
         Assertions.assertThat(consumedOrderEvent.getOrderType()).isEqualTo(orderType);
         Assertions.assertThat(consumedOrderEvent.getUserId()).isEqualTo(orderRequest.getUserId());
@@ -61,13 +61,12 @@ class OrderProducerServiceIntegrationTest {
         logger.info("Sending OrderEvent to the topic: {}", KafkaConfig.BUY_ORDERS_TOPIC);
         orderProducerService.sendOrderEvent(KafkaConfig.BUY_ORDERS_TOPIC, orderEvent).block();
 
-        Consumer<String, String> consumer = setupConsumer(KafkaConfig.BUY_ORDERS_TOPIC);
+        Consumer<String, OrderEvent> consumer = setupConsumer(KafkaConfig.BUY_ORDERS_TOPIC);
 
-        ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer);
+        ConsumerRecords<String, OrderEvent> records = KafkaTestUtils.getRecords(consumer);
         assertThat(records.count()).isEqualTo(1); // Ensure we have consumed one message
 
-        String consumedMessage = records.iterator().next().value();
-        OrderEvent consumedOrderEvent = objectMapper.readValue(consumedMessage, OrderEvent.class);
+        OrderEvent consumedOrderEvent = records.iterator().next().value();
 
         logger.info("Verifying the consumed OrderEvent: {}", consumedOrderEvent);
         assertThat(consumedOrderEvent).usingRecursiveComparison().isEqualTo(orderEvent);
@@ -76,9 +75,9 @@ class OrderProducerServiceIntegrationTest {
         logger.info("testSendOrderEvent test completed");
     }
 
-    private Consumer<String, String> setupConsumer(String topic) {
+    private Consumer<String, OrderEvent> setupConsumer(String topic) {
         logger.info("Setting up a Kafka consumer to consume the message from the topic: {}", topic);
-        return KafkaTestUtils.createConsumer(testConfigKafka.getKafkaProperties().getBootstrapServers(),
+        return KafkaTestUtils.createOrderEventConsumer(testConfigKafka.getKafkaProperties().getBootstrapServers(),
                 "testGroup", topic);
     }
 
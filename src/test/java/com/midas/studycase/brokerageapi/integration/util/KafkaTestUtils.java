@@ -1,8 +1,11 @@
 package com.midas.studycase.brokerageapi.integration.util;
 
 
+import com.midas.studycase.brokerageapi.config.kafka.OrderEventDeserializer;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -11,6 +14,7 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Utility class for Kafka related testing operations.
@@ -28,14 +32,30 @@ public class KafkaTestUtils {
      * @return A Kafka consumer.
      */
     public static Consumer<String, String> createConsumer(String bootstrapServers, String groupId, String topic) {
+        return createConsumer(bootstrapServers, groupId, topic, StringDeserializer.class);
+    }
+
+    /**
+     * Creates a Kafka consumer that reads order events in any schema the application writes.
+     *
+     * @param bootstrapServers Kafka bootstrap servers.
+     * @param groupId          Consumer group ID.
+     * @param topic            Kafka topic to subscribe to.
+     * @return A Kafka consumer.
+     */
+    public static <V> Consumer<String, V> createOrderEventConsumer(String bootstrapServers, String groupId, String topic) {
+        return createConsumer(bootstrapServers, groupId, topic, OrderEventDeserializer.class);
+    }
+
+    private static <V> Consumer<String, V> createConsumer(String bootstrapServers, String groupId, String topic, Class<?> valueDeserializer) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializer.getName());
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
 
-        Consumer<String, String> consumer = new KafkaConsumer<>(props);
+        Consumer<String, V> consumer = new KafkaConsumer<>(props);
         consumer.subscribe(Collections.singletonList(topic));
         return consumer;
     }
@@ -46,8 +66,30 @@ public class KafkaTestUtils {
      * @param consumer Kafka consumer.
      * @return Consumed records.
      */
-    public static ConsumerRecords<String, String> getRecords(Consumer<String, String> consumer) {
+    public static <V> ConsumerRecords<String, V> getRecords(Consumer<String, V> consumer) {
         return consumer.poll(POLL_DURATION);
     }
-}
 
+    /**
+     * Reads a topic from the beginning until the order event with the given id shows up.
+     *
+     * @param bootstrapServers Kafka bootstrap servers.
+     * @param topic            Kafka topic to read.
+     * @param orderId          The order id of the awaited event.
+     * @param timeout          How long to wait for the event.
+     * @return The record of the event, or null if it did not show up in time.
+     */
+    public static ConsumerRecord<String, OrderEvent> awaitOrderEvent(String bootstrapServers, String topic, String orderId, Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        try (Consumer<String, OrderEvent> consumer = createOrderEventConsumer(bootstrapServers, UUID.randomUUID().toString(), topic)) {
+            while (System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, OrderEvent> record : getRecords(consumer)) {
+                    if (record.value() != null && orderId.equals(record.value().getOrderId())) {
+                        return record;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
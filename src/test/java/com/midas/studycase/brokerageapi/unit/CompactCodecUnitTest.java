@@ -0,0 +1,91 @@
+package com.midas.studycase.brokerageapi.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.midas.studycase.brokerageapi.config.redis.CompactCodec;
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.JsonJacksonCodec;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactCodecUnitTest {
+
+    private final JsonJacksonCodec jsonCodec = new JsonJacksonCodec(new ObjectMapper().registerModule(new JavaTimeModule()));
+    private final CompactCodec compactCodec = new CompactCodec(jsonCodec, true);
+
+    @Test
+    @DisplayName("Should Round Trip Order Cache Values")
+    public void shouldRoundTripOrderCacheValues() throws IOException {
+        Map<String, String> historyEntry = createHistoryEntry();
+
+        assertEquals(OrderStatus.CANCELLED.name(), decode(compactCodec, encode(compactCodec, OrderStatus.CANCELLED)));
+        assertEquals(historyEntry, decode(compactCodec, encode(compactCodec, historyEntry)));
+        assertEquals(Boolean.TRUE, decode(compactCodec, encode(compactCodec, Boolean.TRUE)));
+        assertEquals("order-1", decode(compactCodec, encode(compactCodec, "order-1")));
+        assertEquals(42, decode(compactCodec, encode(compactCodec, 42L)));
+    }
+
+    @Test
+    @DisplayName("Should Read Values Written By The Json Codec")
+    public void shouldReadValuesWrittenByTheJsonCodec() throws IOException {
+        Map<String, String> historyEntry = createHistoryEntry();
+
+        assertEquals(OrderStatus.CREATED.name(), decode(compactCodec, encode(jsonCodec, OrderStatus.CREATED)));
+        assertEquals(historyEntry, decode(compactCodec, encode(jsonCodec, historyEntry)));
+        assertEquals(42L, decode(compactCodec, encode(jsonCodec, 42L)));
+    }
+
+    @Test
+    @DisplayName("Should Write Json When Compact Writes Are Disabled")
+    public void shouldWriteJsonWhenCompactWritesAreDisabled() throws IOException {
+        CompactCodec readOnlyCodec = new CompactCodec(jsonCodec, false);
+
+        assertArrayEquals(bytes(encode(jsonCodec, createHistoryEntry())), bytes(encode(readOnlyCodec, createHistoryEntry())));
+    }
+
+    @Test
+    @DisplayName("Should Write Status Names Identically In Both Formats")
+    public void shouldWriteStatusNamesIdenticallyInBothFormats() throws IOException {
+        CompactCodec readOnlyCodec = new CompactCodec(jsonCodec, false);
+
+        assertArrayEquals(bytes(encode(readOnlyCodec, OrderStatus.CREATED.name())), bytes(encode(compactCodec, OrderStatus.CREATED.name())));
+        assertEquals(OrderStatus.CREATED.name(), decode(compactCodec, encode(readOnlyCodec, OrderStatus.CREATED.name())));
+    }
+
+    @Test
+    @DisplayName("Should Write Fewer Bytes Than The Json Codec")
+    public void shouldWriteFewerBytesThanTheJsonCodec() throws IOException {
+        assertTrue(encode(compactCodec, OrderStatus.COMPLETED).readableBytes() < encode(jsonCodec, OrderStatus.COMPLETED).readableBytes());
+        assertTrue(encode(compactCodec, createHistoryEntry()).readableBytes() < encode(jsonCodec, createHistoryEntry()).readableBytes());
+        assertTrue(encode(compactCodec, 42L).readableBytes() < encode(jsonCodec, 42L).readableBytes());
+    }
+
+    private Map<String, String> createHistoryEntry() {
+        Map<String, String> historyEntry = new HashMap<>();
+        historyEntry.put("orderType", "BUY");
+        historyEntry.put("timestamp", "2023-10-01T10:15:30.123456");
+        return historyEntry;
+    }
+
+    private ByteBuf encode(Codec codec, Object value) throws IOException {
+        return codec.getValueEncoder().encode(value);
+    }
+
+    private Object decode(Codec codec, ByteBuf buf) throws IOException {
+        return codec.getValueDecoder().decode(buf, null);
+    }
+
+    private byte[] bytes(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+}
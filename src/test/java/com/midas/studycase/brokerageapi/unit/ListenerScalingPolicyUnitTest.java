@@ -0,0 +1,69 @@
+package com.midas.studycase.brokerageapi.unit;
+
+import com.midas.studycase.brokerageapi.config.kafka.OrderKafkaProperties;
+import com.midas.studycase.brokerageapi.service.consumer.ListenerScalingPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ListenerScalingPolicyUnitTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final OrderKafkaProperties.Autoscale autoscale = new OrderKafkaProperties.Autoscale();
+
+    @Test
+    @DisplayName("Should Double Threads When Lag Takes Too Long To Drain")
+    public void shouldDoubleThreadsWhenLagTakesTooLongToDrain() {
+        ListenerScalingPolicy policy = new ListenerScalingPolicy(autoscale, 3);
+
+        assertEquals(2, policy.decide(1, 10_000, 10 * MILLIS, 0));
+    }
+
+    @Test
+    @DisplayName("Should Keep Threads When Lag Drains In Time")
+    public void shouldKeepThreadsWhenLagDrainsInTime() {
+        ListenerScalingPolicy policy = new ListenerScalingPolicy(autoscale, 3);
+
+        assertEquals(1, policy.decide(1, 2_000, MILLIS, 0));
+    }
+
+    @Test
+    @DisplayName("Should Scale Up On Lag Alone When No Event Was Processed")
+    public void shouldScaleUpOnLagAloneWhenNoEventWasProcessed() {
+        ListenerScalingPolicy policy = new ListenerScalingPolicy(autoscale, 3);
+
+        assertEquals(2, policy.decide(1, 1_000, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Should Wait For Cooldown Between Changes")
+    public void shouldWaitForCooldownBetweenChanges() {
+        ListenerScalingPolicy policy = new ListenerScalingPolicy(autoscale, 3);
+
+        assertEquals(2, policy.decide(1, 10_000, 10 * MILLIS, 0));
+        assertEquals(2, policy.decide(2, 10_000, 10 * MILLIS, autoscale.getCooldownMs() - 1));
+        assertEquals(3, policy.decide(2, 10_000, 10 * MILLIS, autoscale.getCooldownMs()));
+    }
+
+    @Test
+    @DisplayName("Should Drop One Thread After Enough Quiet Intervals")
+    public void shouldDropOneThreadAfterEnoughQuietIntervals() {
+        ListenerScalingPolicy policy = new ListenerScalingPolicy(autoscale, 3);
+
+        for (int interval = 1; interval < autoscale.getScaleDownIntervals(); interval++) {
+            assertEquals(3, policy.decide(3, 0, 0, interval));
+        }
+        assertEquals(2, policy.decide(3, 0, 0, autoscale.getScaleDownIntervals()));
+    }
+
+    @Test
+    @DisplayName("Should Never Use More Threads Than Partitions")
+    public void shouldNeverUseMoreThreadsThanPartitions() {
+        ListenerScalingPolicy policy = new ListenerScalingPolicy(autoscale, 2);
+
+        assertEquals(2, policy.decide(3, 0, 0, 0));
+        assertEquals(2, policy.decide(2, 10_000, 10 * MILLIS, autoscale.getCooldownMs()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.midas.studycase.brokerageapi.unit;
+
+import com.midas.studycase.brokerageapi.model.enums.OrderStatus;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.mapper.OrderCsvMapper;
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OrderCsvMapperUnitTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2023, 10, 1, 10, 15, 30);
+
+    @Test
+    @DisplayName("Should Write One Line Per History")
+    public void shouldWriteOneLinePerHistory() {
+        OrderDetailResponse order = createOrder("APPL");
+        order.setOrderHistories(List.of(createHistory(OrderType.BUY), createHistory(OrderType.CANCEL)));
+
+        assertEquals("""
+                order-1,1,APPL,CANCELLED,10,2023-10-01T10:15:30,,BUY,2023-10-01T10:15:30
+                order-1,1,APPL,CANCELLED,10,2023-10-01T10:15:30,,CANCEL,2023-10-01T10:15:30
+                """, OrderCsvMapper.toCsvLines(order));
+    }
+
+    @Test
+    @DisplayName("Should Write Orders Without Histories And Quote Values")
+    public void shouldWriteOrdersWithoutHistoriesAndQuoteValues() {
+        OrderDetailResponse order = createOrder("A,\"B\"");
+        order.setOrderHistories(List.of());
+
+        assertEquals("order-1,1,\"A,\"\"B\"\"\",CANCELLED,10,2023-10-01T10:15:30,,,\n", OrderCsvMapper.toCsvLines(order));
+    }
+
+    private OrderDetailResponse createOrder(String ticker) {
+        OrderDetailResponse order = new OrderDetailResponse();
+        order.setOrderId("order-1");
+        order.setUserId("1");
+        order.setTicker(ticker);
+        order.setStatus(OrderStatus.CANCELLED);
+        order.setQuantity(10);
+        order.setCreatedAt(CREATED_AT);
+        return order;
+    }
+
+    private OrderDetailResponse.OrderHistory createHistory(OrderType orderType) {
+        OrderDetailResponse.OrderHistory history = new OrderDetailResponse.OrderHistory();
+        history.setOrderType(orderType);
+        history.setCreatedAt(CREATED_AT);
+        return history;
+    }
+}
@@ -0,0 +1,44 @@
+package com.midas.studycase.brokerageapi.unit;
+
+import com.midas.studycase.brokerageapi.exception.InvalidCursorException;
+import com.midas.studycase.brokerageapi.model.request.OrderCursor;
+import com.midas.studycase.brokerageapi.model.response.OrderDetailResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderCursorUnitTest {
+
+    @Test
+    @DisplayName("Should Round Trip The Cursor Of The Last Order Of A Page")
+    public void shouldRoundTripCursor() {
+        // Given
+        OrderDetailResponse order = new OrderDetailResponse();
+        order.setOrderId("c3f4e1a2-order");
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000));
+
+        // When
+        OrderCursor cursor = OrderCursor.parse(OrderCursor.after(order).encode());
+
+        // Then
+        assertEquals(order.getCreatedAt(), cursor.createdAt());
+        assertEquals(order.getOrderId(), cursor.orderId());
+    }
+
+    @Test
+    @DisplayName("Should Reject Tokens That Were Not Created By The Cursor")
+    public void shouldRejectForeignTokens() {
+        String missingOrderId = Base64.getUrlEncoder().encodeToString("2024-03-01T12:30:15,".getBytes(StandardCharsets.UTF_8));
+        String invalidDate = Base64.getUrlEncoder().encodeToString("yesterday,order-1".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidCursorException.class, () -> OrderCursor.parse("not base64!"));
+        assertThrows(InvalidCursorException.class, () -> OrderCursor.parse(missingOrderId));
+        assertThrows(InvalidCursorException.class, () -> OrderCursor.parse(invalidDate));
+    }
+}
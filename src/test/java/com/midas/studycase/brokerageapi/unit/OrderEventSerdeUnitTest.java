@@ -0,0 +1,137 @@
+package com.midas.studycase.brokerageapi.unit;
+
+import com.midas.studycase.brokerageapi.config.kafka.OrderEventBinaryCodec;
+import com.midas.studycase.brokerageapi.config.kafka.OrderEventDeserializer;
+import com.midas.studycase.brokerageapi.config.kafka.OrderEventSchema;
+import com.midas.studycase.brokerageapi.config.kafka.OrderEventSerializer;
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderEventSerdeUnitTest {
+
+    private static final String TOPIC = "buy_intent_orders";
+
+    private final OrderEventSerializer binarySerializer = new OrderEventSerializer(OrderEventSchema.BINARY);
+    private final OrderEventSerializer jsonSerializer = new OrderEventSerializer(OrderEventSchema.JSON);
+    private final OrderEventDeserializer deserializer = new OrderEventDeserializer();
+
+    @Test
+    @DisplayName("Should Round Trip Order Events In The Binary Schema")
+    public void shouldRoundTripOrderEventsInTheBinarySchema() {
+        OrderEvent orderEvent = createOrderEvent();
+        Headers headers = new RecordHeaders();
+
+        byte[] data = binarySerializer.serialize(TOPIC, headers, orderEvent);
+
+        assertArrayEquals(new byte[]{OrderEventSchema.BINARY.getId()}, headers.lastHeader(OrderEventSchema.HEADER).value());
+        assertEvent(orderEvent, deserializer.deserialize(TOPIC, headers, data));
+    }
+
+    @Test
+    @DisplayName("Should Read Json Records With And Without The Schema Header")
+    public void shouldReadJsonRecordsWithAndWithoutTheSchemaHeader() {
+        OrderEvent orderEvent = createOrderEvent();
+        Headers headers = new RecordHeaders();
+
+        byte[] data = jsonSerializer.serialize(TOPIC, headers, orderEvent);
+
+        assertArrayEquals(new byte[]{OrderEventSchema.JSON.getId()}, headers.lastHeader(OrderEventSchema.HEADER).value());
+        assertEvent(orderEvent, deserializer.deserialize(TOPIC, headers, data));
+        assertEvent(orderEvent, deserializer.deserialize(TOPIC, new RecordHeaders(), data));
+    }
+
+    @Test
+    @DisplayName("Should Read Binary Records Without The Schema Header")
+    public void shouldReadBinaryRecordsWithoutTheSchemaHeader() {
+        OrderEvent orderEvent = createOrderEvent();
+
+        assertEvent(orderEvent, deserializer.deserialize(TOPIC, new RecordHeaders(), OrderEventBinaryCodec.encode(orderEvent)));
+    }
+
+    @Test
+    @DisplayName("Should Skip Unknown Fields Written By A Newer Producer")
+    public void shouldSkipUnknownFieldsWrittenByANewerProducer() {
+        OrderEvent orderEvent = createOrderEvent();
+        byte[] encoded = OrderEventBinaryCodec.encode(orderEvent);
+        byte[] note = "limit".getBytes(StandardCharsets.UTF_8);
+
+        // Field 15 as a string, then field 16 as a varint; the key of field 16 takes two varint bytes
+        byte[] extended = Arrays.copyOf(encoded, encoded.length + 2 + note.length + 3);
+        extended[encoded.length] = (byte) (15 << 3 | 2);
+        extended[encoded.length + 1] = (byte) note.length;
+        System.arraycopy(note, 0, extended, encoded.length + 2, note.length);
+        extended[extended.length - 3] = (byte) 0x80;
+        extended[extended.length - 2] = 0x01;
+        extended[extended.length - 1] = 42;
+
+        assertEvent(orderEvent, OrderEventBinaryCodec.decode(extended));
+    }
+
+    @Test
+    @DisplayName("Should Leave Missing Fields At Their Defaults")
+    public void shouldLeaveMissingFieldsAtTheirDefaults() {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setOrderId("order-1");
+
+        OrderEvent decoded = OrderEventBinaryCodec.decode(OrderEventBinaryCodec.encode(orderEvent));
+
+        assertEquals("order-1", decoded.getOrderId());
+        assertNull(decoded.getTransactionId());
+        assertNull(decoded.getOrderType());
+        assertNull(decoded.getCreatedAt());
+        assertEquals(0, decoded.getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should Reject Unknown Schema Ids")
+    public void shouldRejectUnknownSchemaIds() {
+        Headers headers = new RecordHeaders();
+        headers.add(OrderEventSchema.HEADER, new byte[]{99});
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize(TOPIC, headers, new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    @DisplayName("Should Write Smaller Records Than Json")
+    public void shouldWriteSmallerRecordsThanJson() {
+        OrderEvent orderEvent = createOrderEvent();
+
+        byte[] binary = binarySerializer.serialize(TOPIC, new RecordHeaders(), orderEvent);
+        byte[] json = jsonSerializer.serialize(TOPIC, new RecordHeaders(), orderEvent);
+
+        assertTrue(binary.length * 2 < json.length, "binary " + binary.length + " bytes, json " + json.length + " bytes");
+    }
+
+    private void assertEvent(OrderEvent expected, OrderEvent actual) {
+        assertEquals(expected.getOrderId(), actual.getOrderId());
+        assertEquals(expected.getTransactionId(), actual.getTransactionId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getOrderType(), actual.getOrderType());
+        assertEquals(expected.getTicker(), actual.getTicker());
+        assertEquals(expected.getQuantity(), actual.getQuantity());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+    }
+
+    private OrderEvent createOrderEvent() {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setOrderId(UUID.randomUUID().toString());
+        orderEvent.setUserId(1L);
+        orderEvent.setOrderType(OrderType.SELL);
+        orderEvent.setTicker("APPL");
+        orderEvent.setQuantity(5);
+        orderEvent.setCreatedAt(LocalDateTime.of(2024, 3, 14, 9, 30, 15, 123456789));
+        return orderEvent;
+    }
+}
@@ -0,0 +1,47 @@
+package com.midas.studycase.brokerageapi.unit;
+
+import com.midas.studycase.brokerageapi.model.enums.OrderType;
+import com.midas.studycase.brokerageapi.model.event.OrderEvent;
+import com.midas.studycase.brokerageapi.service.consumer.ProcessedOrderFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProcessedOrderFilterUnitTest {
+
+    private final ProcessedOrderFilter processedOrderFilter = new ProcessedOrderFilter(1000, 60000);
+
+    @Test
+    @DisplayName("Should Skip Processed Events But Not The Cancel Of The Same Order")
+    public void shouldSkipProcessedEventsButNotTheCancelOfTheSameOrder() {
+        OrderEvent buyEvent = createOrderEvent("order-1", OrderType.BUY);
+        processedOrderFilter.markProcessed(buyEvent);
+
+        assertTrue(processedOrderFilter.isProcessed(createOrderEvent("order-1", OrderType.BUY)));
+        assertFalse(processedOrderFilter.isProcessed(createOrderEvent("order-1", OrderType.CANCEL)));
+        assertFalse(processedOrderFilter.isProcessed(createOrderEvent("order-2", OrderType.BUY)));
+    }
+
+    @Test
+    @DisplayName("Should Drop Duplicates Within A Batch")
+    public void shouldDropDuplicatesWithinABatch() {
+        processedOrderFilter.markProcessed(createOrderEvent("order-1", OrderType.BUY));
+        OrderEvent sellEvent = createOrderEvent("order-2", OrderType.SELL);
+        OrderEvent cancelEvent = createOrderEvent("order-2", OrderType.CANCEL);
+
+        List<OrderEvent> unprocessed = processedOrderFilter.filterUnprocessed(List.of(
+                createOrderEvent("order-1", OrderType.BUY), sellEvent, createOrderEvent("order-2", OrderType.SELL), cancelEvent));
+
+        assertEquals(List.of(sellEvent, cancelEvent), unprocessed);
+    }
+
+    private OrderEvent createOrderEvent(String orderId, OrderType orderType) {
+        OrderEvent orderEvent = new OrderEvent();
+        orderEvent.setOrderId(orderId);
+        orderEvent.setOrderType(orderType);
+        return orderEvent;
+    }
+}
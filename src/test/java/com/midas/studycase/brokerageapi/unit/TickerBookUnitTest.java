@@ -0,0 +1,138 @@
+package com.midas.studycase.brokerageapi.unit;
+
+import com.midas.studycase.brokerageapi.exception.ExceedingSystemStockLimitException;
+import com.midas.studycase.brokerageapi.exception.InsufficientStockException;
+import com.midas.studycase.brokerageapi.service.engine.TickerBook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickerBookUnitTest {
+
+    @Test
+    @DisplayName("Should Move Stock From System To User On Buy")
+    public void shouldMoveStockFromSystemToUserOnBuy() {
+        // Given
+        TickerBook book = new TickerBook("APPL", 10, 10, userId -> 0);
+
+        // When
+        int position = book.buy(1L, 4);
+
+        // Then
+        assertEquals(4, position);
+        assertEquals(6, book.getAvailableQuantity());
+    }
+
+    @Test
+    @DisplayName("Should Reject Buy When System Stock Is Insufficient")
+    public void shouldRejectBuyWhenSystemStockIsInsufficient() {
+        // Given
+        TickerBook book = new TickerBook("APPL", 2, 10, userId -> 0);
+
+        // When & Then
+        assertThrows(InsufficientStockException.class, () -> book.buy(1L, 3));
+        assertEquals(2, book.getAvailableQuantity());
+        assertEquals(0, book.getPosition(1L));
+    }
+
+    @Test
+    @DisplayName("Should Load Persisted Position Before Selling")
+    public void shouldLoadPersistedPositionBeforeSelling() {
+        // Given
+        Map<Long, Integer> persistedPositions = Map.of(1L, 5);
+        TickerBook book = new TickerBook("APPL", 5, 10, userId -> persistedPositions.getOrDefault(userId, 0));
+
+        // When
+        int position = book.sell(1L, 3);
+
+        // Then
+        assertEquals(2, position);
+        assertEquals(8, book.getAvailableQuantity());
+        assertThrows(InsufficientStockException.class, () -> book.sell(2L, 1));
+    }
+
+    @Test
+    @DisplayName("Should Reject Sell That Exceeds System Stock Limit")
+    public void shouldRejectSellThatExceedsSystemStockLimit() {
+        // Given
+        TickerBook book = new TickerBook("APPL", 9, 10, userId -> 5);
+
+        // When & Then
+        assertThrows(ExceedingSystemStockLimitException.class, () -> book.sell(1L, 2));
+        assertEquals(9, book.getAvailableQuantity());
+    }
+
+    @Test
+    @DisplayName("Should Restore State When Buy Is Reverted")
+    public void shouldRestoreStateWhenBuyIsReverted() {
+        // Given
+        TickerBook book = new TickerBook("APPL", 10, 10, userId -> 0);
+        book.buy(1L, 4);
+
+        // When
+        book.revertBuy(1L, 4);
+
+        // Then
+        assertEquals(10, book.getAvailableQuantity());
+        assertEquals(0, book.getPosition(1L));
+    }
+
+    @Test
+    @DisplayName("Should Reload Positions After Reset")
+    public void shouldReloadPositionsAfterReset() {
+        // Given
+        Map<Long, Integer> persistedPositions = new HashMap<>(Map.of(1L, 5));
+        TickerBook book = new TickerBook("APPL", 5, 10, userId -> persistedPositions.getOrDefault(userId, 0));
+        book.sell(1L, 2);
+        persistedPositions.put(1L, 1);
+
+        // When
+        book.reset(7);
+
+        // Then
+        assertEquals(7, book.getAvailableQuantity());
+        assertEquals(1, book.getPosition(1L));
+    }
+
+    @Test
+    @DisplayName("Should Take Over Persisted Quantities On Sync")
+    public void shouldTakeOverPersistedQuantitiesOnSync() {
+        // Given
+        TickerBook book = new TickerBook("APPL", 10, 10, userId -> 0);
+        book.buy(1L, 4);
+
+        // When
+        book.sync(1L, 3, 6);
+
+        // Then
+        assertEquals(3, book.getAvailableQuantity());
+        assertEquals(6, book.getPosition(1L));
+    }
+
+    @Test
+    @DisplayName("Should Keep Only The Most Recently Used Positions")
+    public void shouldKeepOnlyTheMostRecentlyUsedPositions() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        TickerBook book = new TickerBook("APPL", 10, 10, userId -> {
+            loads.incrementAndGet();
+            return 0;
+        }, 2);
+        book.getPosition(1L);
+        book.getPosition(2L);
+        book.getPosition(1L);
+
+        // When
+        book.getPosition(3L);
+        book.getPosition(1L);
+        book.getPosition(2L);
+
+        // Then
+        assertEquals(4, loads.get());
+    }
+}